@@ -5,6 +5,7 @@ import com.hgs.patient.siags_backend.model.Permission;
 import com.hgs.patient.siags_backend.model.Role;
 import com.hgs.patient.siags_backend.repository.PermissionRepository;
 import com.hgs.patient.siags_backend.repository.RoleRepository;
+import com.hgs.patient.siags_backend.security.services.AuthorityIndex;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -138,6 +139,9 @@ public class DataInitializer {
             updateRolePermissions(existingRolesMap.get(ERole.ROLE_PERSONNEL_ADMIN_SORTIE), personnelAdminSortiePermissions, roleRepository);
 
             System.out.println("Association des permissions aux rôles terminée.");
+
+            // Indexe les permissions connues pour les vérifications @PreAuthorize par bitset
+            AuthorityIndex.registerAll(existingPermissionsMap.keySet());
         };
     }
 
@@ -0,0 +1,74 @@
+package com.hgs.patient.siags_backend.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.time.Duration;
+
+/**
+ * Cache des rapports de gestion, un cache par domaine : chaque écriture sur les patients, les admissions
+ * ou les consultations vide le cache correspondant (@CacheEvict sur les services métier).
+ * <p>
+ * Le gestionnaire est transactionnel : une éviction demandée dans une transaction n'a lieu qu'après
+ * sa validation, de sorte qu'une lecture concurrente ne peut pas remettre en cache l'état d'avant
+ * l'écriture puis le conserver après. La durée de vie borne l'obsolescence en cas d'écriture
+ * directe en base.
+ */
+@Configuration
+@EnableCaching
+public class ReportCacheConfig {
+
+    public static final String PATIENT_REPORTS = "reports.patients";
+    public static final String ADMISSION_REPORTS = "reports.admissions";
+    public static final String CONSULTATION_REPORTS = "reports.consultations";
+
+    public static final String REPORT_KEY_GENERATOR = "reportKeyGenerator";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${hgs.siags.reports.cache.maxSize:500}") long maxSize,
+                                     @Value("${hgs.siags.reports.cache.ttlSeconds:60}") long ttlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PATIENT_REPORTS, ADMISSION_REPORTS, CONSULTATION_REPORTS);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()); // hit/miss exposés par l'actuator (cache.gets, cache.evictions)
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * Clé = nom du rapport + paramètres : plusieurs rapports sans paramètre partagent le même cache.
+     */
+    @Bean(name = REPORT_KEY_GENERATOR)
+    public KeyGenerator reportKeyGenerator() {
+        return (target, method, params) -> {
+            Object[] elements = new Object[params.length + 1];
+            elements[0] = method.getName();
+            System.arraycopy(params, 0, elements, 1, params.length);
+            return new SimpleKey(elements);
+        };
+    }
+
+    /**
+     * ETag calculé sur le corps des réponses GET des rapports : un client qui renvoie If-None-Match
+     * reçoit 304 sans corps. Les exports en flux doivent appeler
+     * {@link ShallowEtagHeaderFilter#disableContentCaching} pour ne pas être mis en mémoire.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> reportEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/reports/*");
+        registration.setName("reportEtagFilter");
+        return registration;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hgs.patient.siags_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dédié aux tâches de rapport asynchrones (voir ReportJobService) : peu de threads, chacun occupant
+ * une connexion à la base le temps d'un rapport, pour ne pas priver les requêtes interactives du pool JDBC.
+ * Au-delà de la file d'attente bornée, les nouvelles demandes sont refusées.
+ */
+@Configuration
+public class ReportJobExecutorConfig {
+
+    @Bean(name = "reportJobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService reportJobExecutor(MeterRegistry meterRegistry,
+                                             @Value("${hgs.siags.reports.jobs.workers:2}") int workers,
+                                             @Value("${hgs.siags.reports.jobs.queueCapacity:50}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "report-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        Counter rejected = Counter.builder("siags.reports.jobs.rejected")
+                .description("Tâches de rapport refusées faute de place dans la file")
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("File des tâches de rapport pleine (" + queueCapacity + ")");
+                });
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "reportJobs");
+    }
+}
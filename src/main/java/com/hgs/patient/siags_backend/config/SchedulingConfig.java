@@ -0,0 +1,9 @@
+package com.hgs.patient.siags_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration // Active les tâches planifiées (@Scheduled), ex : purge des jetons de rafraîchissement expirés
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,40 @@
+package com.hgs.patient.siags_backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Ajustements de schéma que spring.jpa.hibernate.ddl-auto=update n'applique pas à une table existante :
+ * il ajoute colonnes et index, mais ne relâche jamais une contrainte.
+ * Chaque ajustement vérifie d'abord l'état du schéma, il est donc sans effet une fois appliqué.
+ */
+@Configuration
+public class SchemaUpgradeConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaUpgradeConfig.class);
+
+    @Bean
+    public CommandLineRunner upgradeSchema(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            // Journal d'audit : user_id nul pour les actions des traitements système (voir AuditActor.runAs)
+            if (isNotNullable(jdbcTemplate, "audit_logs", "user_id")) {
+                jdbcTemplate.execute("ALTER TABLE audit_logs MODIFY user_id BIGINT NULL");
+                logger.info("Colonne audit_logs.user_id rendue facultative.");
+            }
+        };
+    }
+
+    private static boolean isNotNullable(JdbcTemplate jdbcTemplate, String table, String column) {
+        List<String> nullable = jdbcTemplate.queryForList(
+                "SELECT IS_NULLABLE FROM information_schema.COLUMNS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table, column);
+        return !nullable.isEmpty() && "NO".equals(nullable.get(0));
+    }
+}
@@ -0,0 +1,49 @@
+package com.hgs.patient.siags_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dédié à la vérification des mots de passe (BCrypt) lors de la connexion.
+ * Une rafale de connexions ne peut ainsi occuper que ce pool et non les threads Tomcat :
+ * au-delà de la file d'attente bornée, les demandes sont rejetées immédiatement.
+ */
+@Configuration
+public class SigninExecutorConfig {
+
+    @Bean(name = "signinExecutor")
+    public ExecutorService signinExecutor(MeterRegistry meterRegistry,
+                                          @Value("${hgs.siags.signin.poolSize:0}") int poolSize,
+                                          @Value("${hgs.siags.signin.queueCapacity:64}") int queueCapacity) {
+        // 0 : un thread par cœur, BCrypt étant purement CPU
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "signin-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        Counter rejected = Counter.builder("siags.signin.rejected")
+                .description("Connexions refusées faute de place dans la file du pool de connexion")
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, (task, pool) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("File du pool de connexion pleine (" + queueCapacity + ")");
+                });
+        // Taille de la file, threads actifs, tâches terminées et durée d'exécution via l'actuator
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "signin");
+    }
+}
@@ -1,12 +1,15 @@
 package com.hgs.patient.siags_backend.config;
 
+import com.hgs.patient.siags_backend.security.access.IndexedMethodSecurityExpressionHandler;
 import com.hgs.patient.siags_backend.security.jwt.AuthEntryPointJwt;
 import com.hgs.patient.siags_backend.security.jwt.AuthTokenFilter;
 import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
@@ -36,6 +39,17 @@ public class WebSecurityConfig {
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    // Coût BCrypt (log2 des itérations). Les hachages d'un coût inférieur sont ré-hachés à la connexion suivante.
+    @Value("${hgs.siags.bcryptStrength:10}")
+    private int bcryptStrength;
+
+    // Vérifications hasAuthority/hasRole des @PreAuthorize par bitset (voir AuthorityIndex).
+    // Méthode statique : le bean doit exister avant l'initialisation de l'infrastructure de sécurité des méthodes.
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler() {
+        return new IndexedMethodSecurityExpressionHandler();
+    }
+
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
@@ -43,7 +57,7 @@ public class WebSecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
     @Bean
@@ -51,6 +65,7 @@ public class WebSecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService); // Ré-hachage transparent si le coût augmente
         return authProvider;
     }
 
@@ -97,4 +97,11 @@ public class AdminUserController {
         userService.deleteUser(id);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/{id}/revoke-tokens")
+    @PreAuthorize("hasAuthority('USER_WRITE')")
+    public ResponseEntity<HttpStatus> revokeTokens(@PathVariable Long id) {
+        userService.revokeTokens(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
@@ -1,54 +1,75 @@
 package com.hgs.patient.siags_backend.controller;
 
-import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
-import com.hgs.patient.siags_backend.model.AuditLog;
-import com.hgs.patient.siags_backend.repository.AuditLogRepository;
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.dto.AuditLogPageDTO;
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import com.hgs.patient.siags_backend.service.audit.AuditExportFormat;
+import com.hgs.patient.siags_backend.service.audit.AuditLogExporter;
+import com.hgs.patient.siags_backend.service.audit.AuditLogQueryService;
+import com.hgs.patient.siags_backend.util.AsyncRequestTimeout;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Contrôleur REST pour la gestion des journaux d'audit.
  * Il permet aux utilisateurs autorisés (administrateurs) de consulter l'historique des actions.
+ * Les résultats sont paginés par curseur, du plus récent au plus ancien.
  */
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/audit-logs")
 public class AuditLogController {
 
-    private final AuditLogRepository auditLogRepository;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
-    @Autowired
-    public AuditLogController(AuditLogRepository auditLogRepository) {
-        this.auditLogRepository = auditLogRepository;
-    }
+    private final AuditLogQueryService auditLogQueryService;
+    private final AuditLogExporter auditLogExporter;
+
+    @Value("${hgs.siags.audit.exportTimeoutMs:1800000}")
+    private long exportTimeoutMs;
 
-    private AuditLogResponseDTO mapToDTO(AuditLog log) {
-        AuditLogResponseDTO dto = new AuditLogResponseDTO();
-        dto.setId(log.getId());
-        dto.setUsername(log.getUser().getUsername());
-        dto.setAction(log.getAction());
-        dto.setResource(log.getResource());
-        dto.setResourceId(log.getResourceId());
-        dto.setDetails(log.getDetails());
-        dto.setTimestamp(log.getTimestamp());
-        return dto;
+    @Autowired
+    public AuditLogController(AuditLogQueryService auditLogQueryService, AuditLogExporter auditLogExporter) {
+        this.auditLogQueryService = auditLogQueryService;
+        this.auditLogExporter = auditLogExporter;
     }
 
     /**
-     * Récupère tous les journaux d'audit.
+     * Recherche dans les journaux d'audit.
+     *
+     * @param cursor   Curseur {@code nextCursor} de la page précédente (absent pour la première page).
+     * @param size     Taille de page (50 par défaut, 500 au maximum).
+     * @param from     Début de l'intervalle (inclus).
+     * @param to       Fin de l'intervalle (exclue).
+     * @param archived Poursuivre la recherche dans les segments archivés une fois la table épuisée.
      */
     @GetMapping
     @PreAuthorize("hasAuthority('AUDIT_READ')")
-    public ResponseEntity<List<AuditLogResponseDTO>> getAllAuditLogs() {
-        List<AuditLogResponseDTO> logs = auditLogRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(logs);
+    public ResponseEntity<AuditLogPageDTO> getAllAuditLogs(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "false") boolean archived,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) AuditAction action,
+            @RequestParam(required = false) AuditResource resource,
+            @RequestParam(required = false) Long resourceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        AuditLogFilter filter = new AuditLogFilter(userId, action, resource, resourceId, from, to);
+        return ResponseEntity.ok(auditLogQueryService.search(filter, cursor, size, archived));
     }
 
     /**
@@ -58,10 +79,46 @@ public class AuditLogController {
      */
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAuthority('AUDIT_READ')")
-    public ResponseEntity<List<AuditLogResponseDTO>> getAuditLogsByUser(@PathVariable Long userId) {
-        List<AuditLogResponseDTO> logs = auditLogRepository.findByUserId(userId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(logs);
+    public ResponseEntity<AuditLogPageDTO> getAuditLogsByUser(@PathVariable Long userId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer size) {
+        AuditLogFilter filter = new AuditLogFilter(userId, null, null, null, null, null);
+        return ResponseEntity.ok(auditLogQueryService.search(filter, cursor, size));
+    }
+
+    /**
+     * Exporte en flux l'ensemble des journaux correspondant aux critères, du plus ancien au plus récent.
+     * Les critères sont ceux de la recherche paginée.
+     *
+     * @param format {@code ndjson} (par défaut) ou {@code csv}.
+     * @param gzip   Compresser le fichier téléchargé.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('AUDIT_READ')")
+    public ResponseEntity<StreamingResponseBody> exportAuditLogs(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) AuditAction action,
+            @RequestParam(required = false) AuditResource resource,
+            @RequestParam(required = false) Long resourceId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletRequest request) {
+        AuditExportFormat exportFormat = AuditExportFormat.fromParameter(format);
+        AuditLogFilter filter = new AuditLogFilter(userId, action, resource, resourceId, from, to);
+        StreamingResponseBody body = auditLogExporter.export(filter, exportFormat, gzip);
+        // Un export complet peut durer bien plus que le délai asynchrone par défaut
+        AsyncRequestTimeout.set(request, exportTimeoutMs);
+
+        String filename = "audit-logs-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + exportFormat.getExtension()
+                + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
 }
@@ -2,29 +2,43 @@ package com.hgs.patient.siags_backend.controller;
 
 import com.hgs.patient.siags_backend.dto.JwtResponse;
 import com.hgs.patient.siags_backend.dto.LoginRequest;
+import com.hgs.patient.siags_backend.dto.MessageResponse;
 import com.hgs.patient.siags_backend.dto.SignupRequest;
+import com.hgs.patient.siags_backend.dto.TokenRefreshRequest;
+import com.hgs.patient.siags_backend.exception.ServiceOverloadedException;
 import com.hgs.patient.siags_backend.model.ERole;
 import com.hgs.patient.siags_backend.model.Role;
 import com.hgs.patient.siags_backend.model.User;
 import com.hgs.patient.siags_backend.repository.RoleRepository;
 import com.hgs.patient.siags_backend.repository.UserRepository;
 import com.hgs.patient.siags_backend.security.jwt.JwtUtils;
+import com.hgs.patient.siags_backend.security.jwt.JwtVerifier;
+import com.hgs.patient.siags_backend.security.jwt.TokenRevocationRegistry;
 import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
+import com.hgs.patient.siags_backend.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 
@@ -49,16 +63,47 @@ public class AuthController {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    RefreshTokenService refreshTokenService;
+
+    @Autowired
+    JwtVerifier jwtVerifier;
+
+    @Autowired
+    TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Autowired
+    @Qualifier("signinExecutor")
+    ExecutorService signinExecutor; // Pool borné dédié à la vérification BCrypt
+
     @PostMapping("/signin") // Endpoint pour la connexion
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        // Le thread Tomcat est libéré pendant la vérification du mot de passe ;
+        // si la file du pool est pleine, on refuse tout de suite plutôt que d'attendre.
+        try {
+            return CompletableFuture.supplyAsync(() -> signin(loginRequest), signinExecutor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceOverloadedException("Trop de connexions simultanées. Veuillez réessayer dans un instant.", 1);
+        }
+    }
 
-// 1. Authentifier l'utilisateur via Spring Security
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+    private ResponseEntity<?> signin(LoginRequest loginRequest) {
 
+// 1. Authentifier l'utilisateur via Spring Security (les échecs alimentent le verrouillage de compte)
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        } catch (BadCredentialsException e) {
+            userDetailsService.increaseFailedAttempts(loginRequest.getUsername());
+            throw e;
+        }
+        userDetailsService.resetFailedAttempts(loginRequest.getUsername());
 
-// 2. Mettre à jour le contexte de sécurité
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+// 2. Pas de mise à jour du SecurityContextHolder : on est sur un thread du pool, et l'API est sans état
 
 
 // 3. Générer le jeton JWT
@@ -72,13 +117,36 @@ public class AuthController {
                 .collect(Collectors.toList());
 
 
-// 5. Renvoyer la réponse JWT
-        return ResponseEntity.ok(new JwtResponse(jwt,
+// 5. Renvoyer la réponse JWT, avec le jeton de rafraîchissement d'une nouvelle famille
+        JwtResponse response = new JwtResponse(jwt,
                 userDetails.getId(),
                 userDetails.getUsername(),
                 userDetails.getEmail(),
-                roles));
+                roles);
+        response.setRefreshToken(refreshTokenService.createRefreshToken(userDetails.getId()));
+        return ResponseEntity.ok(response);
+
+    }
 
+    @PostMapping("/refresh") // Nouveau jeton d'accès sans ré-authentification (pas de BCrypt)
+    public ResponseEntity<JwtResponse> refreshToken(@Valid @RequestBody TokenRefreshRequest request) {
+        return ResponseEntity.ok(refreshTokenService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout") // Révoque le jeton d'accès présenté et, s'il est fourni, le jeton de rafraîchissement
+    public ResponseEntity<MessageResponse> logout(HttpServletRequest request,
+                                                  @RequestBody(required = false) TokenRefreshRequest refreshRequest) {
+        String headerAuth = request.getHeader("Authorization");
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            Claims claims = jwtVerifier.verify(headerAuth.substring(7));
+            if (claims != null && claims.getExpiration() != null) {
+                tokenRevocationRegistry.revoke(claims.getId(), claims.getExpiration().toInstant());
+            }
+        }
+        if (refreshRequest != null && StringUtils.hasText(refreshRequest.getRefreshToken())) {
+            refreshTokenService.revokeToken(refreshRequest.getRefreshToken());
+        }
+        return ResponseEntity.ok(new MessageResponse("Déconnexion réussie."));
     }
 
     @GetMapping("/roles")
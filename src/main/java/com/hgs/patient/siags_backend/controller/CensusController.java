@@ -0,0 +1,72 @@
+package com.hgs.patient.siags_backend.controller;
+
+import com.hgs.patient.siags_backend.dto.DepartmentCensusDTO;
+import com.hgs.patient.siags_backend.service.census.BedOccupancy;
+import com.hgs.patient.siags_backend.service.census.HospitalCensus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Recensement en temps réel des patients hospitalisés et de l'occupation des lits.
+ * Les réponses sont servies depuis l'index en mémoire (HospitalCensus), sans requête en base.
+ */
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, maxAge = 3600)
+@RestController
+@RequestMapping("/api/census")
+public class CensusController {
+
+    private final HospitalCensus hospitalCensus;
+
+    @Autowired
+    public CensusController(HospitalCensus hospitalCensus) {
+        this.hospitalCensus = hospitalCensus;
+    }
+
+    /**
+     * Nombre de patients admis et de lits occupés par département.
+     * GET /api/census
+     */
+    @GetMapping
+    @PreAuthorize("hasAuthority('ADMISSION_READ')")
+    public ResponseEntity<List<DepartmentCensusDTO>> getSummary() {
+        return ResponseEntity.ok(hospitalCensus.summary());
+    }
+
+    /**
+     * Admissions en cours d'un département, par chambre et lit.
+     * GET /api/census/departments/{departmentId}
+     */
+    @GetMapping("/departments/{departmentId}")
+    @PreAuthorize("hasAuthority('ADMISSION_READ')")
+    public ResponseEntity<DepartmentCensusDTO> getDepartment(@PathVariable Long departmentId) {
+        return ResponseEntity.ok(hospitalCensus.department(departmentId));
+    }
+
+    /**
+     * Occupants d'une chambre.
+     * GET /api/census/departments/{departmentId}/rooms/{roomNumber}
+     */
+    @GetMapping("/departments/{departmentId}/rooms/{roomNumber}")
+    @PreAuthorize("hasAuthority('ADMISSION_READ')")
+    public ResponseEntity<List<BedOccupancy>> getRoom(@PathVariable Long departmentId, @PathVariable String roomNumber) {
+        return ResponseEntity.ok(hospitalCensus.room(departmentId, roomNumber));
+    }
+
+    /**
+     * Occupant d'un lit : 200 avec l'admission si le lit est occupé, 204 s'il est libre.
+     * GET /api/census/departments/{departmentId}/rooms/{roomNumber}/beds/{bedNumber}
+     */
+    @GetMapping("/departments/{departmentId}/rooms/{roomNumber}/beds/{bedNumber}")
+    @PreAuthorize("hasAuthority('ADMISSION_READ')")
+    public ResponseEntity<BedOccupancy> getBed(@PathVariable Long departmentId,
+                                               @PathVariable String roomNumber,
+                                               @PathVariable String bedNumber) {
+        return hospitalCensus.bed(departmentId, roomNumber, bedNumber)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+}
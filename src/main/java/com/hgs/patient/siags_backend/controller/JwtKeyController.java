@@ -0,0 +1,30 @@
+package com.hgs.patient.siags_backend.controller;
+
+import com.hgs.patient.siags_backend.dto.MessageResponse;
+import com.hgs.patient.siags_backend.security.jwt.JwtKeyStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/jwt-keys")
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class JwtKeyController {
+
+    private final JwtKeyStore jwtKeyStore;
+
+    @Autowired
+    public JwtKeyController(JwtKeyStore jwtKeyStore) {
+        this.jwtKeyStore = jwtKeyStore;
+    }
+
+    // Les jetons déjà émis restent valides : l'ancienne clé est conservée pour la vérification
+    @PostMapping("/rotate")
+    public ResponseEntity<MessageResponse> rotate() {
+        String kid = jwtKeyStore.rotate();
+        return ResponseEntity.ok(new MessageResponse("Nouvelle clé de signature active : " + kid));
+    }
+}
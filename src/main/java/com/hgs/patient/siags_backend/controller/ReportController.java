@@ -1,15 +1,30 @@
 package com.hgs.patient.siags_backend.controller;
 
 import com.hgs.patient.siags_backend.dto.*;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import com.hgs.patient.siags_backend.service.ReportDashboardService;
+import com.hgs.patient.siags_backend.service.ReportRollupService;
 import com.hgs.patient.siags_backend.service.ReportService;
+import com.hgs.patient.siags_backend.service.UniquePatientSketchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.Year;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, maxAge = 3600)
 @RestController
@@ -17,10 +32,49 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final ReportRollupService reportRollupService;
+    private final ReportDashboardService reportDashboardService;
+    private final UniquePatientSketchService uniquePatientSketchService;
+    // Réponses propres à l'utilisateur authentifié : jamais dans un cache partagé
+    private final CacheControl cacheControl;
 
     @Autowired
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, ReportRollupService reportRollupService,
+                            ReportDashboardService reportDashboardService,
+                            UniquePatientSketchService uniquePatientSketchService,
+                            @Value("${hgs.siags.reports.cache.clientMaxAgeSeconds:0}") long clientMaxAgeSeconds) {
         this.reportService = reportService;
+        this.reportRollupService = reportRollupService;
+        this.reportDashboardService = reportDashboardService;
+        this.uniquePatientSketchService = uniquePatientSketchService;
+        this.cacheControl = CacheControl.maxAge(clientMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate().mustRevalidate();
+    }
+
+    // Cache-Control ; l'ETag est ajouté par le filtre ShallowEtagHeaderFilter (voir ReportCacheConfig)
+    private <T> ResponseEntity<T> cached(T body) {
+        return ResponseEntity.ok().cacheControl(cacheControl).body(body);
+    }
+
+    // --- Tableau de bord ---
+
+    /**
+     * Tous les rapports de l'écran d'accueil en un seul appel, calculés en parallèle.
+     * Seules les sections autorisées par les permissions de l'utilisateur sont renseignées ;
+     * une section trop lente est omise et listée dans unavailableSections (réponse partielle, non mise en cache).
+     * GET /api/reports/dashboard?year=YYYY
+     */
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasAnyAuthority('REPORT_READ_PATIENT', 'REPORT_READ_ADMISSION', 'REPORT_READ_CONSULTATION')")
+    public ResponseEntity<DashboardDTO> getDashboard(@RequestParam(required = false) Integer year,
+                                                     Authentication authentication) {
+        Set<String> authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+        DashboardDTO dashboard = reportDashboardService.build(year != null ? year : Year.now().getValue(), authorities);
+        if (dashboard.isPartial()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(dashboard);
+        }
+        return cached(dashboard);
     }
 
     // --- Rapports sur les patients ---
@@ -34,7 +88,7 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_PATIENT')")
     public ResponseEntity<Long> getTotalPatientsCount() {
         Long count = reportService.getTotalPatientsCount();
-        return ResponseEntity.ok(count);
+        return cached(count);
     }
 
     /**
@@ -46,7 +100,23 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_PATIENT')")
     public ResponseEntity<List<PatientGenderDistributionDTO>> getPatientGenderDistribution() {
         List<PatientGenderDistributionDTO> distribution = reportService.getPatientGenderDistribution();
-        return ResponseEntity.ok(distribution);
+        return cached(distribution);
+    }
+
+    /**
+     * Nombre estimé de patients distincts vus (admis ou consultés) entre start (inclus) et end (exclu),
+     * pour tout l'hôpital, par département (admissions) ou par médecin (consultations).
+     * Estimation HyperLogLog : erreur relative type d'environ 1,6 %, indiquée dans chaque résultat.
+     * GET /api/reports/patients/unique?start=YYYY-MM-DD&end=YYYY-MM-DD&dimension=all|department|doctor
+     */
+    @GetMapping("/patients/unique")
+    @PreAuthorize("hasAuthority('REPORT_READ_PATIENT')")
+    public ResponseEntity<List<UniquePatientsDTO>> getUniquePatients(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "all") String dimension) {
+        List<UniquePatientsDTO> counts = reportService.getUniquePatients(start, end, ReportSketchMetric.fromParameter(dimension));
+        return cached(counts);
     }
 
     // --- Rapports sur les admissions ---
@@ -60,7 +130,7 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
     public ResponseEntity<Long> getTotalAdmissionsCount() {
         Long count = reportService.getTotalAdmissionsCount();
-        return ResponseEntity.ok(count);
+        return cached(count);
     }
 
     /**
@@ -74,7 +144,7 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         Long count = reportService.getAdmissionsCountBetweenDates(startDate, endDate);
-        return ResponseEntity.ok(count);
+        return cached(count);
     }
 
     /**
@@ -86,7 +156,7 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
     public ResponseEntity<List<AdmissionCountByDepartmentDTO>> getAdmissionCountByDepartment() {
         List<AdmissionCountByDepartmentDTO> counts = reportService.getAdmissionCountByDepartment();
-        return ResponseEntity.ok(counts);
+        return cached(counts);
     }
 
     /**
@@ -99,7 +169,38 @@ public class ReportController {
     public ResponseEntity<List<MonthlyAdmissionCountDTO>> getMonthlyAdmissionCountForYear(
             @RequestParam int year) {
         List<MonthlyAdmissionCountDTO> counts = reportService.getMonthlyAdmissionCountForYear(year);
-        return ResponseEntity.ok(counts);
+        return cached(counts);
+    }
+
+    /**
+     * Histogramme des admissions sur [start, end) par jour, semaine, mois ou année ; les périodes vides valent 0.
+     * Accessible par les ADMINS et RECEPTIONNISTES.
+     * GET /api/reports/admissions/histogram?start=YYYY-MM-DD&end=YYYY-MM-DD&granularity=day|week|month|year
+     */
+    @GetMapping("/admissions/histogram")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<List<PeriodCountDTO>> getAdmissionHistogram(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "month") String granularity) {
+        List<PeriodCountDTO> histogram = reportService.getAdmissionHistogram(start, end, ReportGranularity.fromParameter(granularity));
+        return cached(histogram);
+    }
+
+    /**
+     * Durées de séjour (moyenne, médiane, 90e percentile, histogramme) des admissions sorties entre
+     * start (inclus) et end (exclu), par département et au total.
+     * Accessible par les ADMINS et RECEPTIONNISTES.
+     * GET /api/reports/admissions/length-of-stay?start=YYYY-MM-DD&end=YYYY-MM-DD[&departmentId=]
+     */
+    @GetMapping("/admissions/length-of-stay")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<LengthOfStayReportDTO> getLengthOfStay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Long departmentId) {
+        LengthOfStayReportDTO report = reportService.getLengthOfStay(start, end, departmentId);
+        return cached(report);
     }
 
     // --- Rapports sur les consultations ---
@@ -113,7 +214,7 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
     public ResponseEntity<Long> getTotalConsultationsCount() {
         Long count = reportService.getTotalConsultationsCount();
-        return ResponseEntity.ok(count);
+        return cached(count);
     }
 
     /**
@@ -127,7 +228,7 @@ public class ReportController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         Long count = reportService.getConsultationsCountBetweenDates(startDate, endDate);
-        return ResponseEntity.ok(count);
+        return cached(count);
     }
 
     /**
@@ -139,18 +240,59 @@ public class ReportController {
     @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
     public ResponseEntity<List<ConsultationCountByDoctorDTO>> getConsultationCountByDoctor() {
         List<ConsultationCountByDoctorDTO> counts = reportService.getConsultationCountByDoctor();
-        return ResponseEntity.ok(counts);
+        return cached(counts);
     }
 
     /**
-     * Récupère la fréquence des diagnostics.
+     * Récupère les diagnostics les plus fréquents, éventuellement sur [start, end) ; les saisies qui ne
+     * diffèrent que par la casse, les accents ou les espaces comptent pour le même diagnostic.
      * Accessible par les ADMINS et MEDECINS.
-     * GET /api/reports/consultations/diagnosis-frequency
+     * GET /api/reports/consultations/diagnosis-frequency?start=YYYY-MM-DD&end=YYYY-MM-DD&limit=20
      */
     @GetMapping("/consultations/diagnosis-frequency")
     @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
-    public ResponseEntity<List<DiagnosisFrequencyDTO>> getDiagnosisFrequency() {
-        List<DiagnosisFrequencyDTO> frequency = reportService.getDiagnosisFrequency();
-        return ResponseEntity.ok(frequency);
+    public ResponseEntity<List<DiagnosisFrequencyDTO>> getDiagnosisFrequency(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<DiagnosisFrequencyDTO> frequency = reportService.getDiagnosisFrequency(start, end, limit);
+        return cached(frequency);
+    }
+
+    /**
+     * Histogramme des consultations sur [start, end) par jour, semaine, mois ou année ; les périodes vides valent 0.
+     * Accessible par les ADMINS, MEDECINS et RECEPTIONNISTES.
+     * GET /api/reports/consultations/histogram?start=YYYY-MM-DD&end=YYYY-MM-DD&granularity=day|week|month|year
+     */
+    @GetMapping("/consultations/histogram")
+    @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
+    public ResponseEntity<List<PeriodCountDTO>> getConsultationHistogram(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "month") String granularity) {
+        List<PeriodCountDTO> histogram = reportService.getConsultationHistogram(start, end, ReportGranularity.fromParameter(granularity));
+        return cached(histogram);
+    }
+
+    // --- Maintenance des agrégats ---
+
+    /**
+     * Recalcule les agrégats journaliers et les esquisses de patients distincts à partir des tables de base
+     * (reprise d'historique, import direct en base, admission ou consultation modifiée ou supprimée).
+     * Sans paramètre, tout l'historique est recalculé.
+     * Accessible uniquement par les ADMINS.
+     * POST /api/reports/rollups/rebuild?from=YYYY-MM-DD&to=YYYY-MM-DD
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<MessageResponse> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        int rows = reportRollupService.rebuild(from, to);
+        int sketches = uniquePatientSketchService.rebuild(from, to);
+        return ResponseEntity.ok(new MessageResponse(rows + " ligne(s) d'agrégat et " + sketches + " esquisse(s) de patients distincts recalculée(s)."));
     }
-}
\ No newline at end of file
+}
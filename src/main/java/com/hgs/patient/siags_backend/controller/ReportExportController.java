@@ -0,0 +1,263 @@
+package com.hgs.patient.siags_backend.controller;
+
+import com.hgs.patient.siags_backend.dto.*;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import com.hgs.patient.siags_backend.service.ReportService;
+import com.hgs.patient.siags_backend.service.export.ReportExportFormat;
+import com.hgs.patient.siags_backend.service.export.ReportExportService;
+import com.hgs.patient.siags_backend.util.AsyncRequestTimeout;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Téléchargement des rapports de ReportController en CSV ou XLSX (mêmes paramètres, mêmes permissions),
+ * ainsi que des listes d'admissions et de consultations sur une période.
+ * Les colonnes portent les noms des propriétés JSON des rapports correspondants.
+ */
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, maxAge = 3600)
+@RestController
+@RequestMapping("/api/reports/export")
+public class ReportExportController {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ReportService reportService;
+    private final ReportExportService reportExportService;
+
+    @Value("${hgs.siags.reports.export.timeoutMs:1800000}")
+    private long exportTimeoutMs;
+
+    @Autowired
+    public ReportExportController(ReportService reportService, ReportExportService reportExportService) {
+        this.reportService = reportService;
+        this.reportExportService = reportExportService;
+    }
+
+    // --- Rapports sur les patients ---
+
+    /**
+     * GET /api/reports/export/patients/gender-distribution?format=csv|xlsx
+     */
+    @GetMapping("/patients/gender-distribution")
+    @PreAuthorize("hasAuthority('REPORT_READ_PATIENT')")
+    public ResponseEntity<StreamingResponseBody> exportPatientGenderDistribution(
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "patients-par-genre", reportExportService.table(exportFormat, "Patients par genre",
+                new String[]{"gender", "count"},
+                reportService.getPatientGenderDistribution(),
+                row -> new Object[]{row.getGender(), row.getCount()}));
+    }
+
+    /**
+     * GET /api/reports/export/patients/unique?start=YYYY-MM-DD&end=YYYY-MM-DD&dimension=all|department|doctor&format=csv|xlsx
+     */
+    @GetMapping("/patients/unique")
+    @PreAuthorize("hasAuthority('REPORT_READ_PATIENT')")
+    public ResponseEntity<StreamingResponseBody> exportUniquePatients(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "all") String dimension,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "patients-distincts", reportExportService.table(exportFormat, "Patients distincts",
+                new String[]{"dimensionId", "label", "estimatedPatients", "relativeStandardError"},
+                reportService.getUniquePatients(start, end, ReportSketchMetric.fromParameter(dimension)),
+                row -> new Object[]{row.getDimensionId(), row.getLabel(), row.getEstimatedPatients(), row.getRelativeStandardError()}));
+    }
+
+    // --- Rapports et liste des admissions ---
+
+    /**
+     * Admissions dont la date d'admission est dans [start, end), par ordre chronologique.
+     * GET /api/reports/export/admissions?start=YYYY-MM-DD&end=YYYY-MM-DD&format=csv|xlsx
+     */
+    @GetMapping("/admissions")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION') and hasAuthority('ADMISSION_READ')")
+    public ResponseEntity<StreamingResponseBody> exportAdmissions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "admissions", reportExportService.admissions(exportFormat, start, end));
+    }
+
+    /**
+     * GET /api/reports/export/admissions/count-by-department?format=csv|xlsx
+     */
+    @GetMapping("/admissions/count-by-department")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<StreamingResponseBody> exportAdmissionCountByDepartment(
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "admissions-par-departement", reportExportService.table(exportFormat, "Admissions par département",
+                new String[]{"departmentName", "admissionCount"},
+                reportService.getAdmissionCountByDepartment(),
+                row -> new Object[]{row.getDepartmentName(), row.getAdmissionCount()}));
+    }
+
+    /**
+     * GET /api/reports/export/admissions/monthly-count?year=YYYY&format=csv|xlsx
+     */
+    @GetMapping("/admissions/monthly-count")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<StreamingResponseBody> exportMonthlyAdmissionCount(
+            @RequestParam int year,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "admissions-mensuelles-" + year, reportExportService.table(exportFormat, "Admissions " + year,
+                new String[]{"month", "count"},
+                reportService.getMonthlyAdmissionCountForYear(year),
+                row -> new Object[]{row.getMonth(), row.getCount()}));
+    }
+
+    /**
+     * GET /api/reports/export/admissions/histogram?start=YYYY-MM-DD&end=YYYY-MM-DD&granularity=day|week|month|year&format=csv|xlsx
+     */
+    @GetMapping("/admissions/histogram")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<StreamingResponseBody> exportAdmissionHistogram(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        List<PeriodCountDTO> histogram = reportService.getAdmissionHistogram(start, end, ReportGranularity.fromParameter(granularity));
+        return download(request, exportFormat, "histogramme-admissions", histogram(exportFormat, "Admissions", histogram));
+    }
+
+    /**
+     * Une ligne par département puis le total (departmentId vide), suivies des effectifs de chaque
+     * intervalle de l'histogramme des durées.
+     * GET /api/reports/export/admissions/length-of-stay?start=YYYY-MM-DD&end=YYYY-MM-DD[&departmentId=]&format=csv|xlsx
+     */
+    @GetMapping("/admissions/length-of-stay")
+    @PreAuthorize("hasAuthority('REPORT_READ_ADMISSION')")
+    public ResponseEntity<StreamingResponseBody> exportLengthOfStay(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        LengthOfStayReportDTO report = reportService.getLengthOfStay(start, end, departmentId);
+
+        List<String> columns = new ArrayList<>(List.of("departmentId", "departmentName", "stays", "meanDays", "medianDays", "p90Days"));
+        for (LengthOfStayBucketDTO bucket : report.getOverall().getHistogram()) {
+            columns.add(bucket.getMaxDays() == null ? bucket.getMinDays() + "+ j"
+                    : bucket.getMaxDays() - 1 == bucket.getMinDays() ? bucket.getMinDays() + " j"
+                    : bucket.getMinDays() + "-" + (bucket.getMaxDays() - 1) + " j");
+        }
+        List<LengthOfStayDTO> rows = new ArrayList<>(report.getDepartments());
+        if (departmentId == null) {
+            rows.add(report.getOverall());
+        }
+        return download(request, exportFormat, "durees-de-sejour", reportExportService.table(exportFormat, "Durées de séjour",
+                columns.toArray(new String[0]), rows,
+                row -> {
+                    List<Object> values = new ArrayList<>(Arrays.asList(row.getDepartmentId(), row.getDepartmentName(),
+                            row.getStays(), row.getMeanDays(), row.getMedianDays(), row.getP90Days()));
+                    row.getHistogram().forEach(bucket -> values.add(bucket.getCount()));
+                    return values.toArray();
+                }));
+    }
+
+    // --- Rapports et liste des consultations ---
+
+    /**
+     * Consultations dont la date est dans [start, end), par ordre chronologique.
+     * GET /api/reports/export/consultations?start=YYYY-MM-DD&end=YYYY-MM-DD&format=csv|xlsx
+     */
+    @GetMapping("/consultations")
+    @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION') and hasAuthority('CONSULTATION_READ')")
+    public ResponseEntity<StreamingResponseBody> exportConsultations(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "consultations", reportExportService.consultations(exportFormat, start, end));
+    }
+
+    /**
+     * GET /api/reports/export/consultations/count-by-doctor?format=csv|xlsx
+     */
+    @GetMapping("/consultations/count-by-doctor")
+    @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
+    public ResponseEntity<StreamingResponseBody> exportConsultationCountByDoctor(
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "consultations-par-medecin", reportExportService.table(exportFormat, "Consultations par médecin",
+                new String[]{"doctorId", "doctorUsername", "doctorNomComplet", "consultationCount"},
+                reportService.getConsultationCountByDoctor(),
+                row -> new Object[]{row.getDoctorId(), row.getDoctorUsername(), row.getDoctorNomComplet(), row.getConsultationCount()}));
+    }
+
+    /**
+     * GET /api/reports/export/consultations/diagnosis-frequency?start=YYYY-MM-DD&end=YYYY-MM-DD&limit=20&format=csv|xlsx
+     */
+    @GetMapping("/consultations/diagnosis-frequency")
+    @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
+    public ResponseEntity<StreamingResponseBody> exportDiagnosisFrequency(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        return download(request, exportFormat, "frequence-diagnostics", reportExportService.table(exportFormat, "Diagnostics",
+                new String[]{"diagnosis", "count", "errorBound"},
+                reportService.getDiagnosisFrequency(start, end, limit),
+                row -> new Object[]{row.getDiagnosis(), row.getCount(), row.getErrorBound()}));
+    }
+
+    /**
+     * GET /api/reports/export/consultations/histogram?start=YYYY-MM-DD&end=YYYY-MM-DD&granularity=day|week|month|year&format=csv|xlsx
+     */
+    @GetMapping("/consultations/histogram")
+    @PreAuthorize("hasAuthority('REPORT_READ_CONSULTATION')")
+    public ResponseEntity<StreamingResponseBody> exportConsultationHistogram(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(defaultValue = "csv") String format, HttpServletRequest request) {
+        ReportExportFormat exportFormat = ReportExportFormat.fromParameter(format);
+        List<PeriodCountDTO> histogram = reportService.getConsultationHistogram(start, end, ReportGranularity.fromParameter(granularity));
+        return download(request, exportFormat, "histogramme-consultations", histogram(exportFormat, "Consultations", histogram));
+    }
+
+    private StreamingResponseBody histogram(ReportExportFormat format, String sheetName, List<PeriodCountDTO> histogram) {
+        return reportExportService.table(format, sheetName, new String[]{"periodStart", "periodEnd", "count"}, histogram,
+                row -> new Object[]{row.getPeriodStart(), row.getPeriodEnd(), row.getCount()});
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(HttpServletRequest request, ReportExportFormat format,
+                                                           String name, StreamingResponseBody body) {
+        // Corps écrit en flux : le filtre ETag des rapports ne doit pas le mettre en mémoire (voir ReportCacheConfig)
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        // Les listes d'admissions et de consultations peuvent dépasser le délai asynchrone par défaut
+        AsyncRequestTimeout.set(request, exportTimeoutMs);
+        String filename = name + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + "." + format.getExtension();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
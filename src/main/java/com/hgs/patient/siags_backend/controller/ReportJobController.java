@@ -0,0 +1,102 @@
+package com.hgs.patient.siags_backend.controller;
+
+import com.hgs.patient.siags_backend.dto.ReportJobDTO;
+import com.hgs.patient.siags_backend.dto.ReportJobRequest;
+import com.hgs.patient.siags_backend.service.reportjob.ReportJobService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rapports longs (ex : histogramme mensuel sur plusieurs années) calculés en tâche de fond :
+ * soumission, suivi, puis lecture du résultat, au lieu d'une requête synchrone qui dépasserait le délai HTTP.
+ */
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, maxAge = 3600)
+@RestController
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    @Autowired
+    public ReportJobController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    /**
+     * Soumet un rapport ; renvoie 202 avec la tâche (nouvelle, ou identique déjà en cours) et son URL de suivi.
+     * La permission de lecture du rapport demandé est requise.
+     * POST /api/reports/jobs {"type": "admission_histogram", "start": "2020-01-01", "end": "2025-01-01", "granularity": "month"}
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyAuthority('REPORT_READ_PATIENT', 'REPORT_READ_ADMISSION', 'REPORT_READ_CONSULTATION')")
+    public ResponseEntity<ReportJobDTO> submit(@Valid @RequestBody ReportJobRequest request, Authentication authentication) {
+        ReportJobDTO job = reportJobService.submit(request, authentication.getName(), authorities(authentication));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/reports/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    /**
+     * État d'une tâche (PENDING, RUNNING, SUCCEEDED ou FAILED).
+     * GET /api/reports/jobs/{id}
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyAuthority('REPORT_READ_PATIENT', 'REPORT_READ_ADMISSION', 'REPORT_READ_CONSULTATION')")
+    public ResponseEntity<ReportJobDTO> getJob(@PathVariable Long id, Authentication authentication) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(reportJobService.get(id, authorities(authentication)));
+    }
+
+    /**
+     * Résultat JSON d'une tâche terminée, tel que renvoyé par l'endpoint synchrone du même rapport.
+     * Servi tel quel (Content-Encoding: gzip) aux clients qui l'acceptent, décompressé sinon.
+     * GET /api/reports/jobs/{id}/result
+     */
+    @GetMapping("/{id}/result")
+    @PreAuthorize("hasAnyAuthority('REPORT_READ_PATIENT', 'REPORT_READ_ADMISSION', 'REPORT_READ_CONSULTATION')")
+    public ResponseEntity<byte[]> getResult(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            Authentication authentication) {
+        byte[] compressed = reportJobService.getCompressedResult(id, authorities(authentication));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(compressed);
+        }
+        return response.body(gunzip(compressed));
+    }
+
+    private static Set<String> authorities(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+    }
+
+    private static byte[] gunzip(byte[] compressed) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
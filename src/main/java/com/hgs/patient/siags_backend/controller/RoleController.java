@@ -5,11 +5,10 @@ import com.hgs.patient.siags_backend.service.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/admin/roles")
@@ -22,4 +21,9 @@ public class RoleController {
     public ResponseEntity<List<RoleResponseDTO>> getAllRoles() {
         return ResponseEntity.ok(roleService.getAllRoles());
     }
+
+    @PutMapping("/{id}/permissions")
+    public ResponseEntity<RoleResponseDTO> updateRolePermissions(@PathVariable Long id, @RequestBody Set<String> permissions) {
+        return ResponseEntity.ok(roleService.updateRolePermissions(id, permissions));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.hgs.patient.siags_backend.dto;
+
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Critères de recherche dans le journal d'audit. Un critère null est ignoré.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogFilter {
+    private Long userId;
+    private AuditAction action;
+    private AuditResource resource;
+    private Long resourceId;
+    private LocalDateTime from; // Inclus
+    private LocalDateTime to;   // Exclu
+}
@@ -0,0 +1,19 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page du journal d'audit (du plus récent au plus ancien).
+ * Passer {@code nextCursor} en paramètre {@code cursor} pour obtenir la page suivante ; null s'il n'y en a plus.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogPageDTO {
+    private List<AuditLogResponseDTO> items;
+    private String nextCursor;
+}
@@ -2,7 +2,9 @@ package com.hgs.patient.siags_backend.dto;
 
 import com.hgs.patient.siags_backend.model.AuditAction;
 import com.hgs.patient.siags_backend.model.AuditResource;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
@@ -11,13 +13,18 @@ import java.time.LocalDateTime;
  * Utilisé pour exposer les données d'audit de manière sécurisée et structurée.
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor // Utilisé par la projection de AuditLogRepositoryImpl : l'ordre des champs compte
 public class AuditLogResponseDTO {
 
     private Long id;
     private String username;
+    private String actorRoles; // Rôles de l'auteur au moment de l'action
     private AuditAction action;
     private AuditResource resource;
     private Long resourceId;
     private String details;
-    private LocalDateTime timestamp;
+    private LocalDateTime timestamp; // Première occurrence
+    private Integer occurrences; // Nombre d'actions identiques regroupées
+    private LocalDateTime lastSeen;
 }
@@ -0,0 +1,30 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tableau de bord : l'ensemble des rapports de l'écran d'accueil en une seule réponse.
+ * Une section reste null si l'utilisateur n'a pas la permission correspondante ou si sa requête
+ * n'a pas abouti à temps ; dans ce dernier cas son nom figure dans unavailableSections.
+ */
+@Data
+@NoArgsConstructor
+public class DashboardDTO {
+    private Long totalPatients;
+    private List<PatientGenderDistributionDTO> patientsByGender;
+    private Long totalAdmissions;
+    private List<AdmissionCountByDepartmentDTO> admissionsByDepartment;
+    private List<MonthlyAdmissionCountDTO> monthlyAdmissions;
+    private Long totalConsultations;
+    private List<ConsultationCountByDoctorDTO> consultationsByDoctor;
+    private List<DiagnosisFrequencyDTO> diagnosisFrequency;
+    private List<String> unavailableSections = new ArrayList<>();
+
+    public boolean isPartial() {
+        return !unavailableSections.isEmpty();
+    }
+}
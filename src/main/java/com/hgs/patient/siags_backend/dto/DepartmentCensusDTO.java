@@ -0,0 +1,23 @@
+package com.hgs.patient.siags_backend.dto;
+
+import com.hgs.patient.siags_backend.service.census.BedOccupancy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Recensement d'un département : patients actuellement admis et lits occupés.
+ * departmentId est null pour les admissions sans département affecté.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepartmentCensusDTO {
+    private Long departmentId;
+    private String departmentName;
+    private Integer admittedPatients;
+    private Integer occupiedBeds;       // Admissions avec un numéro de lit
+    private List<BedOccupancy> admissions; // Null dans le résumé global
+}
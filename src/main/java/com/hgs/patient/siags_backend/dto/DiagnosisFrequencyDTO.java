@@ -20,4 +20,6 @@ public class DiagnosisFrequencyDTO {
 
     private Long count;
 
-}
\ No newline at end of file
+    private Long errorBound; // Surestimation maximale de count : la fréquence réelle est dans [count - errorBound, count]
+
+}
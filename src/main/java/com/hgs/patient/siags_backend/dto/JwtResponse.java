@@ -9,6 +9,7 @@ import java.util.List;
 @NoArgsConstructor // Un constructeur sans arguments est utile pour la désérialisation
 public class JwtResponse {
     private String token;
+    private String refreshToken; // Jeton opaque à usage unique, échangé sur /api/v1/auth/refresh
     private String type = "Bearer"; // Type de token
     private Long id;
     private String username;
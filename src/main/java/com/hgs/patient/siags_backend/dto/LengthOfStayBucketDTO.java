@@ -0,0 +1,17 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Intervalle de l'histogramme des durées de séjour : [minDays, maxDays), maxDays null pour le dernier.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LengthOfStayBucketDTO {
+    private Integer minDays;
+    private Integer maxDays;
+    private Long count;
+}
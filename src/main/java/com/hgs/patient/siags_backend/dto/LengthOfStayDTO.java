@@ -0,0 +1,24 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Statistiques de durée de séjour (en jours complets, comme Admission.getDurationInDays)
+ * d'un département, ou de l'ensemble des départements lorsque departmentId est null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LengthOfStayDTO {
+    private Long departmentId;
+    private String departmentName;
+    private Long stays;
+    private Double meanDays;
+    private Long medianDays; // Rang le plus proche
+    private Long p90Days;    // Rang le plus proche
+    private List<LengthOfStayBucketDTO> histogram;
+}
@@ -0,0 +1,21 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Durées de séjour des admissions sorties entre start (inclus) et end (exclu).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LengthOfStayReportDTO {
+    private LocalDate start;
+    private LocalDate end;
+    private LengthOfStayDTO overall;
+    private List<LengthOfStayDTO> departments;
+}
@@ -0,0 +1,19 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Intervalle d'un histogramme : [periodStart, periodEnd) et le nombre d'éléments qu'il contient.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodCountDTO {
+    private LocalDate periodStart; // Inclus
+    private LocalDate periodEnd;   // Exclu
+    private Long count;
+}
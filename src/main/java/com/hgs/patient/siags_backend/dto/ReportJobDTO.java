@@ -0,0 +1,29 @@
+package com.hgs.patient.siags_backend.dto;
+
+import com.hgs.patient.siags_backend.model.ReportJobStatus;
+import com.hgs.patient.siags_backend.model.ReportJobType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * État d'une tâche de rapport. Le résultat se lit sur /api/reports/jobs/{id}/result une fois le statut SUCCEEDED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportJobDTO {
+    private Long id;
+    private ReportJobType type;
+    private String parameters;
+    private ReportJobStatus status;
+    private String requestedBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;   // Suppression de la tâche et de son résultat
+    private String errorMessage;
+    private Long resultSize;           // Taille du JSON (octets)
+}
@@ -0,0 +1,26 @@
+package com.hgs.patient.siags_backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Demande de calcul d'un rapport en tâche de fond. Seuls les paramètres du type demandé sont pris en compte
+ * (voir ReportJobType) ; ils ont la même signification que sur l'endpoint synchrone correspondant.
+ */
+@Setter
+@Getter
+public class ReportJobRequest {
+
+    @NotBlank(message = "Le type de rapport est requis")
+    private String type;
+
+    private LocalDate start; // Inclus
+    private LocalDate end;   // Exclu
+    private String granularity; // day, week, month ou year (month par défaut)
+    private Long departmentId;
+    private Integer limit;      // 20 par défaut
+    private String dimension;   // all, department ou doctor (all par défaut)
+}
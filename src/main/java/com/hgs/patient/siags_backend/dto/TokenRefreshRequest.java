@@ -0,0 +1,14 @@
+package com.hgs.patient.siags_backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenRefreshRequest {
+    @NotBlank
+    private String refreshToken;
+}
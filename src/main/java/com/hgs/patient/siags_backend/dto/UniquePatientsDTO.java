@@ -0,0 +1,19 @@
+package com.hgs.patient.siags_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre estimé de patients distincts sur une période, pour une valeur de dimension
+ * (département ou médecin ; dimensionId null pour l'ensemble de l'hôpital).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniquePatientsDTO {
+    private Long dimensionId;
+    private String label;
+    private Long estimatedPatients;
+    private Double relativeStandardError; // Erreur relative type de l'estimation (≈ 0,016)
+}
@@ -0,0 +1,14 @@
+package com.hgs.patient.siags_backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Levée lorsqu'un paramètre de requête est invalide (curseur illisible, intervalle incohérent...).
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
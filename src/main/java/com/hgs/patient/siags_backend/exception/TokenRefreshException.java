@@ -0,0 +1,14 @@
+package com.hgs.patient.siags_backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Levée lorsqu'un jeton de rafraîchissement est inconnu, expiré, révoqué ou réutilisé.
+ */
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class TokenRefreshException extends RuntimeException {
+    public TokenRefreshException(String message) {
+        super(message);
+    }
+}
@@ -9,7 +9,14 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "admissions")
+@Table(name = "admissions", indexes = {
+        // Histogrammes et comptages par période (prédicats d'intervalle, voir ReportServiceImp)
+        @Index(name = "idx_admissions_admission_date", columnList = "admission_date"),
+        // Rapprochement du recensement (admissions ACTIVE, voir HospitalCensus)
+        @Index(name = "idx_admissions_status", columnList = "status"),
+        // Durées de séjour par période de sortie
+        @Index(name = "idx_admissions_discharge_date", columnList = "discharge_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
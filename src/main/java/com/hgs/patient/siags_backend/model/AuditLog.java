@@ -10,7 +10,13 @@ import java.time.LocalDateTime;
  * Entité pour le journal d'audit, enregistrant les actions des utilisateurs sur les ressources.
  */
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+        // Index composites terminés par (timestamp, id) pour la pagination par clé (voir AuditLogRepositoryImpl)
+        @Index(name = "idx_audit_logs_ts_id", columnList = "timestamp, id"),
+        @Index(name = "idx_audit_logs_user_ts_id", columnList = "user_id, timestamp, id"),
+        @Index(name = "idx_audit_logs_resource_ts_id", columnList = "resource, resource_id, timestamp, id"),
+        @Index(name = "idx_audit_logs_action_ts_id", columnList = "action, timestamp, id")
+})
 @Data
 @NoArgsConstructor
 public class AuditLog {
@@ -19,11 +25,18 @@ public class AuditLog {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // L'utilisateur qui a effectué l'action
+    // L'utilisateur qui a effectué l'action (null pour un traitement système)
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id")
     private User user;
 
+    // Nom d'utilisateur et rôles de l'auteur figés au moment de l'action
+    @Column(name = "actor_username")
+    private String actorUsername;
+
+    @Column(name = "actor_roles")
+    private String actorRoles;
+
     // Type d'action (CREATE, UPDATE, DELETE, etc.)
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -41,16 +54,26 @@ public class AuditLog {
     @Column(columnDefinition = "TEXT")
     private String details;
 
-    // Date et heure de l'action
+    // Date et heure de l'action (première occurrence en cas de regroupement)
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
+    // Nombre d'actions identiques regroupées dans cette ligne (lectures répétées, voir AuditLogWriter)
+    @Column(nullable = false, columnDefinition = "INT NOT NULL DEFAULT 1")
+    private int occurrences = 1;
+
+    // Date et heure de la dernière occurrence
+    @Column(name = "last_seen")
+    private LocalDateTime lastSeen;
+
     public AuditLog(User user, AuditAction action, AuditResource resource, Long resourceId, String details) {
         this.user = user;
+        this.actorUsername = user != null ? user.getUsername() : null;
         this.action = action;
         this.resource = resource;
         this.resourceId = resourceId;
         this.details = details;
         this.timestamp = LocalDateTime.now();
+        this.lastSeen = this.timestamp;
     }
 }
@@ -10,5 +10,6 @@ public enum AuditResource {
     ADMISSION,
     USER,
     ROLE,
-    PERMISSION
+    PERMISSION,
+    AUDIT_LOG
 }
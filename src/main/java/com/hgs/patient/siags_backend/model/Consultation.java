@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "consultations")
+@Table(name = "consultations", indexes = {
+        // Histogrammes et comptages par période (prédicats d'intervalle, voir ReportServiceImp)
+        @Index(name = "idx_consultations_consultation_date", columnList = "consultation_date"),
+        @Index(name = "idx_consultations_diagnosis_key", columnList = "diagnosis_key")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -45,6 +49,10 @@ public class Consultation {
     @Column(length = 1000)
     private String diagnosis;
 
+    // Empreinte du diagnostic normalisé (voir DiagnosisNormalizer), renseignée à chaque enregistrement
+    @Column(name = "diagnosis_key", length = 64)
+    private String diagnosisKey;
+
     @Column(length = 2000)
     private String treatmentPlan;
 
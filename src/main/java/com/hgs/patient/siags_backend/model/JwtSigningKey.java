@@ -0,0 +1,43 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Clé HMAC de signature des jetons JWT, identifiée par son kid (en-tête du jeton).
+ * Une seule clé est active (signature) ; les clés retirées restent utilisables en vérification
+ * jusqu'à l'expiration des jetons qu'elles ont signés.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Data
+@NoArgsConstructor
+public class JwtSigningKey {
+
+    @Id
+    @Column(length = 36)
+    private String kid;
+
+    // Secret chiffré par JwtSecretCipher (v1:...), ou encodé en Base64 pour une clé antérieure au chiffrement
+    @Column(nullable = false, length = 128)
+    private String secret;
+
+    @Column(nullable = false)
+    private boolean active;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "retired_at")
+    private Instant retiredAt;
+
+    public JwtSigningKey(String kid, String secret, Instant createdAt) {
+        this.kid = kid;
+        this.secret = secret;
+        this.active = true;
+        this.createdAt = createdAt;
+    }
+}
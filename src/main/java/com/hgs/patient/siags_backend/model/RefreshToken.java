@@ -0,0 +1,55 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Jeton de rafraîchissement à usage unique.
+ * Seule l'empreinte SHA-256 du jeton est stockée ; chaque rotation crée un nouveau jeton dans la même famille,
+ * ce qui permet de révoquer toute la chaîne si un jeton déjà utilisé est présenté de nouveau.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Empreinte SHA-256 (32 octets) du jeton remis au client
+    @Column(name = "token_hash", length = 32, nullable = false, unique = true)
+    private byte[] tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Identifiant commun à tous les jetons issus d'une même connexion
+    @Column(name = "family_id", nullable = false)
+    private Long familyId;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Passe à true lors de la rotation ; une seconde présentation signale un vol de jeton
+    @Column(nullable = false)
+    private boolean used = false;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    public RefreshToken(byte[] tokenHash, Long userId, Long familyId, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+}
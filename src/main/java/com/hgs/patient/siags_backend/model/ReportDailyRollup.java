@@ -0,0 +1,50 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Compteur journalier d'un indicateur de reporting pour une valeur de sa dimension
+ * (département, médecin, diagnostic ou genre).
+ * Mis à jour dans la transaction qui écrit l'admission, la consultation ou le patient
+ * (voir ReportRollupService) : les rapports n'ont plus qu'à sommer quelques lignes par jour.
+ */
+@Entity
+@Table(name = "report_daily_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportDailyRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    // Libellé affiché lorsque la clé n'est pas un ID (diagnostic, genre)
+    @Column(name = "dim_label", length = 1000)
+    private String dimLabel;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Enumerated(EnumType.STRING)
+        @Column(length = 40, nullable = false)
+        private ReportMetric metric;
+
+        @Column(nullable = false)
+        private LocalDate day;
+
+        @Column(name = "dim_key", length = 64, nullable = false)
+        private String dimKey;
+    }
+}
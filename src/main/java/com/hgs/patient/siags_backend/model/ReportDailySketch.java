@@ -0,0 +1,46 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Esquisse HyperLogLog (sérialisée par HyperLogLog.toBytes) des patients vus un jour donné pour une
+ * valeur de dimension. Les esquisses d'une période se fusionnent pour estimer les patients distincts
+ * sur toute la période (voir UniquePatientSketchService).
+ */
+@Entity
+@Table(name = "report_daily_sketches")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportDailySketch {
+
+    @EmbeddedId
+    private Key id;
+
+    // Null tant que la ligne vient d'être réservée et n'a pas encore reçu de fusion
+    @Column(columnDefinition = "BLOB")
+    private byte[] registers;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Enumerated(EnumType.STRING)
+        @Column(length = 40, nullable = false)
+        private ReportSketchMetric metric;
+
+        @Column(nullable = false)
+        private LocalDate day;
+
+        @Column(name = "dim_key", length = 64, nullable = false)
+        private String dimKey;
+    }
+}
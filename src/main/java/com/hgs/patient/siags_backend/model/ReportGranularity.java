@@ -0,0 +1,53 @@
+package com.hgs.patient.siags_backend.model;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Taille des intervalles d'un histogramme de reporting. Les semaines commencent le lundi (ISO 8601).
+ */
+public enum ReportGranularity {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    /**
+     * Premier jour de l'intervalle contenant {@code date}.
+     */
+    public LocalDate truncate(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    /**
+     * Premier jour de l'intervalle suivant celui qui commence à {@code bucketStart}.
+     */
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+            case YEAR -> bucketStart.plusYears(1);
+        };
+    }
+
+    /**
+     * Lit le paramètre de requête {@code granularity}, sans tenir compte de la casse.
+     */
+    public static ReportGranularity fromParameter(String value) {
+        for (ReportGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value)) {
+                return granularity;
+            }
+        }
+        throw new BadRequestException("Granularité inconnue : " + value + " (day, week, month ou year).");
+    }
+}
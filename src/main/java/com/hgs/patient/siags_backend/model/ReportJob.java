@@ -0,0 +1,78 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tâche de calcul d'un rapport en arrière-plan, et son résultat (JSON compressé en gzip) jusqu'à expiration.
+ */
+@Entity
+@Table(name = "report_jobs", indexes = {
+        @Index(name = "idx_report_jobs_expires_at", columnList = "expires_at"),
+        // Tâches actives d'une instance (battement) et tâches abandonnées (reprise)
+        @Index(name = "idx_report_jobs_owner_status", columnList = "owner, status")
+})
+@Data
+@NoArgsConstructor
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 40, nullable = false)
+    private ReportJobType type;
+
+    // Paramètres normalisés (ex : start=2020-01-01&end=2025-01-01&granularity=month)
+    @Column(nullable = false)
+    private String parameters;
+
+    // Type et paramètres : deux demandes de même clé partagent la même exécution
+    @Column(name = "dedup_key", nullable = false)
+    private String dedupKey;
+
+    // Copie de dedup_key tant que la tâche est en file ou en cours, nulle ensuite :
+    // l'unicité garantit une seule tâche active par clé, toutes instances confondues
+    @Column(name = "active_dedup_key", unique = true)
+    private String activeDedupKey;
+
+    // Instance qui exécute la tâche, et dernier signe de vie de cette instance pour la tâche
+    @Column(length = 64)
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private ReportJobStatus status;
+
+    // Utilisateur ayant soumis la tâche (le premier, en cas de demandes partagées)
+    @Column(name = "requested_by")
+    private String requestedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    // Renseignée à la fin de la tâche ; au-delà, la tâche et son résultat sont supprimés
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    // Taille du JSON avant compression
+    private Long resultSize;
+
+    // Lu séparément (ReportJobRepository.findResultById) : le suivi de la tâche passe par une projection
+    @Column(columnDefinition = "LONGBLOB")
+    private byte[] result;
+}
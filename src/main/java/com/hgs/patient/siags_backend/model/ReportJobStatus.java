@@ -0,0 +1,11 @@
+package com.hgs.patient.siags_backend.model;
+
+/**
+ * Cycle de vie d'une tâche de rapport : PENDING (en file) → RUNNING → SUCCEEDED ou FAILED.
+ */
+public enum ReportJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,37 @@
+package com.hgs.patient.siags_backend.model;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+
+/**
+ * Rapports pouvant être calculés en tâche de fond (voir ReportJobService), avec la permission requise pour
+ * les demander et en lire le résultat, comme sur les endpoints synchrones correspondants.
+ */
+public enum ReportJobType {
+    ADMISSION_HISTOGRAM("REPORT_READ_ADMISSION"),    // start, end, granularity
+    CONSULTATION_HISTOGRAM("REPORT_READ_CONSULTATION"), // start, end, granularity
+    LENGTH_OF_STAY("REPORT_READ_ADMISSION"),         // start, end, departmentId (optionnel)
+    DIAGNOSIS_FREQUENCY("REPORT_READ_CONSULTATION"), // start et end optionnels, limit
+    UNIQUE_PATIENTS("REPORT_READ_PATIENT");          // start, end, dimension
+
+    private final String permission;
+
+    ReportJobType(String permission) {
+        this.permission = permission;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    /**
+     * Lit le type demandé, sans tenir compte de la casse (ex : admission_histogram).
+     */
+    public static ReportJobType fromParameter(String value) {
+        for (ReportJobType type : values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new BadRequestException("Type de rapport inconnu : " + value + ".");
+    }
+}
@@ -0,0 +1,11 @@
+package com.hgs.patient.siags_backend.model;
+
+/**
+ * Indicateurs agrégés par jour dans la table report_daily_rollups, et dimension de chacun.
+ */
+public enum ReportMetric {
+    ADMISSIONS_BY_DEPARTMENT,   // Clé : ID du département, jour de la date d'admission
+    CONSULTATIONS_BY_DOCTOR,    // Clé : ID du médecin, jour de la date de consultation
+    CONSULTATIONS_BY_DIAGNOSIS, // Clé : empreinte SHA-256 du diagnostic, libellé : le diagnostic
+    PATIENTS_BY_GENDER          // Clé et libellé : le genre, jour de la création du dossier
+}
@@ -0,0 +1,29 @@
+package com.hgs.patient.siags_backend.model;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+
+/**
+ * Patients distincts estimés par jour (esquisses HyperLogLog de la table report_daily_sketches), et dimension de chacun.
+ * Un patient est « vu » le jour de son admission ou de sa consultation.
+ */
+public enum ReportSketchMetric {
+    UNIQUE_PATIENTS,               // Clé vide : admissions et consultations confondues
+    UNIQUE_PATIENTS_BY_DEPARTMENT, // Clé : ID du département de l'admission
+    UNIQUE_PATIENTS_BY_DOCTOR;     // Clé : ID du médecin de la consultation
+
+    /**
+     * Lit le paramètre de requête {@code dimension} : all, department ou doctor.
+     */
+    public static ReportSketchMetric fromParameter(String value) {
+        if ("all".equalsIgnoreCase(value)) {
+            return UNIQUE_PATIENTS;
+        }
+        if ("department".equalsIgnoreCase(value)) {
+            return UNIQUE_PATIENTS_BY_DEPARTMENT;
+        }
+        if ("doctor".equalsIgnoreCase(value)) {
+            return UNIQUE_PATIENTS_BY_DOCTOR;
+        }
+        throw new BadRequestException("Dimension inconnue : " + value + " (all, department ou doctor).");
+    }
+}
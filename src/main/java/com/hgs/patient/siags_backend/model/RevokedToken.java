@@ -0,0 +1,34 @@
+package com.hgs.patient.siags_backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Jeton d'accès révoqué avant son expiration (déconnexion), identifié par son jti.
+ * La ligne n'est utile que jusqu'à l'expiration du jeton, après quoi elle est purgée.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at"),
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Sert à la synchronisation incrémentale entre les instances
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+}
@@ -50,4 +50,9 @@ public class User {
     private LocalDateTime lockTime; // Timestamp du verrouillage
     private boolean accountNonLocked = true; // Indique si le compte est verrouillé
 
+    // Version des jetons JWT : incrémentée à chaque changement de rôles ou de mot de passe
+    // pour invalider les jetons déjà émis sans relire l'utilisateur à chaque requête.
+    @Column(name = "token_version", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private int tokenVersion = 0;
+
 }
\ No newline at end of file
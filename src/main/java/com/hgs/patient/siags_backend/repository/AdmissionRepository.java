@@ -1,10 +1,10 @@
 package com.hgs.patient.siags_backend.repository;
 
 import com.hgs.patient.siags_backend.model.Admission;
+import com.hgs.patient.siags_backend.service.census.BedOccupancy;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.hgs.patient.siags_backend.dto.AdmissionCountByDepartmentDTO;
-import com.hgs.patient.siags_backend.dto.MonthlyAdmissionCountDTO;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param; // N'oubliez pas cette importation si vous utilisez @Param
 
@@ -23,9 +23,36 @@ public interface AdmissionRepository extends JpaRepository<Admission, Long> {
             "FROM Admission a GROUP BY a.assignedDepartment.name")
     List<AdmissionCountByDepartmentDTO> countAdmissionsByDepartment();
 
-    @Query("SELECT new com.hgs.patient.siags_backend.dto.MonthlyAdmissionCountDTO(CAST(FUNCTION('MONTH', a.admissionDate) AS int), COUNT(a.id)) " +
-            "FROM Admission a WHERE FUNCTION('YEAR', a.admissionDate) = :year GROUP BY FUNCTION('MONTH', a.admissionDate) ORDER BY FUNCTION('MONTH', a.admissionDate)")
-    List<MonthlyAdmissionCountDTO> countAdmissionsByMonth(@Param("year") int year);
+    // Nombre d'admissions par jour sur [start, end) : prédicat d'intervalle sur la colonne indexée admission_date
+    @Query(value = "SELECT DATE(a.admission_date) AS day, COUNT(*) AS total FROM admissions a"
+            + " WHERE a.admission_date >= :start AND a.admission_date < :end GROUP BY DATE(a.admission_date)",
+            nativeQuery = true)
+    List<DailyCountView> countAdmissionsPerDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Fréquence de chaque durée de séjour (jours complets) par département, pour les sorties sur [start, end) :
+    // au plus une ligne par couple (département, durée), quel que soit le nombre d'admissions
+    @Query(value = "SELECT a.department_id AS departmentId, TIMESTAMPDIFF(DAY, a.admission_date, a.discharge_date) AS days,"
+            + " COUNT(*) AS total FROM admissions a"
+            + " WHERE a.discharge_date >= :start AND a.discharge_date < :end AND a.discharge_date >= a.admission_date"
+            + " AND (:departmentId IS NULL OR a.department_id = :departmentId)"
+            + " GROUP BY a.department_id, days",
+            nativeQuery = true)
+    List<LengthOfStayView> countLengthsOfStay(@Param("start") LocalDateTime start,
+                                              @Param("end") LocalDateTime end,
+                                              @Param("departmentId") Long departmentId);
+
+    interface LengthOfStayView {
+        Long getDepartmentId();
+
+        Integer getDays();
+
+        Long getTotal();
+    }
+
+    // Admissions d'un statut donné, pour construire et rapprocher le recensement en mémoire (HospitalCensus)
+    @Query("SELECT new com.hgs.patient.siags_backend.service.census.BedOccupancy(a.id, a.patient.id, d.id, d.name, a.roomNumber, a.bedNumber, a.admissionDate) " +
+            "FROM Admission a LEFT JOIN a.assignedDepartment d WHERE a.status = :status")
+    List<BedOccupancy> findOccupanciesByStatus(@Param("status") Admission.AdmissionStatus status);
 
     // Votre nouvelle méthode, qui est correcte
     @Query("SELECT COUNT(a) FROM Admission a WHERE a.admissionDate BETWEEN :startDate AND :endDate")
@@ -33,4 +60,4 @@ public interface AdmissionRepository extends JpaRepository<Admission, Long> {
     // Ou si vous préférez une méthode dérivée de requête (sans @Query):
     // Long countByAdmissionDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
-}
\ No newline at end of file
+}
@@ -10,7 +10,7 @@ import java.util.List;
  * Repository pour l'entité AuditLog.
  */
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, AuditLogRepositoryCustom {
     List<AuditLog> findByUserId(Long userId);
 
     List<AuditLog> findByResourceId(Long resourceId);
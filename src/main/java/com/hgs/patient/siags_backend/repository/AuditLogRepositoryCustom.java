@@ -0,0 +1,24 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Requêtes du journal d'audit non exprimables par nom de méthode.
+ */
+public interface AuditLogRepositoryCustom {
+
+    /**
+     * Recherche paginée par clé (seek) sur (timestamp, id), du plus récent au plus ancien.
+     *
+     * @param filter     Les critères de recherche.
+     * @param afterTs    Horodatage de la dernière ligne de la page précédente, ou null pour la première page.
+     * @param afterId    ID de la dernière ligne de la page précédente, ou null pour la première page.
+     * @param limit      Nombre maximal de lignes.
+     * @return Les lignes, projetées directement en DTO en une seule requête.
+     */
+    List<AuditLogResponseDTO> search(AuditLogFilter filter, LocalDateTime afterTs, Long afterId, int limit);
+}
@@ -0,0 +1,84 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
+import com.hgs.patient.siags_backend.model.AuditLog;
+import com.hgs.patient.siags_backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de {@link AuditLogRepositoryCustom}, rattachée automatiquement à AuditLogRepository.
+ */
+public class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AuditLogResponseDTO> search(AuditLogFilter filter, LocalDateTime afterTs, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLogResponseDTO> query = cb.createQuery(AuditLogResponseDTO.class);
+        Root<AuditLog> log = query.from(AuditLog.class);
+        // Jointure externe uniquement pour les anciennes lignes sans instantané du nom d'utilisateur
+        Join<AuditLog, User> user = log.join("user", JoinType.LEFT);
+
+        Path<LocalDateTime> timestamp = log.get("timestamp");
+        Path<Long> id = log.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getUserId() != null) {
+            predicates.add(cb.equal(log.get("user").get("id"), filter.getUserId()));
+        }
+        if (filter.getAction() != null) {
+            predicates.add(cb.equal(log.get("action"), filter.getAction()));
+        }
+        if (filter.getResource() != null) {
+            predicates.add(cb.equal(log.get("resource"), filter.getResource()));
+        }
+        if (filter.getResourceId() != null) {
+            predicates.add(cb.equal(log.get("resourceId"), filter.getResourceId()));
+        }
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(timestamp, filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(timestamp, filter.getTo()));
+        }
+        if (afterTs != null && afterId != null) {
+            // (timestamp, id) < (afterTs, afterId)
+            predicates.add(cb.or(
+                    cb.lessThan(timestamp, afterTs),
+                    cb.and(cb.equal(timestamp, afterTs), cb.lessThan(id, afterId))));
+        }
+
+        query.select(cb.construct(AuditLogResponseDTO.class,
+                        id,
+                        cb.coalesce(log.<String>get("actorUsername"), user.<String>get("username")),
+                        log.get("actorRoles"),
+                        log.get("action"),
+                        log.get("resource"),
+                        log.get("resourceId"),
+                        log.get("details"),
+                        timestamp,
+                        log.get("occurrences"),
+                        cb.coalesce(log.<LocalDateTime>get("lastSeen"), timestamp)))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(timestamp), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -1,12 +1,12 @@
 package com.hgs.patient.siags_backend.repository;
 
 import com.hgs.patient.siags_backend.dto.ConsultationCountByDoctorDTO;
-import com.hgs.patient.siags_backend.dto.DiagnosisFrequencyDTO;
 import com.hgs.patient.siags_backend.model.Consultation;
 import com.hgs.patient.siags_backend.model.Patient;
 import com.hgs.patient.siags_backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -25,6 +25,12 @@ public interface ConsultationRepository extends JpaRepository<Consultation, Long
 
     List<Consultation> findByConsultationDateBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+    // Nombre de consultations par jour sur [start, end) : prédicat d'intervalle sur la colonne indexée consultation_date
+    @Query(value = "SELECT DATE(c.consultation_date) AS day, COUNT(*) AS total FROM consultations c"
+            + " WHERE c.consultation_date >= :start AND c.consultation_date < :end GROUP BY DATE(c.consultation_date)",
+            nativeQuery = true)
+    List<DailyCountView> countConsultationsPerDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
     /**
      * @description Récupère le nombre de consultations par médecin.
      * Cette requête JPQL est déjà bien optimisée et utilise le DTO pour une projection efficace.
@@ -34,14 +40,6 @@ public interface ConsultationRepository extends JpaRepository<Consultation, Long
             "FROM Consultation c GROUP BY c.doctor.id, c.doctor.username, c.doctor.nomComplet")
     List<ConsultationCountByDoctorDTO> countConsultationsByDoctor();
 
-    /**
-     * @description Récupère la fréquence des diagnostics (les plus courants).
-     * La requête est correcte, elle filtre les diagnostics nuls ou vides avant de compter.
-     */
-    @Query("SELECT new com.hgs.patient.siags_backend.dto.DiagnosisFrequencyDTO(c.diagnosis, COUNT(c.id)) " +
-            "FROM Consultation c WHERE c.diagnosis IS NOT NULL AND c.diagnosis != '' GROUP BY c.diagnosis ORDER BY COUNT(c.id) DESC")
-    List<DiagnosisFrequencyDTO> countDiagnosisFrequency();
-
     /**
      * @description Récupère le nombre total de consultations entre deux dates.
      * La requête est correcte et efficace pour un simple comptage.
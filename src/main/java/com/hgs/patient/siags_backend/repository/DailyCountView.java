@@ -0,0 +1,12 @@
+package com.hgs.patient.siags_backend.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection d'un comptage journalier (requêtes d'histogramme des rapports).
+ */
+public interface DailyCountView {
+    LocalDate getDay();
+
+    Long getTotal();
+}
@@ -0,0 +1,23 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.model.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository pour l'entité JwtSigningKey.
+ */
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    // Clé active et clés retirées après la date donnée (leurs jetons peuvent encore être valides)
+    @Query("SELECT k FROM JwtSigningKey k WHERE k.active = true OR k.retiredAt > :cutoff ORDER BY k.createdAt")
+    List<JwtSigningKey> findUsableKeys(@Param("cutoff") Instant cutoff);
+
+    List<JwtSigningKey> findByActiveTrue();
+}
@@ -0,0 +1,37 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Repository pour l'entité RefreshToken.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    // Consomme le jeton de manière atomique : 0 si une autre requête l'a déjà utilisé
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.used = true WHERE t.id = :id AND t.used = false AND t.revoked = false")
+    int markUsed(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") Long familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.userId = :userId AND t.revoked = false")
+    int revokeAllForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
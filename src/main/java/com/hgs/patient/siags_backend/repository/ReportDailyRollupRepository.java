@@ -0,0 +1,44 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.model.ReportDailyRollup;
+import com.hgs.patient.siags_backend.model.ReportMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository pour les agrégats journaliers de reporting.
+ */
+@Repository
+public interface ReportDailyRollupRepository extends JpaRepository<ReportDailyRollup, ReportDailyRollup.Key> {
+
+    // Incrément (ou décrément) atomique : une seule instruction, sans lecture préalable
+    @Modifying
+    @Query(value = "INSERT INTO report_daily_rollups (metric, day, dim_key, dim_label, total)"
+            + " VALUES (:metric, :day, :dimKey, :dimLabel, :delta)"
+            + " ON DUPLICATE KEY UPDATE total = total + VALUES(total)", nativeQuery = true)
+    int increment(@Param("metric") String metric, @Param("day") LocalDate day, @Param("dimKey") String dimKey,
+                  @Param("dimLabel") String dimLabel, @Param("delta") long delta);
+
+    // Totaux par valeur de dimension, tous jours confondus, du plus grand au plus petit
+    @Query("SELECT r.id.dimKey AS dimKey, MAX(r.dimLabel) AS dimLabel, SUM(r.total) AS total FROM ReportDailyRollup r"
+            + " WHERE r.id.metric = :metric GROUP BY r.id.dimKey HAVING SUM(r.total) > 0 ORDER BY SUM(r.total) DESC")
+    List<RollupTotalView> sumByDimension(@Param("metric") ReportMetric metric);
+
+    @Modifying
+    @Query("DELETE FROM ReportDailyRollup r WHERE r.id.metric = :metric AND r.id.day >= :from AND r.id.day < :to")
+    int deleteRange(@Param("metric") ReportMetric metric, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    interface RollupTotalView {
+        String getDimKey();
+
+        String getDimLabel();
+
+        Long getTotal();
+    }
+}
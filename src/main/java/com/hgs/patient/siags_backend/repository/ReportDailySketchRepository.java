@@ -0,0 +1,23 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.model.ReportDailySketch;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Repository pour les esquisses journalières de patients distincts.
+ * Les fusions et lectures en masse passent par JDBC (UniquePatientSketchService).
+ */
+@Repository
+public interface ReportDailySketchRepository extends JpaRepository<ReportDailySketch, ReportDailySketch.Key> {
+
+    @Modifying
+    @Query("DELETE FROM ReportDailySketch s WHERE s.id.metric = :metric AND s.id.day >= :from AND s.id.day < :to")
+    int deleteRange(@Param("metric") ReportSketchMetric metric, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
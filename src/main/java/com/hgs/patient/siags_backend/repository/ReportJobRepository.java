@@ -0,0 +1,95 @@
+package com.hgs.patient.siags_backend.repository;
+
+import com.hgs.patient.siags_backend.model.ReportJob;
+import com.hgs.patient.siags_backend.model.ReportJobStatus;
+import com.hgs.patient.siags_backend.model.ReportJobType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository pour les tâches de rapport asynchrones.
+ */
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    Optional<ReportJob> findByActiveDedupKey(String activeDedupKey);
+
+    // Projection sans la colonne du résultat : le suivi d'une tâche ne charge pas le rapport
+    @Query("SELECT j.id AS id, j.type AS type, j.parameters AS parameters, j.status AS status, j.requestedBy AS requestedBy,"
+            + " j.createdAt AS createdAt, j.startedAt AS startedAt, j.finishedAt AS finishedAt, j.expiresAt AS expiresAt,"
+            + " j.errorMessage AS errorMessage, j.resultSize AS resultSize FROM ReportJob j WHERE j.id = :id")
+    Optional<ReportJobView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT j.result FROM ReportJob j WHERE j.id = :id")
+    byte[] findResultById(@Param("id") Long id);
+
+    // Transitions conditionnées à l'état actif : une tâche déjà marquée en échec par failStale n'est pas ressuscitée
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :status, j.startedAt = :now WHERE j.id = :id AND j.status IN :active")
+    int markStarted(@Param("id") Long id, @Param("active") Collection<ReportJobStatus> active,
+                    @Param("status") ReportJobStatus status, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :status, j.finishedAt = :now, j.expiresAt = :expiresAt,"
+            + " j.result = :result, j.resultSize = :resultSize, j.errorMessage = :errorMessage, j.activeDedupKey = NULL"
+            + " WHERE j.id = :id AND j.status IN :active")
+    int markFinished(@Param("id") Long id, @Param("active") Collection<ReportJobStatus> active,
+                     @Param("status") ReportJobStatus status, @Param("now") LocalDateTime now,
+                     @Param("expiresAt") LocalDateTime expiresAt, @Param("result") byte[] result,
+                     @Param("resultSize") Long resultSize, @Param("errorMessage") String errorMessage);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.heartbeatAt = :now WHERE j.owner = :owner AND j.status IN :statuses")
+    int heartbeat(@Param("owner") String owner, @Param("statuses") Collection<ReportJobStatus> statuses,
+                  @Param("now") LocalDateTime now);
+
+    // Tâches en file ou en cours dont l'instance ne donne plus signe de vie (arrêt, plantage) : leur exécution est perdue
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = :failed, j.finishedAt = :now, j.expiresAt = :expiresAt,"
+            + " j.errorMessage = :errorMessage, j.activeDedupKey = NULL"
+            + " WHERE j.status IN :statuses AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int failStale(@Param("statuses") Collection<ReportJobStatus> statuses, @Param("staleBefore") LocalDateTime staleBefore,
+                  @Param("failed") ReportJobStatus failed, @Param("now") LocalDateTime now,
+                  @Param("expiresAt") LocalDateTime expiresAt, @Param("errorMessage") String errorMessage);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    interface ReportJobView {
+        Long getId();
+
+        ReportJobType getType();
+
+        String getParameters();
+
+        ReportJobStatus getStatus();
+
+        String getRequestedBy();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getStartedAt();
+
+        LocalDateTime getFinishedAt();
+
+        LocalDateTime getExpiresAt();
+
+        String getErrorMessage();
+
+        Long getResultSize();
+    }
+}
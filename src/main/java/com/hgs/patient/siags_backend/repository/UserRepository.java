@@ -4,8 +4,13 @@ import com.hgs.patient.siags_backend.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +28,47 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByUsernameContainingIgnoreCase(String username);
 
     Page<User> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
+
+    // Utilisateurs portant un rôle donné (invalidation ciblée lors d'une modification de ses permissions)
+    List<User> findDistinctByRoles_Id(Long roleId);
+
+    // Versions de jetons non nulles, chargées au démarrage puis réconciliées périodiquement par TokenVersionRegistry
+    @Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<TokenVersionView> findNonZeroTokenVersions();
+
+    // Verrouillage/déverrouillage écrits par LoginAttemptTracker, uniquement aux transitions
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.accountNonLocked = false, u.failedAttempt = :attempts, u.lockTime = :lockTime WHERE u.username = :username")
+    int lockAccount(@Param("username") String username, @Param("attempts") int attempts, @Param("lockTime") LocalDateTime lockTime);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.accountNonLocked = true, u.failedAttempt = 0, u.lockTime = null WHERE u.username = :username AND u.accountNonLocked = false")
+    int unlockAccount(@Param("username") String username);
+
+    // Ré-hachage du mot de passe après une augmentation du coût BCrypt (n'invalide pas les jetons)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    @Query("SELECT u.username AS username, u.lockTime AS lockTime FROM User u WHERE u.accountNonLocked = false")
+    List<LockedAccountView> findLockedAccounts();
+
+    // Relu par LoginAttemptTracker lorsqu'un verrouillage a été évincé de son cache
+    @Query("SELECT u.username AS username, u.lockTime AS lockTime FROM User u WHERE u.username = :username AND u.accountNonLocked = false")
+    Optional<LockedAccountView> findLockedAccount(@Param("username") String username);
+
+    interface LockedAccountView {
+        String getUsername();
+
+        LocalDateTime getLockTime();
+    }
+
+    interface TokenVersionView {
+        Long getId();
+
+        int getTokenVersion();
+    }
 }
@@ -0,0 +1,64 @@
+package com.hgs.patient.siags_backend.security.access;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Gestionnaire d'expressions de sécurité des méthodes qui évalue {@code hasAuthority}/{@code hasRole}
+ * à l'aide de {@link IndexedMethodSecurityExpressionRoot}.
+ * <p>
+ * Lorsqu'une hiérarchie de rôles est configurée, la racine standard est conservée :
+ * le BitSet ne contient que les autorités directement attribuées.
+ */
+public class IndexedMethodSecurityExpressionHandler extends DefaultMethodSecurityExpressionHandler {
+
+    private static final String DEFAULT_ROLE_PREFIX = "ROLE_";
+
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    @Override
+    public EvaluationContext createEvaluationContext(Supplier<Authentication> authentication, MethodInvocation mi) {
+        if (getRoleHierarchy() != null) {
+            return super.createEvaluationContext(authentication, mi);
+        }
+        MethodSecurityExpressionOperations root = createIndexedRoot(authentication, mi);
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                root, mi.getMethod(), mi.getArguments(), getParameterNameDiscoverer());
+        context.setBeanResolver(getBeanResolver());
+        return context;
+    }
+
+    @Override
+    protected MethodSecurityExpressionOperations createSecurityExpressionRoot(Authentication authentication,
+                                                                           MethodInvocation invocation) {
+        if (getRoleHierarchy() != null) {
+            return super.createSecurityExpressionRoot(authentication, invocation);
+        }
+        return createIndexedRoot(() -> authentication, invocation);
+    }
+
+    private MethodSecurityExpressionOperations createIndexedRoot(Supplier<Authentication> authentication,
+                                                                 MethodInvocation invocation) {
+        Supplier<Authentication> memoized = SingletonSupplier.of(authentication);
+        SecurityExpressionRoot delegate = new SecurityExpressionRoot(memoized) {
+        };
+        delegate.setTrustResolver(trustResolver);
+        delegate.setPermissionEvaluator(getPermissionEvaluator());
+        delegate.setDefaultRolePrefix(DEFAULT_ROLE_PREFIX);
+
+        IndexedMethodSecurityExpressionRoot root =
+                new IndexedMethodSecurityExpressionRoot(memoized, delegate, DEFAULT_ROLE_PREFIX);
+        root.setThis(invocation.getThis());
+        return root;
+    }
+}
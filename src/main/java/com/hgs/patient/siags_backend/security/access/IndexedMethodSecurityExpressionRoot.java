@@ -0,0 +1,166 @@
+package com.hgs.patient.siags_backend.security.access;
+
+import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import org.springframework.security.access.expression.SecurityExpressionRoot;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Supplier;
+
+/**
+ * Racine des expressions {@code @PreAuthorize} dont les vérifications d'autorités s'appuient sur le
+ * BitSet de {@link UserDetailsImpl} au lieu de parcourir la liste des autorités.
+ * Tout le reste (isAuthenticated, hasPermission, principal...) est délégué à la racine standard de Spring Security,
+ * qui sert aussi de repli lorsque le principal n'est pas un {@link UserDetailsImpl} (ex : utilisateur anonyme).
+ */
+public class IndexedMethodSecurityExpressionRoot implements MethodSecurityExpressionOperations {
+
+    private final Supplier<Authentication> authentication;
+    private final SecurityExpressionRoot delegate;
+    private final String rolePrefix;
+
+    private Object filterObject;
+    private Object returnObject;
+    private Object target;
+
+    IndexedMethodSecurityExpressionRoot(Supplier<Authentication> authentication, SecurityExpressionRoot delegate,
+                                        String rolePrefix) {
+        this.authentication = authentication;
+        this.delegate = delegate;
+        this.rolePrefix = rolePrefix;
+    }
+
+    // Principal indexé, ou null si la vérification doit passer par la racine standard
+    private UserDetailsImpl indexedPrincipal() {
+        Authentication auth = authentication.get();
+        if (auth != null && auth.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasAuthority(String authority) {
+        UserDetailsImpl principal = indexedPrincipal();
+        return principal != null ? principal.hasAuthority(authority) : delegate.hasAuthority(authority);
+    }
+
+    @Override
+    public boolean hasAnyAuthority(String... authorities) {
+        UserDetailsImpl principal = indexedPrincipal();
+        if (principal == null) {
+            return delegate.hasAnyAuthority(authorities);
+        }
+        for (String authority : authorities) {
+            if (principal.hasAuthority(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasRole(String role) {
+        return hasAnyRole(role);
+    }
+
+    @Override
+    public boolean hasAnyRole(String... roles) {
+        UserDetailsImpl principal = indexedPrincipal();
+        if (principal == null) {
+            return delegate.hasAnyRole(roles);
+        }
+        for (String role : roles) {
+            if (principal.hasAuthority(withRolePrefix(role))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Même règle que SecurityExpressionRoot : 'ADMIN' et 'ROLE_ADMIN' désignent le même rôle
+    private String withRolePrefix(String role) {
+        if (role == null || rolePrefix == null || rolePrefix.isEmpty() || role.startsWith(rolePrefix)) {
+            return role;
+        }
+        return rolePrefix + role;
+    }
+
+    @Override
+    public Authentication getAuthentication() {
+        return delegate.getAuthentication();
+    }
+
+    public Object getPrincipal() {
+        return delegate.getPrincipal();
+    }
+
+    @Override
+    public boolean permitAll() {
+        return delegate.permitAll();
+    }
+
+    @Override
+    public boolean denyAll() {
+        return delegate.denyAll();
+    }
+
+    @Override
+    public boolean isAnonymous() {
+        return delegate.isAnonymous();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return delegate.isAuthenticated();
+    }
+
+    @Override
+    public boolean isRememberMe() {
+        return delegate.isRememberMe();
+    }
+
+    @Override
+    public boolean isFullyAuthenticated() {
+        return delegate.isFullyAuthenticated();
+    }
+
+    @Override
+    public boolean hasPermission(Object target, Object permission) {
+        return delegate.hasPermission(target, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Object targetId, String targetType, Object permission) {
+        return delegate.hasPermission(targetId, targetType, permission);
+    }
+
+    @Override
+    public void setFilterObject(Object filterObject) {
+        this.filterObject = filterObject;
+    }
+
+    @Override
+    public Object getFilterObject() {
+        return filterObject;
+    }
+
+    @Override
+    public void setReturnObject(Object returnObject) {
+        this.returnObject = returnObject;
+    }
+
+    @Override
+    public Object getReturnObject() {
+        return returnObject;
+    }
+
+    void setThis(Object target) {
+        this.target = target;
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+}
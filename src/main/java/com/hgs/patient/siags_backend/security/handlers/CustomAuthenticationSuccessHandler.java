@@ -1,7 +1,5 @@
 package com.hgs.patient.siags_backend.security.handlers;
 
-import com.hgs.patient.siags_backend.model.User;
-import com.hgs.patient.siags_backend.repository.UserRepository;
 import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
 import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
 import jakarta.servlet.ServletException;
@@ -17,8 +15,6 @@ import java.io.IOException;
 @Component
 public class CustomAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
-    @Autowired
-    private UserRepository userRepository;
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
@@ -26,11 +22,7 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                         Authentication authentication) throws IOException, ServletException {
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User user = userRepository.findByUsername(userDetails.getUsername()).orElse(null);
-
-        if (user != null) {
-            userDetailsService.resetFailedAttempts(user);
-        }
+        userDetailsService.resetFailedAttempts(userDetails.getUsername());
         // Continuer la chaîne de filtre ou retourner une réponse réussie
         // Par exemple, rediriger ou retourner un token JWT
         response.setStatus(HttpServletResponse.SC_OK);
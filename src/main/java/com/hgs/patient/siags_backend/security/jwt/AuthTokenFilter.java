@@ -1,6 +1,7 @@
 package com.hgs.patient.siags_backend.security.jwt;
 
 import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +9,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,8 +23,19 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    // Si vrai, le principal est reconstruit à partir des revendications du jeton (aucun accès à la base)
+    @Value("${hgs.siags.jwtStatelessAuth:true}")
+    private boolean statelessAuth;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     @Override
@@ -30,9 +43,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtVerifier.verify(jwt) : null;
+            if (claims != null && jwtUtils.isTokenCurrent(claims) && !tokenRevocationRegistry.isRevoked(claims.getId())
+                    && !tokenRevocationRegistry.isUserRevoked(claims.get(JwtUtils.CLAIM_USER_ID, Long.class))) {
+                UserDetails userDetails = statelessAuth && jwtUtils.hasPrincipalClaims(claims)
+                        ? jwtUtils.getUserDetailsFromClaims(claims)
+                        : userDetailsService.loadUserByUsername(claims.getSubject());
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
                                 null,
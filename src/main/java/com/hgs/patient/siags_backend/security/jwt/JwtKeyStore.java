@@ -0,0 +1,128 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import com.hgs.patient.siags_backend.model.JwtSigningKey;
+import com.hgs.patient.siags_backend.repository.JwtSigningKeyRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import io.jsonwebtoken.io.Encoders;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Jeu de clés de signature JWT persisté dans jwt_signing_keys.
+ * Le jeu est rechargé périodiquement dans {@link JwtVerifier} : une rotation faite sur une instance
+ * est donc prise en compte par les autres sans redémarrage, et les jetons signés avec l'ancienne clé
+ * restent valides jusqu'à leur expiration (pas de reconnexion massive).
+ * Les secrets sont chiffrés en base par {@link JwtSecretCipher}.
+ */
+@Component
+public class JwtKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyStore.class);
+
+    private static final int SECRET_BYTES = 64; // HS256 exige au moins 32 octets
+    private static final long MIN_RELOAD_INTERVAL_MS = 1000;
+
+    private final JwtSigningKeyRepository signingKeyRepository;
+    private final JwtVerifier jwtVerifier;
+    private final JwtSecretCipher secretCipher;
+    private final long jwtExpirationMs;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private volatile long lastReload;
+
+    public JwtKeyStore(JwtSigningKeyRepository signingKeyRepository, JwtVerifier jwtVerifier,
+                       JwtSecretCipher secretCipher, @Value("${hgs.siags.jwtExpirationMs}") long jwtExpirationMs) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.jwtVerifier = jwtVerifier;
+        this.secretCipher = secretCipher;
+        this.jwtExpirationMs = jwtExpirationMs;
+    }
+
+    @PostConstruct
+    void init() {
+        encryptLegacySecrets();
+        reload();
+        jwtVerifier.setUnknownKeyHandler(this::reloadForUnknownKey);
+    }
+
+    /**
+     * Recharge la clé active et les clés retirées dont les jetons peuvent encore être valides.
+     */
+    @Scheduled(fixedDelayString = "${hgs.siags.jwtKeys.reloadIntervalMs:60000}")
+    public synchronized void reload() {
+        Instant cutoff = Instant.now().minusMillis(jwtExpirationMs);
+        List<JwtSigningKey> keys = signingKeyRepository.findUsableKeys(cutoff);
+        Map<String, String> secrets = new HashMap<>();
+        String activeKid = null;
+        for (JwtSigningKey key : keys) {
+            try {
+                secrets.put(key.getKid(), secretCipher.decrypt(key.getKid(), key.getSecret()));
+            } catch (IllegalStateException e) {
+                logger.error("Clé de signature JWT {} ignorée.", key.getKid(), e);
+                continue;
+            }
+            if (key.isActive()) {
+                activeKid = key.getKid(); // Trié par date de création : la plus récente l'emporte
+            }
+        }
+        jwtVerifier.installKeys(secrets, activeKid);
+        lastReload = System.currentTimeMillis();
+        logger.debug("{} clé(s) de signature JWT chargée(s), clé active : {}", secrets.size(),
+                activeKid != null ? activeKid : JwtVerifier.DEFAULT_KID);
+    }
+
+    /**
+     * Crée une nouvelle clé active ; l'ancienne ne sert plus qu'à la vérification.
+     *
+     * @return Le kid de la nouvelle clé.
+     */
+    @Transactional
+    public String rotate() {
+        Instant now = Instant.now();
+        for (JwtSigningKey key : signingKeyRepository.findByActiveTrue()) {
+            key.setActive(false);
+            key.setRetiredAt(now);
+        }
+        byte[] secret = new byte[SECRET_BYTES];
+        secureRandom.nextBytes(secret);
+        String kid = UUID.randomUUID().toString();
+        signingKeyRepository.save(new JwtSigningKey(kid, secretCipher.encrypt(kid, Encoders.BASE64.encode(secret)), now));
+        AfterCommit.run(this::reload);
+        logger.info("Rotation de la clé de signature JWT : nouvelle clé {}", kid);
+        return kid;
+    }
+
+    // Clés créées avant le chiffrement des secrets : chiffrées une fois au démarrage
+    private void encryptLegacySecrets() {
+        List<JwtSigningKey> legacy = signingKeyRepository.findAll().stream()
+                .filter(key -> !secretCipher.isEncrypted(key.getSecret()))
+                .toList();
+        if (legacy.isEmpty()) {
+            return;
+        }
+        for (JwtSigningKey key : legacy) {
+            key.setSecret(secretCipher.encrypt(key.getKid(), key.getSecret()));
+        }
+        signingKeyRepository.saveAll(legacy);
+        logger.info("{} secret(s) de clé de signature JWT chiffré(s) en base.", legacy.size());
+    }
+
+    // Un kid inconnu déclenche un rechargement immédiat, limité à un par seconde contre les jetons forgés
+    private void reloadForUnknownKey(String kid) {
+        if (System.currentTimeMillis() - lastReload >= MIN_RELOAD_INTERVAL_MS) {
+            reload();
+        }
+    }
+}
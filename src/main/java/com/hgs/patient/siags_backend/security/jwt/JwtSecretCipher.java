@@ -0,0 +1,91 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Chiffrement (AES-256-GCM) des secrets de jwt_signing_keys, avec la clé hgs.siags.jwtKeys.encryptionKey :
+ * un accès en lecture à la base ne suffit plus à forger des jetons.
+ * <p>
+ * Format stocké : {@code v1:} suivi du Base64 de (IV de 12 octets, secret chiffré, tag). Le kid sert de
+ * donnée authentifiée : un secret recopié sur une autre ligne n'est pas accepté.
+ */
+@Component
+public class JwtSecretCipher {
+
+    static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public JwtSecretCipher(@Value("${hgs.siags.jwtKeys.encryptionKey}") String encryptionKey) {
+        byte[] keyBytes;
+        try {
+            keyBytes = Decoders.BASE64.decode(encryptionKey);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("hgs.siags.jwtKeys.encryptionKey doit être encodée en Base64.", e);
+        }
+        if (keyBytes.length != 32) {
+            throw new IllegalStateException("hgs.siags.jwtKeys.encryptionKey doit contenir 32 octets (AES-256), "
+                    + keyBytes.length + " reçus.");
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    /**
+     * @param secret Secret HMAC encodé en Base64.
+     * @return Valeur à stocker dans jwt_signing_keys.secret.
+     */
+    public String encrypt(String kid, String secret) {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] encrypted = cipher.doFinal(Decoders.BASE64.decode(secret));
+            byte[] stored = Arrays.copyOf(iv, IV_BYTES + encrypted.length);
+            System.arraycopy(encrypted, 0, stored, IV_BYTES, encrypted.length);
+            return PREFIX + Encoders.BASE64.encode(stored);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Chiffrement du secret de la clé JWT " + kid + " impossible.", e);
+        }
+    }
+
+    /**
+     * @param stored Valeur de jwt_signing_keys.secret ; une valeur non chiffrée (clé antérieure) est rendue telle quelle.
+     * @return Secret HMAC encodé en Base64.
+     */
+    public String decrypt(String kid, String stored) {
+        if (!isEncrypted(stored)) {
+            return stored;
+        }
+        byte[] bytes = Decoders.BASE64.decode(stored.substring(PREFIX.length()));
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return Encoders.BASE64.encode(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Déchiffrement du secret de la clé JWT " + kid
+                    + " impossible (hgs.siags.jwtKeys.encryptionKey modifiée ?).", e);
+        }
+    }
+
+    public boolean isEncrypted(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+}
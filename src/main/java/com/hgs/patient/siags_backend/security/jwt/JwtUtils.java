@@ -1,17 +1,20 @@
 package com.hgs.patient.siags_backend.security.jwt;
 
 import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Classe utilitaire pour la génération, la validation et l'extraction d'informations des tokens JWT.
@@ -21,12 +24,30 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${hgs.siags.jwtSecret}")
-    private String jwtSecret;
+    // Noms des revendications portées par le jeton
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_PERMISSIONS = "perms";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_EPOCH = "epoch";
+
+    private static final String ROLE_PREFIX = "ROLE_";
 
     @Value("${hgs.siags.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    // Époque globale : l'incrémenter dans la configuration invalide tous les jetons émis auparavant
+    @Value("${hgs.siags.jwtEpoch:1}")
+    private int jwtEpoch;
+
+    private final JwtVerifier jwtVerifier;
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    public JwtUtils(JwtVerifier jwtVerifier, TokenVersionRegistry tokenVersionRegistry) {
+        this.jwtVerifier = jwtVerifier;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+    }
+
     /**
      * Génère un token JWT à partir des informations d'authentification.
      *
@@ -34,33 +55,91 @@ public class JwtUtils {
      * @return Le token JWT généré.
      */
     public String generateJwtToken(Authentication authentication) {
-        UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+    }
+
+    /**
+     * Génère un token JWT pour un principal déjà construit (ex : lors d'un rafraîchissement).
+     *
+     * @param userPrincipal Le principal de l'utilisateur.
+     * @return Le token JWT généré.
+     */
+    public String generateJwtToken(UserDetailsImpl userPrincipal) {
+        List<String> authorities = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
 
+        JwtVerifier.KeySet keySet = jwtVerifier.currentKeySet();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keySet.activeKid()) // kid : clé à utiliser pour la vérification
+                .setId(UUID.randomUUID().toString()) // jti : permet de révoquer ce jeton précis (déconnexion)
                 .setSubject((userPrincipal.getUsername()))
+                .claim(CLAIM_USER_ID, userPrincipal.getId())
+                .claim(CLAIM_ROLES, authorities.stream().filter(a -> a.startsWith(ROLE_PREFIX)).toList())
+                .claim(CLAIM_PERMISSIONS, authorities.stream().filter(a -> !a.startsWith(ROLE_PREFIX)).toList())
+                .claim(CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
+                .claim(CLAIM_EPOCH, jwtEpoch)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key(), SignatureAlgorithm.HS256)
+                .signWith(keySet.activeKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key key() {
-        // La clé doit être décodée en Base64.
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
     /**
      * Récupère le nom d'utilisateur à partir du token JWT.
      * @param token Le token JWT.
      * @return Le nom d'utilisateur.
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims claims = jwtVerifier.verify(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * Indique si le token porte les revendications nécessaires à l'authentification sans état.
+     * Les jetons émis avant l'ajout de ces revendications passent par le chargement en base.
+     */
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(CLAIM_USER_ID) != null && claims.get(CLAIM_TOKEN_VERSION) != null;
+    }
+
+    /**
+     * Vérifie que le token appartient à l'époque courante et que sa version n'a pas été
+     * dépassée par un changement de rôles ou de mot de passe de l'utilisateur.
+     */
+    public boolean isTokenCurrent(Claims claims) {
+        if (!hasPrincipalClaims(claims)) {
+            return true;
+        }
+        Integer epoch = claims.get(CLAIM_EPOCH, Integer.class);
+        if (epoch == null || epoch != jwtEpoch) {
+            logger.warn("Token JWT d'une époque révolue pour {}", claims.getSubject());
+            return false;
+        }
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        int version = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        if (version < tokenVersionRegistry.currentVersion(userId)) {
+            logger.warn("Token JWT révoqué (version {}) pour {}", version, claims.getSubject());
+            return false;
+        }
+        // Jeton signé après une révocation faite ailleurs : les versions antérieures sont déjà caduques
+        tokenVersionRegistry.observe(userId, version);
+        return true;
+    }
+
+    /**
+     * Construit le principal directement à partir des revendications vérifiées du token.
+     */
+    @SuppressWarnings("unchecked")
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        List<String> roles = claims.get(CLAIM_ROLES, List.class);
+        List<String> permissions = claims.get(CLAIM_PERMISSIONS, List.class);
+        return UserDetailsImpl.fromTokenClaims(
+                claims.get(CLAIM_USER_ID, Long.class),
+                claims.getSubject(),
+                roles != null ? roles : List.of(),
+                permissions != null ? permissions : List.of(),
+                claims.get(CLAIM_TOKEN_VERSION, Integer.class));
     }
 
     /**
@@ -69,18 +148,6 @@ public class JwtUtils {
      * @return true si le token est valide, false sinon.
      */
     public boolean validateJwtToken(String authToken) {
-        try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Token JWT invalide : {}", e.getMessage());
-        } catch (ExpiredJwtException e) {
-            logger.error("Token JWT expiré : {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("Token JWT non supporté : {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("La chaîne de revendications JWT est vide : {}", e.getMessage());
-        }
-        return false;
+        return jwtVerifier.verify(authToken) != null;
     }
 }
@@ -0,0 +1,147 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Vérification des tokens JWT en une seule passe.
+ * Les clés HMAC sont décodées une seule fois et rangées dans une table immuable indexée par kid,
+ * remplacée d'un bloc lors d'une rotation ; le parseur, thread-safe, est partagé par toutes les requêtes.
+ */
+@Component
+public class JwtVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+    // Kid de la clé issue de hgs.siags.jwtSecret ; aussi utilisée pour les jetons sans en-tête kid
+    public static final String DEFAULT_KID = "default";
+
+    private final Key defaultKey;
+    private final JwtParser parser;
+    private volatile KeySet keySet;
+
+    // Appelé lorsqu'un jeton porte un kid inconnu (clé créée sur une autre instance depuis le dernier chargement)
+    private volatile Consumer<String> unknownKeyHandler;
+
+    public JwtVerifier(@Value("${hgs.siags.jwtSecret}") String jwtSecret) {
+        // La clé doit être décodée en Base64.
+        this.defaultKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.keySet = new KeySet(Map.of(DEFAULT_KID, defaultKey), DEFAULT_KID);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Remplace le jeu de clés. La clé par défaut reste toujours disponible en vérification.
+     *
+     * @param secrets   Secrets Base64 indexés par kid.
+     * @param activeKid Kid de la clé de signature, ou null pour la clé par défaut.
+     */
+    public void installKeys(Map<String, String> secrets, String activeKid) {
+        Map<String, Key> keys = new HashMap<>();
+        KeySet current = keySet;
+        secrets.forEach((kid, secret) -> {
+            // Ne décode que les nouvelles clés
+            Key existing = current.keys.get(kid);
+            keys.put(kid, existing != null ? existing : Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)));
+        });
+        keys.put(DEFAULT_KID, defaultKey);
+        String active = activeKid != null && keys.containsKey(activeKid) ? activeKid : DEFAULT_KID;
+        this.keySet = new KeySet(Map.copyOf(keys), active);
+    }
+
+    public void setUnknownKeyHandler(Consumer<String> unknownKeyHandler) {
+        this.unknownKeyHandler = unknownKeyHandler;
+    }
+
+    /**
+     * Kid et clé de signature actifs, lus sur un même instantané.
+     */
+    KeySet currentKeySet() {
+        return keySet;
+    }
+
+    /**
+     * Clé utilisée pour signer les nouveaux tokens.
+     */
+    Key getSigningKey() {
+        return keySet.activeKey();
+    }
+
+    private Key resolveKey(String kid) {
+        String id = kid != null ? kid : DEFAULT_KID;
+        Key key = keySet.keys.get(id);
+        if (key == null && unknownKeyHandler != null) {
+            unknownKeyHandler.accept(id);
+            key = keySet.keys.get(id);
+        }
+        if (key == null) {
+            throw new UnsupportedJwtException("Clé de signature inconnue : " + id);
+        }
+        return key;
+    }
+
+    /**
+     * Instantané immuable des clés connues.
+     */
+    static final class KeySet {
+        private final Map<String, Key> keys;
+        private final String activeKid;
+
+        KeySet(Map<String, Key> keys, String activeKid) {
+            this.keys = keys;
+            this.activeKid = activeKid;
+        }
+
+        String activeKid() {
+            return activeKid;
+        }
+
+        Key activeKey() {
+            return keys.get(activeKid);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du token et retourne ses revendications.
+     *
+     * @param token Le token JWT.
+     * @return Les revendications du token, ou null si le token est invalide.
+     */
+    public Claims verify(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (MalformedJwtException e) {
+            logger.error("Token JWT invalide : {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            logger.error("Token JWT expiré : {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            logger.error("Token JWT non supporté : {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.error("La chaîne de revendications JWT est vide : {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Signature du token JWT invalide : {}", e.getMessage());
+        }
+        return null;
+    }
+}
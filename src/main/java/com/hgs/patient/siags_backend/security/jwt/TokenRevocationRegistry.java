@@ -0,0 +1,161 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import com.hgs.patient.siags_backend.model.RevokedToken;
+import com.hgs.patient.siags_backend.repository.RevokedTokenRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import com.hgs.patient.siags_backend.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des jetons d'accès révoqués (déconnexion), consulté à chaque requête par {@link AuthTokenFilter}.
+ * <p>
+ * Un filtre de Bloom écarte en quelques lectures de bits la quasi-totalité des jetons non révoqués ;
+ * l'ensemble exact (jti vers expiration) ne sert qu'à lever les faux positifs.
+ * La table revoked_tokens est la source de vérité : rechargée au démarrage, relue périodiquement
+ * pour les révocations faites sur d'autres instances (délai borné par syncIntervalMs),
+ * et purgée des jetons expirés, le filtre étant alors reconstruit.
+ * <p>
+ * La même table porte les révocations au niveau d'un utilisateur (compte supprimé) sous une clé
+ * {@code user:<id>}, conservée le temps de vie maximal d'un jeton d'accès : aucune version de jeton
+ * ne subsiste en base pour propager la suppression aux autres instances.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int MIN_CAPACITY = 1024;
+    private static final String USER_PREFIX = "user:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long syncOverlapMs;
+    private final long accessTokenLifetimeMs;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>(); // jti -> expiration (ms)
+    private final Map<Long, Long> revokedUsers = new ConcurrentHashMap<>(); // id utilisateur -> expiration (ms)
+    private volatile BloomFilter bloomFilter;
+    private long bloomCapacity;
+    private volatile Instant lastSync;
+
+    public TokenRevocationRegistry(RevokedTokenRepository revokedTokenRepository,
+                                   @Value("${hgs.siags.revocation.syncIntervalMs:5000}") long syncIntervalMs,
+                                   @Value("${hgs.siags.jwtExpirationMs}") long accessTokenLifetimeMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.accessTokenLifetimeMs = accessTokenLifetimeMs;
+        // Recouvrement des fenêtres de synchronisation pour tolérer un léger décalage d'horloge entre instances
+        this.syncOverlapMs = 2 * syncIntervalMs;
+    }
+
+    @PostConstruct
+    void load() {
+        Instant now = Instant.now();
+        revokedTokenRepository.findByExpiresAtAfter(now)
+                .forEach(token -> track(token.getJti(), token.getExpiresAt().toEpochMilli()));
+        rebuildFilter();
+        lastSync = now;
+        logger.info("{} jeton(s) révoqué(s) chargé(s).", revoked.size());
+    }
+
+    /**
+     * Chemin critique : aucun accès à la base ni allocation.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        return revoked.containsKey(jti);
+    }
+
+    /**
+     * Indique si tous les jetons de l'utilisateur ont été révoqués (compte supprimé).
+     */
+    public boolean isUserRevoked(Long userId) {
+        return userId != null && !revokedUsers.isEmpty() && revokedUsers.containsKey(userId);
+    }
+
+    /**
+     * Révoque un jeton jusqu'à son expiration. Effectif localement dès la validation de la transaction.
+     */
+    @Transactional
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || !expiresAt.isAfter(Instant.now()) || revoked.containsKey(jti)) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti, expiresAt, Instant.now()));
+        AfterCommit.run(() -> add(jti, expiresAt.toEpochMilli()));
+    }
+
+    /**
+     * Révoque tous les jetons d'accès déjà émis pour un utilisateur dont le compte est supprimé,
+     * sur toutes les instances. Les identifiants n'étant pas réutilisés, l'entrée peut expirer
+     * avec le dernier jeton qui aurait pu être émis.
+     */
+    @Transactional
+    public void revokeUser(Long userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(accessTokenLifetimeMs);
+        String key = USER_PREFIX + userId;
+        revokedTokenRepository.save(new RevokedToken(key, expiresAt, now));
+        AfterCommit.run(() -> add(key, expiresAt.toEpochMilli()));
+    }
+
+    @Scheduled(fixedDelayString = "${hgs.siags.revocation.syncIntervalMs:5000}")
+    public void syncFromStore() {
+        Instant now = Instant.now();
+        Instant since = lastSync.minusMillis(syncOverlapMs);
+        for (RevokedToken token : revokedTokenRepository.findByRevokedAtAfter(since)) {
+            if (!revoked.containsKey(token.getJti())) {
+                add(token.getJti(), token.getExpiresAt().toEpochMilli());
+            }
+        }
+        lastSync = now;
+    }
+
+    @Scheduled(fixedDelayString = "${hgs.siags.revocation.pruneIntervalMs:600000}")
+    public void pruneExpired() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUsers.values().removeIf(expiresAt -> expiresAt < now);
+        if (revoked.size() != before) {
+            rebuildFilter();
+        }
+        revokedTokenRepository.deleteExpired(Instant.ofEpochMilli(now));
+    }
+
+    // Les écritures (rares) sont sérialisées pour qu'une reconstruction ne perde pas un ajout concurrent
+    private synchronized void add(String jti, long expiresAtMillis) {
+        track(jti, expiresAtMillis);
+        if (revoked.size() > bloomCapacity) {
+            rebuildFilter();
+        } else {
+            bloomFilter.put(jti);
+        }
+    }
+
+    private void track(String jti, long expiresAtMillis) {
+        revoked.put(jti, expiresAtMillis);
+        if (jti.startsWith(USER_PREFIX)) {
+            revokedUsers.put(Long.valueOf(jti.substring(USER_PREFIX.length())), expiresAtMillis);
+        }
+    }
+
+    private synchronized void rebuildFilter() {
+        long capacity = Math.max(MIN_CAPACITY, 2L * revoked.size());
+        BloomFilter filter = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        revoked.keySet().forEach(filter::put);
+        bloomCapacity = capacity;
+        bloomFilter = filter;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre en mémoire de la version de jeton courante de chaque utilisateur.
+ * Permet de rejeter les jetons émis avant un changement de rôles (ou une suppression)
+ * sans interroger la base de données à chaque requête.
+ * La colonne users.token_version reste la source de vérité : elle est relue périodiquement
+ * pour les changements faits sur d'autres instances (délai borné par hgs.siags.revocation.syncIntervalMs).
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    // Version attribuée à un utilisateur supprimé : aucun jeton ne peut plus l'atteindre
+    private static final int REVOKED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+
+    // Seules les versions non nulles sont conservées (la version par défaut est 0)
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        syncFromStore();
+        logger.info("{} version(s) de jeton chargée(s).", versions.size());
+    }
+
+    /**
+     * Réconcilie le registre avec la base. Les versions ne font que croître : une valeur locale plus récente
+     * (mise à jour après commit, suppression) n'est jamais abaissée.
+     */
+    @Scheduled(fixedDelayString = "${hgs.siags.revocation.syncIntervalMs:5000}")
+    public void syncFromStore() {
+        userRepository.findNonZeroTokenVersions()
+                .forEach(view -> versions.merge(view.getId(), view.getTokenVersion(), Math::max));
+    }
+
+    /**
+     * Retourne la version minimale qu'un jeton doit porter pour être accepté.
+     */
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Prend en compte la version portée par un jeton valide émis par une autre instance,
+     * sans attendre la prochaine réconciliation.
+     */
+    public void observe(Long userId, int version) {
+        if (version > currentVersion(userId)) {
+            versions.merge(userId, version, Math::max);
+        }
+    }
+
+    /**
+     * Enregistre la nouvelle version d'un utilisateur une fois la transaction courante validée,
+     * afin qu'un rollback ne rende pas invalides les jetons encore légitimes.
+     */
+    public void updateAfterCommit(Long userId, int version) {
+        AfterCommit.run(() -> versions.merge(userId, version, Math::max));
+    }
+
+    /**
+     * Invalide définitivement tous les jetons d'un utilisateur (ex : suppression du compte).
+     */
+    public void revokeAfterCommit(Long userId) {
+        AfterCommit.run(() -> versions.put(userId, REVOKED));
+    }
+}
@@ -0,0 +1,63 @@
+package com.hgs.patient.siags_backend.security.services;
+
+import com.hgs.patient.siags_backend.model.ERole;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index dense des noms d'autorités (rôles et permissions).
+ * Chaque nom reçoit une fois pour toutes un numéro de bit, ce qui permet à {@link UserDetailsImpl}
+ * de représenter ses autorités sous forme de BitSet et de répondre à {@code hasAuthority} en O(1).
+ * <p>
+ * Les numéros ne sont valables que dans le processus courant : ils ne doivent jamais être persistés
+ * ni transmis dans un jeton.
+ */
+public final class AuthorityIndex {
+
+    private static final Map<String, Integer> INDEX = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT = new AtomicInteger();
+
+    static {
+        // Les rôles sont connus à la compilation : ils occupent les premiers bits
+        for (ERole role : ERole.values()) {
+            indexOf(role.name());
+        }
+    }
+
+    private AuthorityIndex() {
+    }
+
+    /**
+     * Retourne le numéro de bit d'une autorité, en l'attribuant si le nom est nouveau.
+     */
+    public static int indexOf(String authority) {
+        Integer index = INDEX.get(authority);
+        if (index != null) {
+            return index;
+        }
+        return INDEX.computeIfAbsent(authority, name -> NEXT.getAndIncrement());
+    }
+
+    /**
+     * Retourne le numéro de bit d'une autorité sans l'attribuer, ou -1 si aucun principal ne la porte.
+     */
+    public static int lookup(String authority) {
+        Integer index = INDEX.get(authority);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Enregistre un lot d'autorités (ex : permissions créées par DataInitializer) afin que les numéros
+     * des autorités usuelles restent bas et contigus.
+     */
+    public static void registerAll(Collection<String> authorities) {
+        authorities.forEach(AuthorityIndex::indexOf);
+    }
+
+    public static int size() {
+        return NEXT.get();
+    }
+}
@@ -0,0 +1,315 @@
+package com.hgs.patient.siags_backend.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Suivi en mémoire des tentatives de connexion échouées.
+ * <p>
+ * Les échecs sont comptés sur une fenêtre glissante, sous un verrou choisi parmi un nombre fixe de verrous
+ * (lock striping) pour que des rafales sur des comptes différents ne se bloquent pas entre elles.
+ * La base n'est écrite qu'aux transitions verrouillage/déverrouillage, de manière différée (write-behind)
+ * sur un thread dédié qui conserve l'ordre des écritures. Les comptes verrouillés sont rechargés au démarrage.
+ * <p>
+ * Seuls les noms d'utilisateur existants ouvrent une fenêtre d'échecs : des noms inventés ne peuvent donc
+ * ni remplir les caches ni en évincer de vrais verrouillages. Un verrouillage évincé malgré tout reste en base
+ * et y est relu au prochain contrôle.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    private final UserRepository userRepository;
+    private final Clock clock;
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final Duration lockDuration;
+
+    private final ReentrantLock[] stripes;
+
+    // Échecs récents par nom d'utilisateur ; les entrées inactives expirent avec la fenêtre
+    private final Cache<String, FailureWindow> failures;
+
+    // Fin de verrouillage par nom d'utilisateur ; l'entrée expire exactement à la fin du verrouillage.
+    // Bornée elle aussi : au-delà, les verrouillages évincés ne sont plus connus que de la base
+    private final Cache<String, Instant> locks;
+
+    // Vrai dès qu'un verrouillage a été évincé pour cause de saturation : un absent du cache doit alors être relu en base
+    private volatile boolean locksEvicted;
+
+    private final ExecutorService writeBehind = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "login-lockout-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LoginAttemptTracker(UserRepository userRepository,
+                               @Value("${hgs.siags.lockout.maxAttempts:5}") int maxAttempts,
+                               @Value("${hgs.siags.lockout.windowMinutes:15}") long windowMinutes,
+                               @Value("${hgs.siags.lockout.lockMinutes:15}") long lockMinutes,
+                               @Value("${hgs.siags.lockout.stripes:64}") int stripeCount,
+                               @Value("${hgs.siags.lockout.maxTrackedUsers:100000}") long maxTrackedUsers) {
+        this(userRepository, Clock.systemUTC(), maxAttempts, windowMinutes, lockMinutes, stripeCount, maxTrackedUsers);
+    }
+
+    // Horloge fournie par les tests ; les expirations des caches suivent la même horloge
+    LoginAttemptTracker(UserRepository userRepository, Clock clock, int maxAttempts, long windowMinutes,
+                        long lockMinutes, int stripeCount, long maxTrackedUsers) {
+        this.userRepository = userRepository;
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.lockDuration = Duration.ofMinutes(lockMinutes);
+
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+
+        Ticker ticker = () -> TimeUnit.MILLISECONDS.toNanos(clock.millis());
+        this.failures = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxTrackedUsers)
+                .expireAfterAccess(Duration.ofMillis(windowMillis))
+                .build();
+        this.locks = Caffeine.newBuilder()
+                .ticker(ticker)
+                .maximumSize(maxTrackedUsers)
+                .expireAfter(new Expiry<String, Instant>() {
+                    @Override
+                    public long expireAfterCreate(String username, Instant lockedUntil, long currentTime) {
+                        return Math.max(0, Duration.between(clock.instant(), lockedUntil).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Instant lockedUntil, long currentTime, long currentDuration) {
+                        return expireAfterCreate(username, lockedUntil, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Instant lockedUntil, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String username, Instant lockedUntil, RemovalCause cause) -> {
+                    if (username == null || !cause.wasEvicted()) {
+                        return;
+                    }
+                    if (cause == RemovalCause.SIZE) {
+                        // Éviction sous saturation : le verrouillage reste en base, où isLocked le relira
+                        locksEvicted = true;
+                        logger.warn("Verrouillage de '{}' retiré du cache (nombre maximal de comptes suivis atteint), conservé en base.", username);
+                        return;
+                    }
+                    // Fin naturelle du verrouillage : la base suit l'état en mémoire
+                    persistUnlock(username);
+                })
+                .build();
+    }
+
+    /**
+     * Recharge les verrouillages encore actifs et libère en base ceux expirés pendant l'arrêt.
+     */
+    @PostConstruct
+    void loadLockedAccounts() {
+        Instant now = clock.instant();
+        int restored = 0;
+        for (UserRepository.LockedAccountView account : userRepository.findLockedAccounts()) {
+            if (restore(account, now)) {
+                restored++;
+            }
+        }
+        logger.info("{} compte(s) verrouillé(s) rechargé(s).", restored);
+    }
+
+    // Remet en cache un verrouillage lu en base s'il est encore actif, sinon le lève en base
+    private boolean restore(UserRepository.LockedAccountView account, Instant now) {
+        Instant lockedUntil = account.getLockTime() == null ? now
+                : account.getLockTime().atZone(ZoneId.systemDefault()).toInstant().plus(lockDuration);
+        if (lockedUntil.isAfter(now)) {
+            locks.put(account.getUsername(), lockedUntil);
+            return true;
+        }
+        persistUnlock(account.getUsername());
+        return false;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        writeBehind.shutdown();
+        if (!writeBehind.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Écritures de verrouillage non terminées à l'arrêt.");
+        }
+    }
+
+    /**
+     * Indique si le compte est verrouillé. Aucune requête en base, sauf si des verrouillages ont été
+     * évincés du cache : un compte absent du cache est alors vérifié en base.
+     */
+    public boolean isLocked(String username) {
+        Instant lockedUntil = locks.getIfPresent(username);
+        if (lockedUntil == null) {
+            return locksEvicted && userRepository.findLockedAccount(username)
+                    .map(account -> restore(account, clock.instant()))
+                    .orElse(false);
+        }
+        if (lockedUntil.isAfter(clock.instant())) {
+            return true;
+        }
+        // Expiré mais pas encore purgé par le cache
+        if (locks.asMap().remove(username, lockedUntil)) {
+            persistUnlock(username);
+        }
+        return false;
+    }
+
+    /**
+     * Enregistre un échec de connexion.
+     *
+     * @return true si cet échec a provoqué le verrouillage du compte.
+     */
+    public boolean recordFailure(String username) {
+        long now = clock.millis();
+        ReentrantLock lock = stripeFor(username);
+        lock.lock();
+        try {
+            if (isLocked(username)) {
+                return false;
+            }
+            // Pas de fenêtre pour un nom inconnu : il ne peut ni être verrouillé ni occuper les caches
+            if (failures.getIfPresent(username) == null && !Boolean.TRUE.equals(userRepository.existsByUsername(username))) {
+                return false;
+            }
+            FailureWindow window = failures.get(username, key -> new FailureWindow(maxAttempts));
+            int count = window.record(now, now - windowMillis);
+            if (count < maxAttempts) {
+                return false;
+            }
+            failures.invalidate(username);
+            Instant lockedAt = Instant.ofEpochMilli(now);
+            locks.put(username, lockedAt.plus(lockDuration));
+            persistLock(username, count, LocalDateTime.ofInstant(lockedAt, ZoneId.systemDefault()));
+            logger.warn("Compte '{}' verrouillé après {} tentatives échouées.", username, count);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Efface les échecs enregistrés après une connexion réussie.
+     */
+    public void recordSuccess(String username) {
+        failures.invalidate(username);
+    }
+
+    public int getFailedAttempts(String username) {
+        FailureWindow window = failures.getIfPresent(username);
+        if (window == null) {
+            return 0;
+        }
+        ReentrantLock lock = stripeFor(username);
+        lock.lock();
+        try {
+            return window.count(clock.millis() - windowMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(String username) {
+        int hash = username.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+
+    private void persistLock(String username, int attempts, LocalDateTime lockTime) {
+        submit(() -> {
+            try {
+                userRepository.lockAccount(username, attempts, lockTime);
+            } catch (RuntimeException e) {
+                logger.error("Échec de l'enregistrement du verrouillage de '{}' : {}", username, e.getMessage());
+            }
+        });
+    }
+
+    private void persistUnlock(String username) {
+        submit(() -> {
+            try {
+                userRepository.unlockAccount(username);
+            } catch (RuntimeException e) {
+                logger.error("Échec de l'enregistrement du déverrouillage de '{}' : {}", username, e.getMessage());
+            }
+        });
+    }
+
+    private void submit(Runnable write) {
+        try {
+            writeBehind.execute(write);
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours : l'état sera recalculé depuis la base au prochain démarrage
+            logger.warn("Écriture de verrouillage ignorée pendant l'arrêt.");
+        }
+    }
+
+    /**
+     * Horodatages des derniers échecs dans un tampon circulaire de taille maxAttempts.
+     * Accès protégé par le verrou de la bande du nom d'utilisateur.
+     */
+    private static final class FailureWindow {
+        private final long[] timestamps;
+        private int head;
+        private int size;
+
+        FailureWindow(int capacity) {
+            this.timestamps = new long[capacity];
+        }
+
+        int record(long now, long windowStart) {
+            evictBefore(windowStart);
+            timestamps[(head + size) % timestamps.length] = now;
+            if (size < timestamps.length) {
+                size++;
+            } else {
+                head = (head + 1) % timestamps.length;
+            }
+            return size;
+        }
+
+        int count(long windowStart) {
+            evictBefore(windowStart);
+            return size;
+        }
+
+        private void evictBefore(long windowStart) {
+            while (size > 0 && timestamps[head] < windowStart) {
+                head = (head + 1) % timestamps.length;
+                size--;
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -24,13 +25,27 @@ public class UserDetailsImpl implements UserDetails {
 
     private final Collection<? extends GrantedAuthority> authorities;
 
+    // Autorités indexées par AuthorityIndex ; les numéros étant propres au processus,
+    // le BitSet n'est pas sérialisé et se recalcule au besoin.
+    private transient volatile BitSet authorityBits;
+
+    // Version des jetons de l'utilisateur au moment de la construction du principal
+    private final int tokenVersion;
+
     public UserDetailsImpl(Long id, String username, String email, String password, // Changé l'ordre pour email/password
                            Collection<? extends GrantedAuthority> authorities) {
+        this(id, username, email, password, authorities, 0);
+    }
+
+    public UserDetailsImpl(Long id, String username, String email, String password,
+                           Collection<? extends GrantedAuthority> authorities, int tokenVersion) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
+        this.tokenVersion = tokenVersion;
+        this.authorityBits = indexAuthorities(authorities);
     }
 
     // Construit un objet UserDetailsImpl à partir de notre entité User
@@ -58,7 +73,28 @@ public class UserDetailsImpl implements UserDetails {
                 user.getUsername(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities);
+                authorities,
+                user.getTokenVersion());
+    }
+
+    // Construit un principal à partir des revendications d'un jeton JWT déjà vérifié, sans accès à la base.
+    // Le mot de passe et l'email ne sont pas transportés dans le jeton.
+    public static UserDetailsImpl fromTokenClaims(Long id, String username, Collection<String> roles,
+                                                  Collection<String> permissions, int tokenVersion) {
+        List<GrantedAuthority> authorities = new java.util.ArrayList<>(roles.size() + permissions.size());
+        roles.forEach(role -> authorities.add(new SimpleGrantedAuthority(role)));
+        permissions.forEach(permission -> authorities.add(new SimpleGrantedAuthority(permission)));
+        return new UserDetailsImpl(id, username, null, null, authorities, tokenVersion);
+    }
+
+    private static BitSet indexAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        BitSet bits = new BitSet(AuthorityIndex.size());
+        for (GrantedAuthority authority : authorities) {
+            if (authority.getAuthority() != null) {
+                bits.set(AuthorityIndex.indexOf(authority.getAuthority()));
+            }
+        }
+        return bits;
     }
 
     @Override
@@ -66,6 +102,22 @@ public class UserDetailsImpl implements UserDetails {
         return authorities;
     }
 
+    /**
+     * Vérifie en O(1) si le principal porte l'autorité donnée (rôle complet ou permission).
+     */
+    public boolean hasAuthority(String authority) {
+        int index = AuthorityIndex.lookup(authority);
+        if (index < 0) {
+            return false;
+        }
+        BitSet bits = authorityBits;
+        if (bits == null) {
+            bits = indexAuthorities(authorities);
+            authorityBits = bits;
+        }
+        return bits.get(index);
+    }
+
     public Long getId() {
         return id;
     }
@@ -74,6 +126,10 @@ public class UserDetailsImpl implements UserDetails {
         return email;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
     @Override
     public String getPassword() {
         return password;
@@ -1,83 +1,134 @@
 package com.hgs.patient.siags_backend.security.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.hgs.patient.siags_backend.model.User;
 import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
-    private final long LOCK_TIME_DURATION_MINUTES = 15; // Durée du verrouillage en minutes
-    private final int MAX_FAILED_ATTEMPTS = 5; // Nombre max de tentatives échouées
+    private final LoginAttemptTracker loginAttemptTracker; // Tentatives échouées et verrouillages, en mémoire
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    // Cache borné (taille et durée de vie) des principaux déjà construits, indexé par nom d'utilisateur.
+    // Null lorsque le cache est désactivé.
+    private final Cache<String, UserDetailsImpl> principalCache;
+    private final Counter invalidations;
+
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  LoginAttemptTracker loginAttemptTracker,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${hgs.siags.principalCache.enabled:true}") boolean cacheEnabled,
+                                  @Value("${hgs.siags.principalCache.maxSize:1000}") long maxSize,
+                                  @Value("${hgs.siags.principalCache.ttlSeconds:300}") long ttlSeconds) {
         this.userRepository = userRepository;
+        this.loginAttemptTracker = loginAttemptTracker;
+        this.invalidations = Counter.builder("siags.principal.cache.invalidations")
+                .description("Principaux retirés du cache suite à une modification d'utilisateur ou de rôle")
+                .register(meterRegistry);
+
+        if (cacheEnabled) {
+            this.principalCache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                    .recordStats()
+                    .build();
+            // Expose requêtes (hit/miss), évictions et durée de chargement via l'actuator
+            CaffeineCacheMetrics.monitor(meterRegistry, principalCache, "principals");
+            Gauge.builder("siags.principal.cache.hit.ratio", principalCache, cache -> cache.stats().hitRate())
+                    .description("Taux de succès du cache des principaux")
+                    .register(meterRegistry);
+        } else {
+            this.principalCache = null;
+        }
     }
 
+    // Pas de @Transactional ici : un succès de cache ne doit pas ouvrir de transaction.
+    // Les rôles et permissions sont chargés en EAGER par findByUsername.
     @Override
-    @Transactional // Nécessaire si vous modifiez l'utilisateur après le chargement
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé avec le nom : " + username));
+        // Vérifié avant le cache : un principal en cache ne doit pas contourner un verrouillage
+        if (loginAttemptTracker.isLocked(username)) {
+            throw new LockedException("Votre compte est verrouillé en raison de trop de tentatives de connexion échouées. Veuillez réessayer plus tard.");
+        }
+        if (principalCache == null) {
+            return loadFromDatabase(username);
+        }
+        return principalCache.get(username, this::loadFromDatabase);
+    }
+
+    /**
+     * Appelé par DaoAuthenticationProvider après une connexion réussie lorsque le hachage stocké
+     * a été produit avec un coût BCrypt inférieur au coût configuré.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        evictUser(user.getUsername());
+        UserDetailsImpl current = (UserDetailsImpl) user;
+        return new UserDetailsImpl(current.getId(), current.getUsername(), current.getEmail(), newPassword,
+                current.getAuthorities(), current.getTokenVersion());
+    }
 
-        // Vérifier si le compte est verrouillé et si le temps de verrouillage est écoulé
-        if (!user.isAccountNonLocked()) {
-            if (user.getLockTime() != null && Duration.between(user.getLockTime(), LocalDateTime.now()).toMinutes() > LOCK_TIME_DURATION_MINUTES) {
-                user.setAccountNonLocked(true);
-                user.setLockTime(null);
-                user.setFailedAttempt(0);
-                userRepository.save(user); // Déverrouiller le compte
-            } else {
-                throw new LockedException("Votre compte est verrouillé en raison de trop de tentatives de connexion échouées. Veuillez réessayer plus tard.");
-            }
+    /**
+     * Retire un utilisateur du cache une fois la transaction courante validée.
+     */
+    public void evictUser(String username) {
+        if (principalCache != null && username != null) {
+            AfterCommit.run(() -> {
+                principalCache.invalidate(username);
+                invalidations.increment();
+            });
         }
+    }
+
+    /**
+     * Retire plusieurs utilisateurs du cache (ex : modification des permissions d'un rôle).
+     */
+    public void evictUsers(Collection<String> usernames) {
+        if (principalCache != null && !usernames.isEmpty()) {
+            AfterCommit.run(() -> {
+                principalCache.invalidateAll(usernames);
+                invalidations.increment(usernames.size());
+            });
+        }
+    }
+
+    private UserDetailsImpl loadFromDatabase(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé avec le nom : " + username));
 
         // Retourner votre implémentation de UserDetails (par exemple, UserDetailsImpl)
         return UserDetailsImpl.build(user);
     }
 
-    // Méthodes pour gérer les tentatives échouées et réussies
-    public void increaseFailedAttempts(User user) {
-        user.setFailedAttempt(user.getFailedAttempt() + 1);
-        if (user.getFailedAttempt() >= MAX_FAILED_ATTEMPTS) {
-            user.setAccountNonLocked(false);
-            user.setLockTime(LocalDateTime.now());
-        }
-        userRepository.save(user);
+    // Méthodes pour gérer les tentatives échouées et réussies.
+    // Aucune requête en base : la base n'est écrite qu'aux transitions de verrouillage (voir LoginAttemptTracker).
+    public void increaseFailedAttempts(String username) {
+        loginAttemptTracker.recordFailure(username);
     }
 
-    public void resetFailedAttempts(User user) {
-        if (user.getFailedAttempt() > 0) {
-            user.setFailedAttempt(0);
-            userRepository.save(user);
-        }
+    public void resetFailedAttempts(String username) {
+        loginAttemptTracker.recordSuccess(username);
     }
 
     public boolean isAccountLocked(String username) {
-        User user = userRepository.findByUsername(username).orElse(null);
-        if (user == null) {
-            return false;
-        }
-        // Gère le déverrouillage automatique si le temps est écoulé
-        if (!user.isAccountNonLocked()) {
-            if (user.getLockTime() != null && Duration.between(user.getLockTime(), LocalDateTime.now()).toMinutes() > LOCK_TIME_DURATION_MINUTES) {
-                user.setAccountNonLocked(true);
-                user.setLockTime(null);
-                user.setFailedAttempt(0);
-                userRepository.save(user);
-                return false; // Le compte est maintenant déverrouillé
-            }
-            return true; // Le compte est toujours verrouillé
-        }
-        return false;
+        return loginAttemptTracker.isLocked(username);
     }
-}
\ No newline at end of file
+}
@@ -1,33 +1,29 @@
 package com.hgs.patient.siags_backend.service;
 
-import com.hgs.patient.siags_backend.exception.ResourceNotFoundException;
 import com.hgs.patient.siags_backend.model.AuditAction;
-import com.hgs.patient.siags_backend.model.AuditLog;
 import com.hgs.patient.siags_backend.model.AuditResource;
-import com.hgs.patient.siags_backend.model.User;
-import com.hgs.patient.siags_backend.repository.AuditLogRepository;
-import com.hgs.patient.siags_backend.repository.UserRepository;
-import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import com.hgs.patient.siags_backend.service.audit.AuditActor;
+import com.hgs.patient.siags_backend.service.audit.AuditEvent;
+import com.hgs.patient.siags_backend.service.audit.AuditLogWriter;
+import com.hgs.patient.siags_backend.util.AfterCommit;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 /**
  * Service pour l'enregistrement des actions d'audit.
  * Permet d'enregistrer qui a fait quoi, quand et sur quelle ressource.
+ * L'écriture est asynchrone et groupée par lots (voir {@link AuditLogWriter}).
  */
 @Service
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
-    private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter;
 
     @Autowired
-    public AuditService(AuditLogRepository auditLogRepository, UserRepository userRepository) {
-        this.auditLogRepository = auditLogRepository;
-        this.userRepository = userRepository;
+    public AuditService(AuditLogWriter auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
     }
 
     /**
@@ -38,21 +34,19 @@ public class AuditService {
      * @param resourceId L'ID de la ressource.
      * @param details    Une description détaillée de l'action.
      */
-    @Transactional
     public void logAction(AuditAction action, AuditResource resource, Long resourceId, String details) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuditActor actor = AuditActor.current();
 
-        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl userDetails)) {
-            // Dans ce cas, l'action n'est pas effectuée par un utilisateur authentifié (ex: tâche planifiée)
-            // Nous pourrions loguer avec un utilisateur système ou simplement ne rien faire.
+        if (actor == null) {
+            // Ni utilisateur authentifié, ni traitement déclaré via AuditActor.runAs (ex: tâche planifiée)
             System.err.println("Aucun utilisateur authentifié pour l'audit.");
             return;
         }
 
-        User currentUser = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur d'audit non trouvé"));
-
-        AuditLog auditLog = new AuditLog(currentUser, action, resource, resourceId, details);
-        auditLogRepository.save(auditLog);
+        LocalDateTime now = LocalDateTime.now();
+        AuditEvent event = new AuditEvent(actor.getUserId(), actor.getUsername(), actor.getRoles(),
+                action, resource, resourceId, details, now, 1, now);
+        // Comme auparavant, une action annulée par un rollback n'est pas journalisée
+        AfterCommit.run(() -> auditLogWriter.enqueue(event));
     }
 }
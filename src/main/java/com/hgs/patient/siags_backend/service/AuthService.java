@@ -11,8 +11,10 @@ import com.hgs.patient.siags_backend.repository.RoleRepository;
 import com.hgs.patient.siags_backend.repository.UserRepository;
 import com.hgs.patient.siags_backend.security.jwt.JwtUtils;
 import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -46,6 +48,9 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
     /**
      * Authentifie un utilisateur et génère un token JWT.
      *
@@ -53,8 +58,15 @@ public class AuthService {
      * @return Une réponse JWT avec le token et les informations de l'utilisateur.
      */
     public JwtResponse authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+        } catch (BadCredentialsException e) {
+            userDetailsService.increaseFailedAttempts(loginRequest.getUsername());
+            throw e;
+        }
+        userDetailsService.resetFailedAttempts(loginRequest.getUsername());
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
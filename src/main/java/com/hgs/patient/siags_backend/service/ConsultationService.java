@@ -1,5 +1,6 @@
 package com.hgs.patient.siags_backend.service;
 
+import com.hgs.patient.siags_backend.config.ReportCacheConfig;
 import com.hgs.patient.siags_backend.dto.ConsultationCountByDoctorDTO;
 import com.hgs.patient.siags_backend.dto.ConsultationRequest;
 import com.hgs.patient.siags_backend.dto.ConsultationResponseDTO;
@@ -10,7 +11,9 @@ import com.hgs.patient.siags_backend.repository.ConsultationRepository;
 import com.hgs.patient.siags_backend.repository.PatientRepository;
 import com.hgs.patient.siags_backend.repository.UserRepository;
 import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import com.hgs.patient.siags_backend.util.DiagnosisNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -32,18 +36,24 @@ public class ConsultationService {
     private final UserRepository userRepository;
     private final AdmissionRepository admissionRepository; // NOUVEAU: Injection du repository d'admission
     private final AuditService auditService;
+    private final ReportRollupService reportRollupService;
+    private final UniquePatientSketchService uniquePatientSketchService;
 
     @Autowired
     public ConsultationService(ConsultationRepository consultationRepository,
                                PatientRepository patientRepository,
                                UserRepository userRepository,
                                AdmissionRepository admissionRepository, // NOUVEAU: Ajout de l'admissionRepository au constructeur
-                               AuditService auditService) {
+                               AuditService auditService,
+                               ReportRollupService reportRollupService,
+                               UniquePatientSketchService uniquePatientSketchService) {
         this.consultationRepository = consultationRepository;
         this.patientRepository = patientRepository;
         this.userRepository = userRepository;
         this.admissionRepository = admissionRepository;
         this.auditService = auditService;
+        this.reportRollupService = reportRollupService;
+        this.uniquePatientSketchService = uniquePatientSketchService;
     }
 
     // Méthode utilitaire pour mapper une entité Consultation à un ConsultationResponseDTO
@@ -86,6 +96,7 @@ public class ConsultationService {
      * La signature a été changée pour ne prendre que ConsultationRequest.
      */
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.CONSULTATION_REPORTS, allEntries = true) // Après validation (cache transactionnel)
     public ConsultationResponseDTO createConsultation(ConsultationRequest request) {
         // 1. Chercher l'admission associée
         Admission admission = admissionRepository.findById(request.getAdmissionId())
@@ -102,6 +113,7 @@ public class ConsultationService {
         consultation.setReasonForConsultation(request.getReasonForConsultation());
         consultation.setObservations(request.getObservations());
         consultation.setDiagnosis(request.getDiagnosis());
+        consultation.setDiagnosisKey(DiagnosisNormalizer.key(request.getDiagnosis()));
         consultation.setTreatmentPlan(request.getTreatmentPlan());
         consultation.setNotes(request.getNotes());
 
@@ -115,6 +127,8 @@ public class ConsultationService {
         consultation.setRecordedAt(LocalDateTime.now());
 
         Consultation savedConsultation = consultationRepository.save(consultation);
+        reportRollupService.consultationAdded(savedConsultation);
+        uniquePatientSketchService.consultationRecorded(savedConsultation);
 
         auditService.logAction(AuditAction.CREATE, AuditResource.CONSULTATION, savedConsultation.getId(), "Création d'une consultation pour le patient " + patient.getId());
 
@@ -162,18 +176,25 @@ public class ConsultationService {
 
     // Mettre à jour une consultation existante à partir d'un DTO de requête
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.CONSULTATION_REPORTS, allEntries = true)
     public ConsultationResponseDTO updateConsultation(Long id, ConsultationRequest request) {
         Consultation consultation = consultationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Consultation non trouvée avec l'ID : " + id));
 
+        String oldDiagnosis = consultation.getDiagnosis();
+
         // Mappage des champs du DTO de requête vers l'entité
         consultation.setReasonForConsultation(request.getReasonForConsultation());
         consultation.setObservations(request.getObservations());
         consultation.setDiagnosis(request.getDiagnosis());
+        consultation.setDiagnosisKey(DiagnosisNormalizer.key(request.getDiagnosis()));
         consultation.setTreatmentPlan(request.getTreatmentPlan());
         consultation.setNotes(request.getNotes());
 
         Consultation updatedConsultation = consultationRepository.save(consultation);
+        if (!Objects.equals(oldDiagnosis, updatedConsultation.getDiagnosis())) {
+            reportRollupService.consultationDiagnosisChanged(oldDiagnosis, updatedConsultation);
+        }
 
         auditService.logAction(AuditAction.UPDATE, AuditResource.CONSULTATION, updatedConsultation.getId(), "Mise à jour de la consultation " + id);
 
@@ -182,10 +203,12 @@ public class ConsultationService {
 
     // Supprimer une consultation
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.CONSULTATION_REPORTS, allEntries = true)
     public void deleteConsultation(Long id) {
         Consultation consultation = consultationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Consultation non trouvée avec l'ID : " + id));
         consultationRepository.delete(consultation);
+        reportRollupService.consultationRemoved(consultation);
 
         auditService.logAction(AuditAction.DELETE, AuditResource.CONSULTATION, id, "Suppression de la consultation " + id);
     }
@@ -0,0 +1,132 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hgs.patient.siags_backend.dto.DiagnosisFrequencyDTO;
+import com.hgs.patient.siags_backend.model.ReportMetric;
+import com.hgs.patient.siags_backend.util.SpaceSaving;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Diagnostics les plus fréquents sur une période, à partir des agrégats journaliers CONSULTATIONS_BY_DIAGNOSIS.
+ * <p>
+ * Les totaux de chaque mois sont lus en flux et résumés par un {@link SpaceSaving} de {@code capacity}
+ * compteurs, gardé en mémoire ; une période est servie en fusionnant les résumés de ses mois complets
+ * et ceux, non conservés, de ses mois partiels. La mémoire ne dépend donc pas du nombre de diagnostics
+ * distincts, et chaque fréquence est accompagnée de sa surestimation maximale (0 si le résumé est exact,
+ * c'est-à-dire tant qu'un mois compte au plus {@code capacity} diagnostics distincts).
+ * ReportRollupService invalide le résumé d'un mois après chaque écriture validée qui le modifie.
+ */
+@Service
+public class DiagnosisTopKService {
+
+    private static final String METRIC = ReportMetric.CONSULTATIONS_BY_DIAGNOSIS.name();
+
+    private static final String MONTH_TOTALS_SQL =
+            "SELECT dim_key, SUM(total) FROM report_daily_rollups WHERE metric = ? AND day >= ? AND day < ?"
+                    + " GROUP BY dim_key HAVING SUM(total) > 0";
+    private static final String FIRST_DAY_SQL = "SELECT MIN(day) FROM report_daily_rollups WHERE metric = ?";
+    private static final String LABELS_SQL =
+            "SELECT dim_key, MAX(dim_label) FROM report_daily_rollups WHERE metric = ? AND dim_key IN (%s) GROUP BY dim_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final Cache<YearMonth, SpaceSaving<String>> monthlySummaries; // Jamais modifiés une fois en cache
+
+    @Autowired
+    public DiagnosisTopKService(JdbcTemplate jdbcTemplate,
+                                @Value("${hgs.siags.reports.diagnosis.topKCapacity:500}") int capacity,
+                                @Value("${hgs.siags.reports.diagnosis.summaryTtlSeconds:300}") long summaryTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+        this.monthlySummaries = Caffeine.newBuilder()
+                .maximumSize(240) // 20 ans de mois
+                .expireAfterWrite(Duration.ofSeconds(summaryTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Les {@code limit} diagnostics les plus fréquents sur [start, end), du plus fréquent au moins fréquent.
+     *
+     * @param start Premier jour inclus, ou null depuis le premier agrégat.
+     * @param end   Dernier jour exclu, ou null jusqu'à aujourd'hui inclus.
+     */
+    public List<DiagnosisFrequencyDTO> top(LocalDate start, LocalDate end, int limit) {
+        LocalDate from = start != null ? start : firstDay();
+        LocalDate to = end != null ? end : LocalDate.now().plusDays(1);
+        if (from == null || !from.isBefore(to)) {
+            return List.of();
+        }
+
+        SpaceSaving<String> summary = new SpaceSaving<>(capacity);
+        for (YearMonth month = YearMonth.from(from); !month.atDay(1).isAfter(to.minusDays(1)); month = month.plusMonths(1)) {
+            LocalDate monthStart = month.atDay(1);
+            LocalDate monthEnd = month.plusMonths(1).atDay(1);
+            if (!from.isAfter(monthStart) && !to.isBefore(monthEnd)) {
+                summary.merge(monthlySummaries.get(month, m -> summarize(monthStart, monthEnd)));
+            } else {
+                summary.merge(summarize(from.isAfter(monthStart) ? from : monthStart, to.isBefore(monthEnd) ? to : monthEnd));
+            }
+        }
+
+        List<SpaceSaving.Entry<String>> top = summary.top(limit);
+        Map<String, String> labels = labels(top.stream().map(SpaceSaving.Entry::getKey).collect(Collectors.toList()));
+        return top.stream()
+                .map(entry -> new DiagnosisFrequencyDTO(labels.get(entry.getKey()), entry.getCount(), entry.getError()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Oublie le résumé du mois contenant ce jour (appelé après validation d'une écriture sur ses agrégats).
+     */
+    public void invalidate(LocalDate day) {
+        monthlySummaries.invalidate(YearMonth.from(day));
+    }
+
+    public void invalidateAll() {
+        monthlySummaries.invalidateAll();
+    }
+
+    // Les totaux par diagnostic sont lus ligne à ligne sans être matérialisés en liste
+    private SpaceSaving<String> summarize(LocalDate from, LocalDate to) {
+        SpaceSaving<String> summary = new SpaceSaving<>(capacity);
+        jdbcTemplate.query(MONTH_TOTALS_SQL, rs -> {
+            summary.offer(rs.getString(1), rs.getLong(2));
+        }, METRIC, Date.valueOf(from), Date.valueOf(to));
+        return summary;
+    }
+
+    private LocalDate firstDay() {
+        Date first = jdbcTemplate.queryForObject(FIRST_DAY_SQL, Date.class, METRIC);
+        return first != null ? first.toLocalDate() : null;
+    }
+
+    private Map<String, String> labels(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        List<Object> params = new ArrayList<>(keys.size() + 1);
+        params.add(METRIC);
+        params.addAll(keys);
+        Map<String, String> labels = new HashMap<>();
+        jdbcTemplate.query(String.format(LABELS_SQL, placeholders), rs -> {
+            labels.put(rs.getString(1), rs.getString(2));
+        }, params.toArray());
+        return labels;
+    }
+}
@@ -0,0 +1,161 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.hgs.patient.siags_backend.dto.JwtResponse;
+import com.hgs.patient.siags_backend.exception.TokenRefreshException;
+import com.hgs.patient.siags_backend.model.RefreshToken;
+import com.hgs.patient.siags_backend.model.User;
+import com.hgs.patient.siags_backend.repository.RefreshTokenRepository;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.security.jwt.JwtUtils;
+import com.hgs.patient.siags_backend.security.services.LoginAttemptTracker;
+import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Service de gestion des jetons de rafraîchissement (rotation à chaque usage, détection de réutilisation).
+ * Le rafraîchissement ne fait intervenir ni le PasswordEncoder ni l'AuthenticationManager :
+ * une empreinte SHA-256, une lecture par index unique, une mise à jour conditionnelle et une insertion.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final JwtUtils jwtUtils;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${hgs.siags.jwtRefreshExpirationMs}")
+    private long refreshExpirationMs;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               JwtUtils jwtUtils, LoginAttemptTracker loginAttemptTracker) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtUtils = jwtUtils;
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    /**
+     * Crée le premier jeton de rafraîchissement d'une nouvelle famille (après une connexion).
+     *
+     * @return Le jeton à remettre au client (jamais stocké en clair).
+     */
+    @Transactional
+    public String createRefreshToken(Long userId) {
+        return issue(userId, secureRandom.nextLong() & Long.MAX_VALUE);
+    }
+
+    /**
+     * Échange un jeton de rafraîchissement contre un nouveau jeton d'accès et un nouveau jeton de rafraîchissement.
+     * Présenter un jeton déjà utilisé révoque toute sa famille.
+     */
+    @Transactional(noRollbackFor = TokenRefreshException.class)
+    public JwtResponse refresh(String rawToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new TokenRefreshException("Jeton de rafraîchissement invalide."));
+
+        if (token.isRevoked()) {
+            throw new TokenRefreshException("Jeton de rafraîchissement révoqué.");
+        }
+        // Vérifiée avant markUsed : un jeton expiré est refusé sans être consommé (la transaction ne l'annulerait pas)
+        if (token.getExpiresAt().isBefore(Instant.now())) {
+            throw new TokenRefreshException("Jeton de rafraîchissement expiré. Veuillez vous reconnecter.");
+        }
+        // markUsed échoue aussi si une requête concurrente a consommé le jeton entre la lecture et la mise à jour
+        if (token.isUsed() || refreshTokenRepository.markUsed(token.getId()) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            logger.warn("Réutilisation d'un jeton de rafraîchissement détectée pour l'utilisateur {} : famille révoquée.",
+                    token.getUserId());
+            throw new TokenRefreshException("Jeton de rafraîchissement déjà utilisé. Veuillez vous reconnecter.");
+        }
+
+        User user = userRepository.findById(token.getUserId())
+                .orElseThrow(() -> new TokenRefreshException("Utilisateur introuvable."));
+        if (loginAttemptTracker.isLocked(user.getUsername())) {
+            throw new TokenRefreshException("Compte verrouillé.");
+        }
+
+        // Rôles et permissions relus à chaque rafraîchissement : le nouveau jeton d'accès reflète l'état courant
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        String accessToken = jwtUtils.generateJwtToken(userDetails);
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        JwtResponse response = new JwtResponse(accessToken,
+                userDetails.getId(),
+                userDetails.getUsername(),
+                userDetails.getEmail(),
+                roles);
+        response.setRefreshToken(issue(user.getId(), token.getFamilyId()));
+        return response;
+    }
+
+    /**
+     * Révoque la famille d'un jeton de rafraîchissement (déconnexion). Un jeton inconnu est ignoré.
+     */
+    @Transactional
+    public void revokeToken(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * Révoque tous les jetons de rafraîchissement d'un utilisateur (changement de mot de passe, suppression).
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId);
+    }
+
+    /**
+     * Purge quotidienne des jetons expirés : la table ne contient que des jetons encore exploitables
+     * ou utiles à la détection de réutilisation.
+     */
+    @Scheduled(cron = "${hgs.siags.refreshTokenPurgeCron:0 0 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            logger.info("{} jeton(s) de rafraîchissement expiré(s) supprimé(s).", deleted);
+        }
+    }
+
+    private String issue(Long userId, Long familyId) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), userId, familyId,
+                Instant.now().plusMillis(refreshExpirationMs)));
+        return rawToken;
+    }
+
+    private static byte[] hash(String rawToken) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.hgs.patient.siags_backend.dto.DashboardDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Construit le tableau de bord en exécutant les rapports en parallèle, chacun sur un thread virtuel.
+ * <p>
+ * Toutes les requêtes partent ensemble et partagent la même échéance ({@code queryTimeoutMs} après
+ * le début de l'appel) : la réponse ne dépasse jamais ce délai. Une section en retard ou en erreur
+ * est abandonnée et signalée dans {@link DashboardDTO#getUnavailableSections()} ; les autres sont
+ * renvoyées normalement. Un sémaphore global limite le nombre de requêtes simultanées pour que les
+ * tableaux de bord n'accaparent pas le pool de connexions.
+ * <p>
+ * Une section abandonnée n'est pas interrompue : interrompre un thread bloqué dans une lecture JDBC
+ * fermerait la connexion. Chaque section s'exécute dans une transaction dont le délai est le reste de
+ * l'échéance ; Spring l'applique comme délai d'exécution de chaque requête, que la base annule d'elle-même.
+ */
+@Service
+public class ReportDashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportDashboardService.class);
+
+    private static final int DIAGNOSIS_LIMIT = 10; // Diagnostics les plus fréquents affichés, depuis le début de l'historique
+
+    private final ReportService reportService;
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long queryTimeoutNanos;
+    private final Counter unavailable;
+
+    @Autowired
+    public ReportDashboardService(ReportService reportService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${hgs.siags.reports.dashboard.queryTimeoutMs:2000}") long queryTimeoutMs,
+                                  @Value("${hgs.siags.reports.dashboard.maxConcurrency:4}") int maxConcurrency) {
+        this.reportService = reportService;
+        this.transactionManager = transactionManager;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("report-dashboard-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency);
+        this.queryTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+        this.unavailable = Counter.builder("siags.reports.dashboard.unavailable")
+                .description("Sections du tableau de bord abandonnées (délai dépassé ou erreur)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param year        Année du rapport mensuel des admissions.
+     * @param authorities Permissions de l'utilisateur : seules les sections autorisées sont calculées.
+     */
+    public DashboardDTO build(int year, Collection<String> authorities) {
+        long deadline = System.nanoTime() + queryTimeoutNanos;
+        DashboardDTO dashboard = new DashboardDTO();
+        List<Section<?>> sections = new ArrayList<>();
+
+        if (authorities.contains("REPORT_READ_PATIENT")) {
+            sections.add(submit("totalPatients", reportService::getTotalPatientsCount, dashboard::setTotalPatients, deadline));
+            sections.add(submit("patientsByGender", reportService::getPatientGenderDistribution, dashboard::setPatientsByGender, deadline));
+        }
+        if (authorities.contains("REPORT_READ_ADMISSION")) {
+            sections.add(submit("totalAdmissions", reportService::getTotalAdmissionsCount, dashboard::setTotalAdmissions, deadline));
+            sections.add(submit("admissionsByDepartment", reportService::getAdmissionCountByDepartment, dashboard::setAdmissionsByDepartment, deadline));
+            sections.add(submit("monthlyAdmissions", () -> reportService.getMonthlyAdmissionCountForYear(year), dashboard::setMonthlyAdmissions, deadline));
+        }
+        if (authorities.contains("REPORT_READ_CONSULTATION")) {
+            sections.add(submit("totalConsultations", reportService::getTotalConsultationsCount, dashboard::setTotalConsultations, deadline));
+            sections.add(submit("consultationsByDoctor", reportService::getConsultationCountByDoctor, dashboard::setConsultationsByDoctor, deadline));
+            sections.add(submit("diagnosisFrequency", () -> reportService.getDiagnosisFrequency(null, null, DIAGNOSIS_LIMIT), dashboard::setDiagnosisFrequency, deadline));
+        }
+
+        for (Section<?> section : sections) {
+            if (!section.collect(deadline)) {
+                dashboard.getUnavailableSections().add(section.name);
+                unavailable.increment();
+            }
+        }
+        return dashboard;
+    }
+
+    private <T> Section<T> submit(String name, Supplier<T> query, Consumer<T> setter, long deadline) {
+        Future<T> future = executor.submit(() -> {
+            // L'attente d'une place compte dans le délai de la section
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("Aucune place disponible avant l'échéance");
+            }
+            try {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw new TimeoutException("Échéance atteinte avant l'exécution");
+                }
+                // Délai en secondes (arrondi au-dessus) : la requête est annulée au plus tard une seconde après l'échéance
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setReadOnly(true);
+                transaction.setTimeout((int) Math.max(1, (remainingNanos + 999_999_999L) / 1_000_000_000L));
+                return transaction.execute(status -> query.get());
+            } finally {
+                permits.release();
+            }
+        });
+        return new Section<>(name, future, setter);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private static final class Section<T> {
+        private final String name;
+        private final Future<T> future;
+        private final Consumer<T> setter;
+
+        private Section(String name, Future<T> future, Consumer<T> setter) {
+            this.name = name;
+            this.future = future;
+            this.setter = setter;
+        }
+
+        // Attend le résultat jusqu'à l'échéance commune ; false si la section est abandonnée
+        boolean collect(long deadline) {
+            try {
+                setter.accept(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                return true;
+            } catch (TimeoutException e) {
+                // Sans interruption : la requête en cours s'arrête à son propre délai et sa connexion reste valide
+                future.cancel(false);
+                logger.warn("Tableau de bord : section {} abandonnée, délai dépassé.", name);
+            } catch (ExecutionException e) {
+                logger.warn("Tableau de bord : échec de la section {} : {}", name, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                future.cancel(false);
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.hgs.patient.siags_backend.config.ReportCacheConfig;
+import com.hgs.patient.siags_backend.model.*;
+import com.hgs.patient.siags_backend.repository.ReportDailyRollupRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import com.hgs.patient.siags_backend.util.DatabaseLock;
+import com.hgs.patient.siags_backend.util.DiagnosisNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintenance incrémentale des agrégats journaliers de reporting (table report_daily_rollups).
+ * <p>
+ * Chaque écriture d'admission, de consultation ou de patient ajuste les compteurs concernés par un
+ * upsert natif, dans la même transaction : un rollback annule aussi l'ajustement, et les rapports
+ * restent exacts sans relire les tables de base. {@link #rebuild(LocalDate, LocalDate)} recalcule
+ * une période à partir des tables de base (reprise de l'historique, correction après import direct en base).
+ */
+@Service
+public class ReportRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportRollupService.class);
+
+    // Jour attribué aux patients créés avant l'enregistrement de createdAt
+    static final LocalDate UNKNOWN_DAY = LocalDate.of(1970, 1, 1);
+    private static final LocalDate END_OF_TIME = LocalDate.of(9999, 12, 31);
+
+    private static final String INSERT = "INSERT INTO report_daily_rollups (metric, day, dim_key, dim_label, total) ";
+
+    private static final String REBUILD_ADMISSIONS_BY_DEPARTMENT = INSERT
+            + "SELECT 'ADMISSIONS_BY_DEPARTMENT', DATE(a.admission_date), CAST(a.department_id AS CHAR), NULL, COUNT(*)"
+            + " FROM admissions a WHERE a.department_id IS NOT NULL AND a.admission_date >= ? AND a.admission_date < ?"
+            + " GROUP BY DATE(a.admission_date), a.department_id";
+
+    private static final String REBUILD_CONSULTATIONS_BY_DOCTOR = INSERT
+            + "SELECT 'CONSULTATIONS_BY_DOCTOR', DATE(c.consultation_date), CAST(c.doctor_id AS CHAR), NULL, COUNT(*)"
+            + " FROM consultations c WHERE c.consultation_date >= ? AND c.consultation_date < ?"
+            + " GROUP BY DATE(c.consultation_date), c.doctor_id";
+
+    // Clé normalisée enregistrée avec la consultation (DiagnosisNormalizer) ; libellé = une des saisies du diagnostic
+    private static final String REBUILD_CONSULTATIONS_BY_DIAGNOSIS = INSERT
+            + "SELECT 'CONSULTATIONS_BY_DIAGNOSIS', DATE(c.consultation_date), c.diagnosis_key, MIN(c.diagnosis), COUNT(*)"
+            + " FROM consultations c WHERE c.diagnosis_key IS NOT NULL"
+            + " AND c.consultation_date >= ? AND c.consultation_date < ?"
+            + " GROUP BY DATE(c.consultation_date), c.diagnosis_key";
+
+    private static final String REBUILD_PATIENTS_BY_GENDER = INSERT
+            + "SELECT 'PATIENTS_BY_GENDER', DATE(COALESCE(p.created_at, '1970-01-01')), COALESCE(p.gender, ''), MAX(p.gender), COUNT(*)"
+            + " FROM patients p WHERE COALESCE(p.created_at, '1970-01-01') >= ? AND COALESCE(p.created_at, '1970-01-01') < ?"
+            + " GROUP BY DATE(COALESCE(p.created_at, '1970-01-01')), COALESCE(p.gender, '')";
+
+    // Consultations enregistrées avant l'introduction de diagnosis_key, parcourues par identifiant croissant
+    private static final String MISSING_DIAGNOSIS_KEYS = "SELECT id, diagnosis FROM consultations"
+            + " WHERE diagnosis_key IS NULL AND diagnosis IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+    private static final String SET_DIAGNOSIS_KEY = "UPDATE consultations SET diagnosis_key = ? WHERE id = ?";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final String BACKFILL_LOCK = "siags.reports.rollups.backfill";
+
+    // Caches des rapports servis à partir des agrégats
+    private static final String[] REPORT_CACHES = {ReportCacheConfig.PATIENT_REPORTS, ReportCacheConfig.ADMISSION_REPORTS,
+            ReportCacheConfig.CONSULTATION_REPORTS};
+
+    private final ReportDailyRollupRepository rollupRepository;
+    private final DiagnosisTopKService diagnosisTopKService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public ReportRollupService(ReportDailyRollupRepository rollupRepository,
+                               DiagnosisTopKService diagnosisTopKService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               CacheManager cacheManager) {
+        this.rollupRepository = rollupRepository;
+        this.diagnosisTopKService = diagnosisTopKService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+    }
+
+    // --- Ajustements incrémentaux (toujours dans la transaction de l'écriture métier) ---
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void admissionAdded(Admission admission) {
+        adjustAdmission(admission.getAdmissionDate(), admission.getAssignedDepartment(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void admissionRemoved(Admission admission) {
+        adjustAdmission(admission.getAdmissionDate(), admission.getAssignedDepartment(), -1);
+    }
+
+    /**
+     * Déplace une admission d'un jour ou d'un département à l'autre.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void admissionMoved(LocalDateTime oldDate, Department oldDepartment, Admission admission) {
+        adjustAdmission(oldDate, oldDepartment, -1);
+        adjustAdmission(admission.getAdmissionDate(), admission.getAssignedDepartment(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consultationAdded(Consultation consultation) {
+        adjustConsultation(consultation.getConsultationDate(), consultation.getDoctor(), consultation.getDiagnosis(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consultationRemoved(Consultation consultation) {
+        adjustConsultation(consultation.getConsultationDate(), consultation.getDoctor(), consultation.getDiagnosis(), -1);
+    }
+
+    /**
+     * Reporte le changement de diagnostic d'une consultation.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consultationDiagnosisChanged(String oldDiagnosis, Consultation consultation) {
+        adjustDiagnosis(consultation.getConsultationDate(), oldDiagnosis, -1);
+        adjustDiagnosis(consultation.getConsultationDate(), consultation.getDiagnosis(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void patientAdded(Patient patient) {
+        adjustGender(patient.getCreatedAt(), patient.getGender(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void patientRemoved(Patient patient) {
+        adjustGender(patient.getCreatedAt(), patient.getGender(), -1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void patientGenderChanged(String oldGender, Patient patient) {
+        adjustGender(patient.getCreatedAt(), oldGender, -1);
+        adjustGender(patient.getCreatedAt(), patient.getGender(), 1);
+    }
+
+    private void adjustAdmission(LocalDateTime date, Department department, long delta) {
+        // Comme l'ancien rapport (jointure interne), une admission sans département n'est pas comptée
+        if (date == null || department == null) {
+            return;
+        }
+        increment(ReportMetric.ADMISSIONS_BY_DEPARTMENT, date.toLocalDate(), department.getId().toString(), null, delta);
+    }
+
+    private void adjustConsultation(LocalDateTime date, User doctor, String diagnosis, long delta) {
+        if (date == null) {
+            return;
+        }
+        if (doctor != null) {
+            increment(ReportMetric.CONSULTATIONS_BY_DOCTOR, date.toLocalDate(), doctor.getId().toString(), null, delta);
+        }
+        adjustDiagnosis(date, diagnosis, delta);
+    }
+
+    private void adjustDiagnosis(LocalDateTime date, String diagnosis, long delta) {
+        String key = DiagnosisNormalizer.key(diagnosis);
+        if (date == null || key == null) {
+            return;
+        }
+        LocalDate day = date.toLocalDate();
+        increment(ReportMetric.CONSULTATIONS_BY_DIAGNOSIS, day, key, diagnosis, delta);
+        AfterCommit.run(() -> diagnosisTopKService.invalidate(day));
+    }
+
+    private void adjustGender(LocalDateTime createdAt, String gender, long delta) {
+        LocalDate day = createdAt != null ? createdAt.toLocalDate() : UNKNOWN_DAY;
+        increment(ReportMetric.PATIENTS_BY_GENDER, day, gender != null ? gender : "", gender, delta);
+    }
+
+    private void increment(ReportMetric metric, LocalDate day, String dimKey, String dimLabel, long delta) {
+        rollupRepository.increment(metric.name(), day, dimKey, dimLabel, delta);
+    }
+
+    // --- Reconstruction ---
+
+    /**
+     * Recalcule les agrégats des jours [from, to) à partir des tables de base, en une transaction.
+     *
+     * @param from Premier jour inclus, ou null pour tout l'historique.
+     * @param to   Dernier jour exclu, ou null sans limite.
+     * @return Le nombre de lignes d'agrégat écrites.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : UNKNOWN_DAY;
+        LocalDate end = to != null ? to : END_OF_TIME;
+        Timestamp startTs = Timestamp.valueOf(start.atStartOfDay());
+        Timestamp endTs = Timestamp.valueOf(end.atStartOfDay());
+
+        Integer rows = transactionTemplate.execute(status -> {
+            for (ReportMetric metric : ReportMetric.values()) {
+                rollupRepository.deleteRange(metric, start, end);
+            }
+            return jdbcTemplate.update(REBUILD_ADMISSIONS_BY_DEPARTMENT, startTs, endTs)
+                    + jdbcTemplate.update(REBUILD_CONSULTATIONS_BY_DOCTOR, startTs, endTs)
+                    + jdbcTemplate.update(REBUILD_CONSULTATIONS_BY_DIAGNOSIS, startTs, endTs)
+                    + jdbcTemplate.update(REBUILD_PATIENTS_BY_GENDER, startTs, endTs);
+        });
+        // Éviction explicite plutôt que @CacheEvict : la reprise au démarrage appelle rebuild sans passer par le proxy
+        for (String name : REPORT_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        diagnosisTopKService.invalidateAll();
+        logger.info("Agrégats de reporting reconstruits du {} au {} : {} ligne(s).", start, end, rows);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Reprise de l'historique au démarrage : clés de diagnostic des consultations antérieures à leur
+     * introduction, puis reconstruction des agrégats s'ils sont vides ou si des clés ont été calculées
+     * (les agrégats existants regroupaient alors les diagnostics sur leur texte brut).
+     * <p>
+     * Exécutée sur un thread dédié pour ne pas retarder le démarrage, et par une seule instance à la fois
+     * (verrou nommé en base) : les conditions étant réévaluées sous le verrou, une instance démarrée
+     * après la reprise n'a plus rien à faire.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void backfillOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                if (!DatabaseLock.runIfAvailable(jdbcTemplate, BACKFILL_LOCK, this::backfill)) {
+                    logger.info("Reprise des agrégats de reporting déjà en cours sur une autre instance.");
+                }
+            } catch (RuntimeException e) {
+                logger.error("Échec de la reprise des agrégats de reporting : {}", e.getMessage());
+            }
+        }, "report-rollup-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void backfill() {
+        int filledKeys = backfillDiagnosisKeys();
+        if (filledKeys > 0 || rollupRepository.count() == 0) {
+            rebuild(null, null);
+        }
+    }
+
+    private int backfillDiagnosisKeys() {
+        int filled = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(MISSING_DIAGNOSIS_KEYS,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}, lastId, BACKFILL_BATCH_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String key = DiagnosisNormalizer.key((String) row[1]);
+                if (key != null) { // Un diagnostic blanc reste sans clé
+                    updates.add(new Object[]{key, row[0]});
+                }
+            }
+            jdbcTemplate.batchUpdate(SET_DIAGNOSIS_KEY, updates);
+            filled += updates.size();
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (filled > 0) {
+            logger.info("Clés de diagnostic calculées pour {} consultation(s) existante(s).", filled);
+        }
+        return filled;
+    }
+}
@@ -1,19 +1,29 @@
 package com.hgs.patient.siags_backend.service;
 
 import com.hgs.patient.siags_backend.dto.*;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ReportService {
+    // Nombre maximal de diagnostics les plus fréquents renvoyés par getDiagnosisFrequency
+    int MAX_DIAGNOSIS_LIMIT = 100;
+
     Long getTotalPatientsCount();
     List<PatientGenderDistributionDTO> getPatientGenderDistribution();
+    List<UniquePatientsDTO> getUniquePatients(LocalDate start, LocalDate end, ReportSketchMetric dimension);
     Long getTotalAdmissionsCount();
     Long getAdmissionsCountBetweenDates(LocalDateTime startDate, LocalDateTime endDate);
     List<AdmissionCountByDepartmentDTO> getAdmissionCountByDepartment();
     List<MonthlyAdmissionCountDTO> getMonthlyAdmissionCountForYear(int year);
+    List<PeriodCountDTO> getAdmissionHistogram(LocalDate start, LocalDate end, ReportGranularity granularity);
+    LengthOfStayReportDTO getLengthOfStay(LocalDate start, LocalDate end, Long departmentId);
     Long getTotalConsultationsCount();
     Long getConsultationsCountBetweenDates(LocalDateTime startDate, LocalDateTime endDate);
     List<ConsultationCountByDoctorDTO> getConsultationCountByDoctor();
-    List<DiagnosisFrequencyDTO> getDiagnosisFrequency();
+    List<DiagnosisFrequencyDTO> getDiagnosisFrequency(LocalDate start, LocalDate end, int limit);
+    List<PeriodCountDTO> getConsultationHistogram(LocalDate start, LocalDate end, ReportGranularity granularity);
 }
\ No newline at end of file
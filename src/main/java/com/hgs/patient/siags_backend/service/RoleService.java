@@ -3,6 +3,7 @@ package com.hgs.patient.siags_backend.service;
 import com.hgs.patient.siags_backend.dto.RoleResponseDTO;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Interface pour le service de gestion des rôles.
@@ -16,4 +17,14 @@ public interface RoleService {
      * @return Une liste de RoleResponseDTO.
      */
     List<RoleResponseDTO> getAllRoles();
+
+    /**
+     * Remplace l'ensemble des permissions d'un rôle.
+     * Les utilisateurs portant ce rôle voient leurs jetons invalidés et leur principal retiré du cache.
+     *
+     * @param roleId          L'ID du rôle à modifier.
+     * @param permissionNames Les noms des permissions à attribuer.
+     * @return Le rôle mis à jour.
+     */
+    RoleResponseDTO updateRolePermissions(Long roleId, Set<String> permissionNames);
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.hgs.patient.siags_backend.model.Admission;
+import com.hgs.patient.siags_backend.model.Consultation;
+import com.hgs.patient.siags_backend.model.ReportDailySketch;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import com.hgs.patient.siags_backend.repository.ReportDailySketchRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import com.hgs.patient.siags_backend.util.DatabaseLock;
+import com.hgs.patient.siags_backend.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Esquisses HyperLogLog journalières des patients vus (admissions et consultations), par jour et dimension.
+ * <p>
+ * Les patients des écritures validées sont d'abord accumulés en mémoire, puis fusionnés en base toutes les
+ * {@code flushIntervalMs} (une transaction courte par esquisse, ligne verrouillée) : les transactions métier
+ * ne verrouillent jamais les esquisses du jour. L'ajout étant idempotent et la fusion commutative, l'ordre
+ * des fusions est indifférent. Les esquisses ne permettent pas de retirer un patient : une modification de
+ * date ou une suppression n'est prise en compte qu'après {@link #rebuild(LocalDate, LocalDate)}, de même
+ * que les ajouts encore en mémoire lors d'un arrêt brutal.
+ */
+@Service
+public class UniquePatientSketchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniquePatientSketchService.class);
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(1970, 1, 1);
+    private static final LocalDate END_OF_TIME = LocalDate.of(9999, 12, 31);
+    private static final String ALL = ""; // Clé de dimension de UNIQUE_PATIENTS
+    private static final String BACKFILL_LOCK = "siags.reports.sketches.backfill";
+
+    // Réserve la ligne (registres null) pour que le SELECT ... FOR UPDATE ait toujours une ligne à verrouiller
+    private static final String RESERVE_SQL =
+            "INSERT IGNORE INTO report_daily_sketches (metric, day, dim_key, registers) VALUES (?, ?, ?, NULL)";
+    private static final String LOCK_SQL =
+            "SELECT registers FROM report_daily_sketches WHERE metric = ? AND day = ? AND dim_key = ? FOR UPDATE";
+    private static final String UPDATE_SQL =
+            "UPDATE report_daily_sketches SET registers = ? WHERE metric = ? AND day = ? AND dim_key = ?";
+    private static final String RANGE_SQL =
+            "SELECT dim_key, registers FROM report_daily_sketches"
+                    + " WHERE metric = ? AND day >= ? AND day < ? AND registers IS NOT NULL";
+
+    private static final String REBUILD_ADMISSIONS_SQL =
+            "SELECT a.admission_date, a.department_id, a.patient_id FROM admissions a"
+                    + " WHERE a.admission_date >= ? AND a.admission_date < ? ORDER BY a.admission_date";
+    private static final String REBUILD_CONSULTATIONS_SQL =
+            "SELECT c.consultation_date, c.doctor_id, c.patient_id FROM consultations c"
+                    + " WHERE c.consultation_date >= ? AND c.consultation_date < ? ORDER BY c.consultation_date";
+
+    private final ReportDailySketchRepository sketchRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+
+    // Ajouts validés, pas encore fusionnés en base ; chaque esquisse n'est modifiée que sous le verrou de sa clé (compute)
+    private final ConcurrentHashMap<ReportDailySketch.Key, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UniquePatientSketchService(ReportDailySketchRepository sketchRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${hgs.siags.reports.sketches.fetchSize:1000}") int fetchSize) {
+        this.sketchRepository = sketchRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fetchSize = fetchSize;
+    }
+
+    // --- Enregistrement (appelé dans la transaction de l'écriture, pris en compte après validation) ---
+
+    public void admissionRecorded(Admission admission) {
+        if (admission.getAdmissionDate() == null || admission.getPatient() == null) {
+            return;
+        }
+        LocalDate day = admission.getAdmissionDate().toLocalDate();
+        Long patientId = admission.getPatient().getId();
+        Long departmentId = admission.getAssignedDepartment() != null ? admission.getAssignedDepartment().getId() : null;
+        AfterCommit.run(() -> {
+            add(new ReportDailySketch.Key(ReportSketchMetric.UNIQUE_PATIENTS, day, ALL), patientId);
+            if (departmentId != null) {
+                add(new ReportDailySketch.Key(ReportSketchMetric.UNIQUE_PATIENTS_BY_DEPARTMENT, day, departmentId.toString()), patientId);
+            }
+        });
+    }
+
+    public void consultationRecorded(Consultation consultation) {
+        if (consultation.getConsultationDate() == null || consultation.getPatient() == null) {
+            return;
+        }
+        LocalDate day = consultation.getConsultationDate().toLocalDate();
+        Long patientId = consultation.getPatient().getId();
+        Long doctorId = consultation.getDoctor() != null ? consultation.getDoctor().getId() : null;
+        AfterCommit.run(() -> {
+            add(new ReportDailySketch.Key(ReportSketchMetric.UNIQUE_PATIENTS, day, ALL), patientId);
+            if (doctorId != null) {
+                add(new ReportDailySketch.Key(ReportSketchMetric.UNIQUE_PATIENTS_BY_DOCTOR, day, doctorId.toString()), patientId);
+            }
+        });
+    }
+
+    private void add(ReportDailySketch.Key key, long patientId) {
+        pending.compute(key, (k, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.add(patientId);
+            return target;
+        });
+    }
+
+    // --- Fusion en base ---
+
+    @Scheduled(fixedDelayString = "${hgs.siags.reports.sketches.flushIntervalMs:10000}")
+    public void flush() {
+        for (ReportDailySketch.Key key : new ArrayList<>(pending.keySet())) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch == null) {
+                continue;
+            }
+            try {
+                mergeIntoDatabase(key, sketch);
+            } catch (RuntimeException e) {
+                // Remise en attente pour la prochaine exécution, fusionnée avec les ajouts arrivés entre-temps
+                pending.merge(key, sketch, (current, failed) -> {
+                    current.merge(failed);
+                    return current;
+                });
+                logger.warn("Échec de la fusion des esquisses de patients distincts : {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        flush();
+    }
+
+    private void mergeIntoDatabase(ReportDailySketch.Key key, HyperLogLog sketch) {
+        Object[] id = {key.getMetric().name(), Date.valueOf(key.getDay()), key.getDimKey()};
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(RESERVE_SQL, id);
+            byte[] stored = jdbcTemplate.queryForObject(LOCK_SQL, byte[].class, id);
+            HyperLogLog merged = HyperLogLog.fromBytes(stored);
+            merged.merge(sketch);
+            jdbcTemplate.update(UPDATE_SQL, merged.toBytes(), id[0], id[1], id[2]);
+        });
+    }
+
+    // --- Lecture ---
+
+    /**
+     * Fusionne les esquisses journalières des jours [from, to) pour chaque valeur de la dimension.
+     * Mémoire : une esquisse (4 Kio) par valeur de dimension, quel que soit le nombre de jours.
+     *
+     * @return Esquisse de la période par clé de dimension (clé vide pour UNIQUE_PATIENTS).
+     */
+    public Map<String, HyperLogLog> merge(ReportSketchMetric metric, LocalDate from, LocalDate to) {
+        Map<String, HyperLogLog> merged = new HashMap<>();
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            merged.computeIfAbsent(rs.getString(1), k -> new HyperLogLog())
+                    .merge(HyperLogLog.fromBytes(rs.getBytes(2)));
+        }, metric.name(), Date.valueOf(from), Date.valueOf(to));
+        return merged;
+    }
+
+    // --- Reconstruction ---
+
+    /**
+     * Recalcule les esquisses des jours [from, to) à partir des admissions et consultations, lues par curseur
+     * dans l'ordre chronologique : seules les esquisses du jour en cours sont gardées en mémoire.
+     *
+     * @param from Premier jour inclus, ou null pour tout l'historique.
+     * @param to   Dernier jour exclu, ou null sans limite.
+     * @return Le nombre d'esquisses écrites.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : FIRST_DAY;
+        LocalDate end = to != null ? to : END_OF_TIME;
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ReportSketchMetric metric : ReportSketchMetric.values()) {
+                sketchRepository.deleteRange(metric, start, end);
+            }
+        });
+        int written = replay(REBUILD_ADMISSIONS_SQL, ReportSketchMetric.UNIQUE_PATIENTS_BY_DEPARTMENT, start, end)
+                + replay(REBUILD_CONSULTATIONS_SQL, ReportSketchMetric.UNIQUE_PATIENTS_BY_DOCTOR, start, end);
+        logger.info("Esquisses de patients distincts reconstruites du {} au {} : {} esquisse(s).", start, end, written);
+        return written;
+    }
+
+    // Colonnes attendues : date, ID de la dimension (peut être null), ID du patient
+    private int replay(String sql, ReportSketchMetric dimension, LocalDate start, LocalDate end) {
+        Map<ReportDailySketch.Key, HyperLogLog> day = new HashMap<>();
+        LocalDate[] currentDay = {null};
+        int[] written = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setTimestamp(1, Timestamp.valueOf(start.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(end.atStartOfDay()));
+            return ps;
+        }, rs -> {
+            LocalDate date = rs.getTimestamp(1).toLocalDateTime().toLocalDate();
+            if (!date.equals(currentDay[0])) {
+                written[0] += write(day);
+                currentDay[0] = date;
+            }
+            long patientId = rs.getLong(3);
+            day.computeIfAbsent(new ReportDailySketch.Key(ReportSketchMetric.UNIQUE_PATIENTS, date, ALL), k -> new HyperLogLog())
+                    .add(patientId);
+            long dimensionId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                day.computeIfAbsent(new ReportDailySketch.Key(dimension, date, Long.toString(dimensionId)), k -> new HyperLogLog())
+                        .add(patientId);
+            }
+        });
+        return written[0] + write(day);
+    }
+
+    // Fusion (et non écrasement) : les admissions et les consultations alimentent la même esquisse UNIQUE_PATIENTS
+    private int write(Map<ReportDailySketch.Key, HyperLogLog> sketches) {
+        sketches.forEach(this::mergeIntoDatabase);
+        int count = sketches.size();
+        sketches.clear();
+        return count;
+    }
+
+    // Premier démarrage après l'introduction des esquisses : reprise de l'historique, sur un thread dédié
+    // et par une seule instance (verrou nommé en base, table revérifiée sous le verrou)
+    @EventListener(ApplicationReadyEvent.class)
+    void backfillIfEmpty() {
+        Thread thread = new Thread(() -> {
+            try {
+                boolean ran = DatabaseLock.runIfAvailable(jdbcTemplate, BACKFILL_LOCK, () -> {
+                    if (sketchRepository.count() == 0) {
+                        rebuild(null, null);
+                    }
+                });
+                if (!ran) {
+                    logger.info("Reprise des esquisses de patients distincts déjà en cours sur une autre instance.");
+                }
+            } catch (RuntimeException e) {
+                logger.error("Échec de la reprise des esquisses de patients distincts : {}", e.getMessage());
+            }
+        }, "unique-patient-sketch-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
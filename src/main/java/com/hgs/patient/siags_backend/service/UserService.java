@@ -23,4 +23,7 @@ public interface UserService {
 
     UserResponseDTO updateUser(Long id, UserUpdateRequest userUpdateRequest);
     void deleteUser(Long id);
+
+    // Révocation forcée : invalide tous les jetons d'accès et de rafraîchissement déjà émis pour l'utilisateur
+    void revokeTokens(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du journal d'audit telle qu'enregistrée dans un segment d'archive (une ligne JSON par entrée).
+ * Le nom de l'auteur est résolu à l'archivage : l'archive ne dépend plus de la table users.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedAuditLog {
+    private Long id;
+    private Long userId;
+    private String username;
+    private String actorRoles;
+    private AuditAction action;
+    private AuditResource resource;
+    private Long resourceId;
+    private String details;
+    private LocalDateTime timestamp;
+    private int occurrences = 1; // Absent des segments écrits avant le regroupement des lectures
+    private LocalDateTime lastSeen;
+
+    public AuditLogResponseDTO toResponse() {
+        return new AuditLogResponseDTO(id, username, actorRoles, action, resource, resourceId, details, timestamp,
+                occurrences, lastSeen != null ? lastSeen : timestamp);
+    }
+}
@@ -0,0 +1,94 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Auteur d'une action d'audit, figé au moment de l'événement : ID, nom d'utilisateur et rôles.
+ * <p>
+ * Pour une requête HTTP, l'auteur est pris sur le principal du SecurityContext (aucune requête en base).
+ * Les traitements sans utilisateur authentifié (tâches planifiées, traitements d'arrière-plan)
+ * déclarent leur identité avec {@link #runAs(String, Runnable)}.
+ */
+public final class AuditActor {
+
+    public static final String SYSTEM_ROLE = "SYSTEM";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final ThreadLocal<AuditActor> BACKGROUND_ACTOR = new ThreadLocal<>();
+
+    private final Long userId;
+    private final String username;
+    private final String roles;
+
+    private AuditActor(Long userId, String username, String roles) {
+        this.userId = userId;
+        this.username = username;
+        this.roles = roles;
+    }
+
+    /**
+     * Auteur courant : le principal authentifié, sinon l'auteur déclaré par runAs, sinon null.
+     */
+    public static AuditActor current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return fromPrincipal(userDetails);
+        }
+        return BACKGROUND_ACTOR.get();
+    }
+
+    /**
+     * Exécute un traitement d'arrière-plan dont les actions auditées seront attribuées à {@code name}.
+     */
+    public static void runAs(String name, Runnable task) {
+        callAs(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(String name, Supplier<T> task) {
+        AuditActor previous = BACKGROUND_ACTOR.get();
+        BACKGROUND_ACTOR.set(new AuditActor(null, name, SYSTEM_ROLE));
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                BACKGROUND_ACTOR.set(previous);
+            } else {
+                BACKGROUND_ACTOR.remove();
+            }
+        }
+    }
+
+    private static AuditActor fromPrincipal(UserDetailsImpl userDetails) {
+        StringJoiner roles = new StringJoiner(",");
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                roles.add(name);
+            }
+        }
+        return new AuditActor(userDetails.getId(), userDetails.getUsername(), roles.toString());
+    }
+
+    // Null pour un traitement système
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    // Rôles séparés par des virgules (ex : "ROLE_ADMIN,ROLE_MEDECIN")
+    public String getRoles() {
+        return roles;
+    }
+}
@@ -0,0 +1,41 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index épars d'un segment d'archive du journal d'audit (fichier {@code .idx} à côté du {@code .seg}).
+ * Chaque bloc compressé y est décrit par sa position, sa somme de contrôle et les bornes de timestamp,
+ * d'ID et de resourceId des lignes qu'il contient : une recherche ne décompresse que les blocs candidats.
+ */
+@Data
+@NoArgsConstructor
+public class AuditArchiveSegment {
+    private String name;
+    private LocalDateTime createdAt;
+    private long rowCount;
+    private LocalDateTime minTimestamp;
+    private LocalDateTime maxTimestamp;
+    // Vrai une fois les lignes archivées supprimées de la table audit_logs
+    private boolean purged;
+    private List<Block> blocks = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Block {
+        private long offset; // Position de l'en-tête du bloc dans le segment
+        private int length;  // Taille des données compressées
+        private int rowCount;
+        private long crc32;  // CRC32 des données compressées
+        private LocalDateTime minTimestamp;
+        private LocalDateTime maxTimestamp;
+        private long minId;
+        private long maxId;
+        private Long minResourceId; // Null si aucune ligne du bloc n'a de resourceId
+        private Long maxResourceId;
+    }
+}
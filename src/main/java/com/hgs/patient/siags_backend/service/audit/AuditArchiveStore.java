@@ -0,0 +1,414 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stockage froid du journal d'audit : segments de fichiers en ajout seul.
+ * <p>
+ * Un segment ({@code .seg}) est une suite de blocs, chacun formé d'un en-tête de 16 octets
+ * (magique, nombre de lignes, taille, CRC32) suivi des lignes en JSON compressées en gzip.
+ * L'index épars du segment ({@code .idx}, voir {@link AuditArchiveSegment}) est gardé en mémoire.
+ * Un segment n'est visible qu'une fois entièrement écrit et synchronisé sur disque (renommage atomique),
+ * et n'est plus jamais modifié ensuite ; seul son index est réécrit pour marquer la purge.
+ * <p>
+ * Le répertoire doit être un stockage partagé par toutes les instances (montage réseau) : une seule
+ * instance archive à la fois (voir {@link AuditLogArchiver}), mais toutes recherchent dans l'archive
+ * et relisent périodiquement le répertoire pour voir les segments écrits par les autres.
+ */
+@Component
+public class AuditArchiveStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchiveStore.class);
+
+    private static final int MAGIC = 0x53414731; // "SAG1"
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final Comparator<ArchivedAuditLog> BY_KEY =
+            Comparator.comparing(ArchivedAuditLog::getTimestamp).thenComparing(ArchivedAuditLog::getId);
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    // Copie sur écriture : les recherches lisent un instantané sans verrou
+    private volatile List<AuditArchiveSegment> segments = List.of();
+
+    public AuditArchiveStore(ObjectMapper objectMapper,
+                             @Value("${hgs.siags.audit.archive.dir:./audit-archive}") String directory) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+    }
+
+    @PostConstruct
+    void load() throws IOException {
+        if (!directory.isAbsolute()) {
+            logger.warn("Répertoire d'archive d'audit relatif ({}) : il doit désigner un stockage partagé par toutes les instances.",
+                    directory.toAbsolutePath());
+        }
+        Files.createDirectories(directory);
+        int loaded = scan(false);
+        logger.info("{} segment(s) d'archive d'audit chargé(s) depuis {}", loaded, directory);
+    }
+
+    /**
+     * Relit le répertoire pour voir les segments publiés par les autres instances.
+     */
+    @Scheduled(fixedDelayString = "${hgs.siags.audit.archive.refreshIntervalMs:300000}",
+            initialDelayString = "${hgs.siags.audit.archive.refreshIntervalMs:300000}")
+    public void refresh() {
+        try {
+            scan(false);
+        } catch (IOException e) {
+            logger.error("Échec de la relecture de l'archive d'audit : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Relit le répertoire et supprime les restes d'écritures interrompues. À n'appeler que par le détenteur
+     * du verrou d'archivage : sur un stockage partagé, ces fichiers peuvent sinon être une écriture en cours.
+     */
+    public void recover() throws IOException {
+        scan(true);
+    }
+
+    private synchronized int scan(boolean cleanUp) throws IOException {
+        List<AuditArchiveSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(TMP_SUFFIX)) {
+                    if (cleanUp) {
+                        // Écriture interrompue : les lignes sont toujours en base et seront archivées à nouveau
+                        Files.deleteIfExists(file);
+                    }
+                } else if (fileName.endsWith(INDEX_SUFFIX)) {
+                    AuditArchiveSegment segment = objectMapper.readValue(file.toFile(), AuditArchiveSegment.class);
+                    if (Files.exists(segmentPath(segment))) {
+                        loaded.add(segment);
+                    } else if (cleanUp) {
+                        logger.warn("Index d'archive sans segment ignoré et supprimé : {}", fileName);
+                        Files.delete(file);
+                    }
+                    // Sinon, segment en cours de publication par une autre instance : il sera vu à la relecture suivante
+                }
+            }
+        }
+        loaded.sort(Comparator.comparing(AuditArchiveSegment::getCreatedAt));
+        segments = List.copyOf(loaded);
+        return loaded.size();
+    }
+
+    public List<AuditArchiveSegment> segments() {
+        return segments;
+    }
+
+    /**
+     * Ouvre un nouveau segment en écriture. Il n'est publié qu'à l'appel de {@link SegmentWriter#commit()}.
+     */
+    public SegmentWriter openSegment(LocalDateTime createdAt) throws IOException {
+        return new SegmentWriter(createdAt);
+    }
+
+    /**
+     * Marque un segment comme purgé (ses lignes ne sont plus dans la table audit_logs).
+     */
+    public synchronized void markPurged(AuditArchiveSegment segment) throws IOException {
+        segment.setPurged(true);
+        writeIndex(segment);
+    }
+
+    /**
+     * Lit un bloc et vérifie sa somme de contrôle avant de le décompresser.
+     */
+    public List<ArchivedAuditLog> readBlock(AuditArchiveSegment segment, AuditArchiveSegment.Block block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + block.getLength());
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            long position = block.getOffset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Segment d'archive tronqué : " + segment.getName());
+                }
+                position += read;
+            }
+        }
+        buffer.flip();
+        int magic = buffer.getInt();
+        int rowCount = buffer.getInt();
+        int length = buffer.getInt();
+        long headerCrc = Integer.toUnsignedLong(buffer.getInt());
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, block.getLength());
+        if (magic != MAGIC || rowCount != block.getRowCount() || length != block.getLength()
+                || headerCrc != block.getCrc32() || crc.getValue() != block.getCrc32()) {
+            throw new IOException("Bloc d'archive corrompu dans " + segment.getName() + " à la position " + block.getOffset());
+        }
+
+        List<ArchivedAuditLog> rows = new ArrayList<>(rowCount);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+                new ByteArrayInputStream(buffer.array(), HEADER_SIZE, length)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                rows.add(objectMapper.readValue(line, ArchivedAuditLog.class));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Recherche paginée par clé sur (timestamp, id), du plus récent au plus ancien, comme
+     * {@code AuditLogRepository.search}. Seuls les blocs dont l'index recoupe les critères sont lus.
+     */
+    public List<ArchivedAuditLog> search(AuditLogFilter filter, LocalDateTime afterTs, Long afterId, int limit) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (AuditArchiveSegment segment : segments) {
+            for (AuditArchiveSegment.Block block : segment.getBlocks()) {
+                if (mayMatch(block, filter, afterTs)) {
+                    candidates.add(new Candidate(segment, block));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparing((Candidate c) -> c.block.getMaxTimestamp()).reversed());
+
+        // Tas des « limit » plus grandes clés rencontrées (la plus petite en tête)
+        PriorityQueue<ArchivedAuditLog> top = new PriorityQueue<>(limit + 1, BY_KEY);
+        for (Candidate candidate : candidates) {
+            if (top.size() == limit && candidate.block.getMaxTimestamp().isBefore(top.peek().getTimestamp())) {
+                break; // Les blocs restants ne contiennent que des lignes plus anciennes
+            }
+            List<ArchivedAuditLog> rows;
+            try {
+                rows = readBlock(candidate.segment, candidate.block);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (ArchivedAuditLog row : rows) {
+                if (matches(row, filter) && isBefore(row, afterTs, afterId)) {
+                    top.offer(row);
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        }
+        List<ArchivedAuditLog> result = new ArrayList<>(top);
+        result.sort(BY_KEY.reversed());
+        return result;
+    }
+
+    private static boolean mayMatch(AuditArchiveSegment.Block block, AuditLogFilter filter, LocalDateTime afterTs) {
+        if (filter.getFrom() != null && block.getMaxTimestamp().isBefore(filter.getFrom())) {
+            return false;
+        }
+        if (filter.getTo() != null && !block.getMinTimestamp().isBefore(filter.getTo())) {
+            return false;
+        }
+        if (afterTs != null && block.getMinTimestamp().isAfter(afterTs)) {
+            return false;
+        }
+        if (filter.getResourceId() != null) {
+            return block.getMinResourceId() != null
+                    && filter.getResourceId() >= block.getMinResourceId()
+                    && filter.getResourceId() <= block.getMaxResourceId();
+        }
+        return true;
+    }
+
+    private static boolean matches(ArchivedAuditLog row, AuditLogFilter filter) {
+        return (filter.getUserId() == null || filter.getUserId().equals(row.getUserId()))
+                && (filter.getAction() == null || filter.getAction() == row.getAction())
+                && (filter.getResource() == null || filter.getResource() == row.getResource())
+                && (filter.getResourceId() == null || filter.getResourceId().equals(row.getResourceId()))
+                && (filter.getFrom() == null || !row.getTimestamp().isBefore(filter.getFrom()))
+                && (filter.getTo() == null || row.getTimestamp().isBefore(filter.getTo()));
+    }
+
+    private static boolean isBefore(ArchivedAuditLog row, LocalDateTime afterTs, Long afterId) {
+        if (afterTs == null) {
+            return true;
+        }
+        int cmp = row.getTimestamp().compareTo(afterTs);
+        return cmp < 0 || (cmp == 0 && row.getId() < afterId);
+    }
+
+    private Path segmentPath(AuditArchiveSegment segment) {
+        return directory.resolve(segment.getName() + SEGMENT_SUFFIX);
+    }
+
+    private Path indexPath(AuditArchiveSegment segment) {
+        return directory.resolve(segment.getName() + INDEX_SUFFIX);
+    }
+
+    private void writeIndex(AuditArchiveSegment segment) throws IOException {
+        Path index = indexPath(segment);
+        Path tmp = index.resolveSibling(index.getFileName() + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = ByteBuffer.wrap(objectMapper.writeValueAsBytes(segment));
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private synchronized void publish(AuditArchiveSegment segment) {
+        List<AuditArchiveSegment> updated = new ArrayList<>(segments);
+        updated.add(segment);
+        segments = List.copyOf(updated);
+    }
+
+    private static final class Candidate {
+        private final AuditArchiveSegment segment;
+        private final AuditArchiveSegment.Block block;
+
+        private Candidate(AuditArchiveSegment segment, AuditArchiveSegment.Block block) {
+            this.segment = segment;
+            this.block = block;
+        }
+    }
+
+    /**
+     * Écriture d'un segment, bloc par bloc, dans un fichier temporaire.
+     */
+    public final class SegmentWriter implements Closeable {
+
+        private final AuditArchiveSegment segment = new AuditArchiveSegment();
+        private final Path tmp;
+        private final FileChannel channel;
+        private long position;
+        private boolean committed;
+
+        private SegmentWriter(LocalDateTime createdAt) throws IOException {
+            segment.setName("audit-" + System.currentTimeMillis());
+            segment.setCreatedAt(createdAt);
+            Path path = segmentPath(segment);
+            this.tmp = path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+            this.channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        public long rowCount() {
+            return segment.getRowCount();
+        }
+
+        /**
+         * Compresse et ajoute un bloc. Les lignes doivent être triées par (timestamp, id).
+         */
+        public void writeBlock(List<ArchivedAuditLog> rows) throws IOException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                for (ArchivedAuditLog row : rows) {
+                    gzip.write(objectMapper.writeValueAsBytes(row));
+                    gzip.write('\n');
+                }
+            }
+            byte[] data = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(data);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(rows.size()).putInt(data.length).putInt((int) crc.getValue());
+            header.flip();
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(data)};
+            long expected = HEADER_SIZE + (long) data.length;
+            long written = 0;
+            while (written < expected) {
+                written += channel.write(buffers);
+            }
+
+            AuditArchiveSegment.Block block = new AuditArchiveSegment.Block();
+            block.setOffset(position);
+            block.setLength(data.length);
+            block.setRowCount(rows.size());
+            block.setCrc32(crc.getValue());
+            block.setMinTimestamp(rows.get(0).getTimestamp());
+            block.setMaxTimestamp(rows.get(rows.size() - 1).getTimestamp());
+            long minId = Long.MAX_VALUE;
+            long maxId = Long.MIN_VALUE;
+            for (ArchivedAuditLog row : rows) {
+                minId = Math.min(minId, row.getId());
+                maxId = Math.max(maxId, row.getId());
+                Long resourceId = row.getResourceId();
+                if (resourceId != null) {
+                    if (block.getMinResourceId() == null || resourceId < block.getMinResourceId()) {
+                        block.setMinResourceId(resourceId);
+                    }
+                    if (block.getMaxResourceId() == null || resourceId > block.getMaxResourceId()) {
+                        block.setMaxResourceId(resourceId);
+                    }
+                }
+            }
+            block.setMinId(minId);
+            block.setMaxId(maxId);
+            segment.getBlocks().add(block);
+            position += expected;
+
+            segment.setRowCount(segment.getRowCount() + rows.size());
+            if (segment.getMinTimestamp() == null) {
+                segment.setMinTimestamp(block.getMinTimestamp());
+            }
+            segment.setMaxTimestamp(block.getMaxTimestamp());
+        }
+
+        /**
+         * Synchronise le segment sur disque, écrit son index puis le publie.
+         */
+        public AuditArchiveSegment commit() throws IOException {
+            channel.force(true);
+            channel.close();
+            writeIndex(segment);
+            Files.move(tmp, segmentPath(segment), StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            publish(segment);
+            return segment;
+        }
+
+        // Sans commit, le fichier temporaire est abandonné
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+}
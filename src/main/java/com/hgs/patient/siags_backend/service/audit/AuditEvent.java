@@ -0,0 +1,29 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement d'audit en attente d'écriture. L'auteur (ID, nom et rôles) est figé au moment de l'action
+ * à partir du principal : aucune lecture de la table users n'est nécessaire, ni sur le thread appelant ni à l'écriture.
+ */
+@Data
+@NoArgsConstructor // Nécessaire à la relecture du fichier de débordement
+@AllArgsConstructor
+public class AuditEvent {
+    private Long userId; // Null pour un traitement système
+    private String actorUsername;
+    private String actorRoles;
+    private AuditAction action;
+    private AuditResource resource;
+    private Long resourceId;
+    private String details;
+    private LocalDateTime timestamp; // Première occurrence
+    private int occurrences = 1; // Plus de 1 après regroupement par AuditLogWriter
+    private LocalDateTime lastSeen; // Dernière occurrence ; null dans les fichiers de débordement antérieurs
+}
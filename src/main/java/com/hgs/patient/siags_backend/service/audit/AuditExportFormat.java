@@ -0,0 +1,41 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+
+/**
+ * Formats d'export du journal d'audit.
+ */
+public enum AuditExportFormat {
+    // Un objet JSON par ligne
+    NDJSON("application/x-ndjson", "ndjson"),
+    // En-tête puis une ligne par entrée, encodé en UTF-8 avec BOM pour les tableurs
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    AuditExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Lit le paramètre de requête {@code format}, sans tenir compte de la casse.
+     */
+    public static AuditExportFormat fromParameter(String value) {
+        for (AuditExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Format d'export inconnu : " + value + " (ndjson ou csv).");
+    }
+}
@@ -0,0 +1,200 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import com.hgs.patient.siags_backend.service.AuditService;
+import com.hgs.patient.siags_backend.util.DatabaseLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivage planifié des journaux d'audit plus anciens que la période de rétention.
+ * <p>
+ * Les lignes sont lues par blocs dans l'ordre (timestamp, id) et écrites dans un segment de
+ * {@link AuditArchiveStore}. Une fois le segment publié, chaque bloc est relu depuis le disque
+ * (somme de contrôle vérifiée) et ses lignes sont supprimées de la table par lots bornés :
+ * une ligne n'est jamais supprimée avant d'être lisible dans l'archive. Une purge interrompue
+ * est reprise au début de l'exécution suivante, avant tout nouvel archivage.
+ * <p>
+ * Toutes les instances planifient l'archivage, mais une exécution ne démarre que sous le verrou nommé
+ * {@value #ARCHIVE_LOCK} (voir {@link DatabaseLock}) : une seule instance archive et purge à la fois.
+ * Le répertoire d'archive doit donc être partagé entre les instances (voir {@link AuditArchiveStore}),
+ * pour que chacune y reprenne les purges interrompues des autres et y retrouve les lignes archivées.
+ * Chaque purge est elle-même journalisée, au nom du traitement {@value #ACTOR}.
+ */
+@Component
+public class AuditLogArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogArchiver.class);
+
+    // Auteur des entrées d'audit produites par l'archivage
+    static final String ACTOR = "audit-archiver";
+
+    // Verrou nommé partagé par les instances : une seule archive à la fois
+    static final String ARCHIVE_LOCK = "siags.audit.archive";
+
+    private static final String SELECT_SQL =
+            "SELECT a.id, a.user_id, COALESCE(a.actor_username, u.username), a.actor_roles, a.action, a.resource,"
+                    + " a.resource_id, a.details, a.timestamp, a.occurrences, COALESCE(a.last_seen, a.timestamp)"
+                    + " FROM audit_logs a LEFT JOIN users u ON u.id = a.user_id"
+                    + " WHERE a.timestamp < ? AND (a.timestamp > ? OR (a.timestamp = ? AND a.id > ?))"
+                    + " ORDER BY a.timestamp, a.id LIMIT ?";
+
+    private static final RowMapper<ArchivedAuditLog> ROW_MAPPER = (rs, rowNum) -> {
+        long userId = rs.getLong(2);
+        boolean noUser = rs.wasNull();
+        long resourceId = rs.getLong(7);
+        boolean noResource = rs.wasNull();
+        return new ArchivedAuditLog(
+                rs.getLong(1),
+                noUser ? null : userId,
+                rs.getString(3),
+                rs.getString(4),
+                AuditAction.valueOf(rs.getString(5)),
+                AuditResource.valueOf(rs.getString(6)),
+                noResource ? null : resourceId,
+                rs.getString(8),
+                rs.getTimestamp(9).toLocalDateTime(),
+                rs.getInt(10),
+                rs.getTimestamp(11).toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditArchiveStore archiveStore;
+    private final AuditService auditService;
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int blockRows;
+    private final long segmentMaxRows;
+    private final int deleteBatchSize;
+    private final Counter archived;
+    private final Counter purged;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AuditLogArchiver(JdbcTemplate jdbcTemplate,
+                            AuditArchiveStore archiveStore,
+                            AuditService auditService,
+                            MeterRegistry meterRegistry,
+                            @Value("${hgs.siags.audit.archive.enabled:true}") boolean enabled,
+                            @Value("${hgs.siags.audit.archive.retentionDays:365}") int retentionDays,
+                            @Value("${hgs.siags.audit.archive.blockRows:1000}") int blockRows,
+                            @Value("${hgs.siags.audit.archive.segmentMaxRows:500000}") long segmentMaxRows,
+                            @Value("${hgs.siags.audit.archive.deleteBatchSize:500}") int deleteBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveStore = archiveStore;
+        this.auditService = auditService;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.blockRows = blockRows;
+        this.segmentMaxRows = segmentMaxRows;
+        this.deleteBatchSize = deleteBatchSize;
+        this.archived = Counter.builder("siags.audit.archive.rows.archived").register(meterRegistry);
+        this.purged = Counter.builder("siags.audit.archive.rows.purged").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${hgs.siags.audit.archive.cron:0 30 3 * * *}")
+    public void archiveExpired() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!DatabaseLock.runIfAvailable(jdbcTemplate, ARCHIVE_LOCK, () -> AuditActor.runAs(ACTOR, this::archive))) {
+                logger.info("Archivage du journal d'audit déjà en cours sur une autre instance.");
+            }
+        } catch (RuntimeException e) {
+            logger.error("Échec de l'archivage du journal d'audit : {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void archive() {
+        try {
+            // Segments publiés par la dernière instance à avoir archivé, purges interrompues comprises
+            archiveStore.recover();
+            for (AuditArchiveSegment segment : archiveStore.segments()) {
+                if (!segment.isPurged()) {
+                    purge(segment);
+                }
+            }
+            LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+            long total = 0;
+            AuditArchiveSegment segment;
+            while ((segment = writeSegment(cutoff)) != null) {
+                purge(segment);
+                total += segment.getRowCount();
+            }
+            if (total > 0) {
+                logger.info("{} ligne(s) du journal d'audit antérieures au {} archivée(s).", total, cutoff);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Les lignes non purgées restent en base : l'exécution suivante reprendra là où celle-ci s'est arrêtée
+            logger.error("Échec de l'archivage du journal d'audit : {}", e.getMessage());
+        }
+    }
+
+    // Écrit un segment d'au plus segmentMaxRows lignes ; null s'il n'y a plus rien à archiver
+    private AuditArchiveSegment writeSegment(LocalDateTime cutoff) throws IOException {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        Timestamp afterTs = new Timestamp(0);
+        long afterId = 0;
+        try (AuditArchiveStore.SegmentWriter writer = archiveStore.openSegment(LocalDateTime.now())) {
+            while (writer.rowCount() < segmentMaxRows) {
+                List<ArchivedAuditLog> rows = jdbcTemplate.query(SELECT_SQL, ROW_MAPPER,
+                        before, afterTs, afterTs, afterId, blockRows);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                writer.writeBlock(rows);
+                ArchivedAuditLog last = rows.get(rows.size() - 1);
+                afterTs = Timestamp.valueOf(last.getTimestamp());
+                afterId = last.getId();
+                if (rows.size() < blockRows) {
+                    break;
+                }
+            }
+            if (writer.rowCount() == 0) {
+                return null;
+            }
+            AuditArchiveSegment segment = writer.commit();
+            archived.increment(segment.getRowCount());
+            return segment;
+        }
+    }
+
+    // Supprime de la table les lignes d'un segment, bloc par bloc, après relecture depuis le disque
+    private void purge(AuditArchiveSegment segment) throws IOException {
+        for (AuditArchiveSegment.Block block : segment.getBlocks()) {
+            List<ArchivedAuditLog> rows = archiveStore.readBlock(segment, block);
+            for (int from = 0; from < rows.size(); from += deleteBatchSize) {
+                List<ArchivedAuditLog> batch = rows.subList(from, Math.min(from + deleteBatchSize, rows.size()));
+                String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+                List<Object> ids = new ArrayList<>(batch.size());
+                batch.forEach(row -> ids.add(row.getId()));
+                // Une instruction par lot, validée immédiatement : verrous courts, journal de transactions borné
+                int deleted = jdbcTemplate.update("DELETE FROM audit_logs WHERE id IN (" + placeholders + ")", ids.toArray());
+                purged.increment(deleted);
+            }
+        }
+        archiveStore.markPurged(segment);
+        auditService.logAction(AuditAction.DELETE, AuditResource.AUDIT_LOG, null,
+                segment.getRowCount() + " ligne(s) du " + segment.getMinTimestamp() + " au " + segment.getMaxTimestamp()
+                        + " déplacée(s) dans le segment d'archive " + segment.getName());
+    }
+}
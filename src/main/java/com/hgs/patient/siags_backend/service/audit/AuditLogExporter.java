@@ -0,0 +1,221 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export intégral du journal d'audit pour les extractions de conformité.
+ * <p>
+ * Les lignes sont lues par un curseur JDBC en avant seulement (lecture par paquets de {@code fetchSize}
+ * côté pilote MariaDB) et écrites une à une dans la réponse : la mémoire utilisée ne dépend pas
+ * du nombre de lignes exportées. Les critères sont ceux de {@link AuditLogQueryService}, dans l'ordre
+ * chronologique croissant.
+ */
+@Component
+public class AuditLogExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogExporter.class);
+
+    private static final String SELECT_SQL =
+            "SELECT a.id, COALESCE(a.actor_username, u.username), a.actor_roles, a.action, a.resource,"
+                    + " a.resource_id, a.details, a.timestamp, a.occurrences, COALESCE(a.last_seen, a.timestamp)"
+                    + " FROM audit_logs a LEFT JOIN users u ON u.id = a.user_id";
+
+    // Mêmes noms que les propriétés d'AuditLogResponseDTO
+    private static final String[] COLUMNS =
+            {"id", "username", "actorRoles", "action", "resource", "resourceId", "details", "timestamp",
+                    "occurrences", "lastSeen"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+
+    public AuditLogExporter(JdbcTemplate jdbcTemplate,
+                            ObjectMapper objectMapper,
+                            @Value("${hgs.siags.audit.exportFetchSize:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Prépare l'export. Les critères sont validés immédiatement, avant l'envoi des en-têtes de réponse ;
+     * la requête n'est exécutée qu'à l'écriture du corps.
+     *
+     * @param filter Les critères de recherche.
+     * @param format Le format de sortie.
+     * @param gzip   Compresser la sortie (fichier .gz).
+     */
+    public StreamingResponseBody export(AuditLogFilter filter, AuditExportFormat format, boolean gzip) {
+        if (filter.getFrom() != null && filter.getTo() != null && !filter.getFrom().isBefore(filter.getTo())) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        return outputStream -> {
+            OutputStream out = gzip
+                    ? new GZIPOutputStream(outputStream, BUFFER_SIZE)
+                    : new BufferedOutputStream(outputStream, BUFFER_SIZE);
+            long start = System.nanoTime();
+            long rows = format == AuditExportFormat.CSV ? writeCsv(filter, out) : writeNdjson(filter, out);
+            if (out instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            out.flush();
+            logger.info("Export du journal d'audit ({}) : {} ligne(s) en {} ms.",
+                    format, rows, (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    private long writeNdjson(AuditLogFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            // La fermeture du générateur ne doit pas fermer le flux de la réponse
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long rows = query(filter, rs -> {
+                json.writeStartObject();
+                json.writeNumberField(COLUMNS[0], rs.getLong(1));
+                json.writeStringField(COLUMNS[1], rs.getString(2));
+                json.writeStringField(COLUMNS[2], rs.getString(3));
+                json.writeStringField(COLUMNS[3], rs.getString(4));
+                json.writeStringField(COLUMNS[4], rs.getString(5));
+                long resourceId = rs.getLong(6);
+                if (rs.wasNull()) {
+                    json.writeNullField(COLUMNS[5]);
+                } else {
+                    json.writeNumberField(COLUMNS[5], resourceId);
+                }
+                json.writeStringField(COLUMNS[6], rs.getString(7));
+                json.writeStringField(COLUMNS[7], timestamp(rs, 8));
+                json.writeNumberField(COLUMNS[8], rs.getInt(9));
+                json.writeStringField(COLUMNS[9], timestamp(rs, 10));
+                json.writeEndObject();
+                json.writeRaw('\n');
+            });
+            json.flush();
+            return rows;
+        }
+    }
+
+    private long writeCsv(AuditLogFilter filter, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CsvWriter csv = new CsvWriter(writer);
+        writer.write('\uFEFF'); // BOM : accents correctement affichés par les tableurs
+        csv.row((Object[]) COLUMNS);
+        long rows = query(filter, rs -> {
+            csv.field(rs.getLong(1))
+                    .field(rs.getString(2))
+                    .field(rs.getString(3))
+                    .field(rs.getString(4))
+                    .field(rs.getString(5))
+                    .field(rs.getObject(6))
+                    .field(rs.getString(7))
+                    .field(timestamp(rs, 8))
+                    .field(rs.getInt(9))
+                    .field(timestamp(rs, 10));
+            csv.endRow();
+        });
+        csv.flush();
+        return rows;
+    }
+
+    private long query(AuditLogFilter filter, RowWriter rowWriter) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>();
+        appendCriteria(filter, sql, params);
+        sql.append(" ORDER BY a.timestamp, a.id");
+
+        long[] rows = {0};
+        RowCallbackHandler handler = rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                // Client déconnecté ou erreur d'écriture : on interrompt la lecture du curseur
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                return ps;
+            }, handler);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    private static void appendCriteria(AuditLogFilter filter, StringBuilder sql, List<Object> params) {
+        List<String> clauses = new ArrayList<>();
+        if (filter.getUserId() != null) {
+            clauses.add("a.user_id = ?");
+            params.add(filter.getUserId());
+        }
+        if (filter.getAction() != null) {
+            clauses.add("a.action = ?");
+            params.add(filter.getAction().name());
+        }
+        if (filter.getResource() != null) {
+            clauses.add("a.resource = ?");
+            params.add(filter.getResource().name());
+        }
+        if (filter.getResourceId() != null) {
+            clauses.add("a.resource_id = ?");
+            params.add(filter.getResourceId());
+        }
+        if (filter.getFrom() != null) {
+            clauses.add("a.timestamp >= ?");
+            params.add(Timestamp.valueOf(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            clauses.add("a.timestamp < ?");
+            params.add(Timestamp.valueOf(filter.getTo()));
+        }
+        if (!clauses.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", clauses));
+        }
+    }
+
+    private static String timestamp(ResultSet rs, int column) throws SQLException {
+        LocalDateTime timestamp = rs.getObject(column, LocalDateTime.class);
+        return timestamp != null ? timestamp.toString() : null;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.dto.AuditLogPageDTO;
+import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.repository.AuditLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Consultation du journal d'audit par pages de taille bornée.
+ * Le curseur encode la clé (timestamp, id) de la dernière ligne renvoyée : le coût d'une page
+ * ne dépend pas de sa position dans le journal, contrairement à un OFFSET.
+ * Sur demande, la recherche se poursuit dans l'archive ({@link AuditArchiveStore}) une fois la table épuisée :
+ * les lignes archivées étant les plus anciennes, le même curseur sert pour les deux sources.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AuditLogQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditArchiveStore archiveStore;
+
+    @Autowired
+    public AuditLogQueryService(AuditLogRepository auditLogRepository, AuditArchiveStore archiveStore) {
+        this.auditLogRepository = auditLogRepository;
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * @param filter Les critères de recherche.
+     * @param cursor Le curseur renvoyé par la page précédente, ou null pour la première page.
+     * @param size   Le nombre de lignes souhaité (borné à {@link #MAX_PAGE_SIZE}).
+     */
+    public AuditLogPageDTO search(AuditLogFilter filter, String cursor, Integer size) {
+        return search(filter, cursor, size, false);
+    }
+
+    /**
+     * @param filter          Les critères de recherche.
+     * @param cursor          Le curseur renvoyé par la page précédente, ou null pour la première page.
+     * @param size            Le nombre de lignes souhaité (borné à {@link #MAX_PAGE_SIZE}).
+     * @param includeArchived Poursuivre dans l'archive une fois la table épuisée.
+     */
+    public AuditLogPageDTO search(AuditLogFilter filter, String cursor, Integer size, boolean includeArchived) {
+        if (filter.getFrom() != null && filter.getTo() != null && !filter.getFrom().isBefore(filter.getTo())) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        int limit = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        LocalDateTime afterTs = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            afterTs = LocalDateTime.parse(key[0]);
+            afterId = Long.parseLong(key[1]);
+        }
+
+        // Une ligne de plus pour savoir s'il existe une page suivante
+        List<AuditLogResponseDTO> rows = auditLogRepository.search(filter, afterTs, afterId, limit + 1);
+        if (includeArchived && rows.size() <= limit) {
+            // Table épuisée pour ces critères : la suite se trouve dans l'archive, après la dernière clé lue
+            rows = new ArrayList<>(rows);
+            if (!rows.isEmpty()) {
+                AuditLogResponseDTO last = rows.get(rows.size() - 1);
+                afterTs = last.getTimestamp();
+                afterId = last.getId();
+            }
+            for (ArchivedAuditLog archived : archiveStore.search(filter, afterTs, afterId, limit + 1 - rows.size())) {
+                rows.add(archived.toResponse());
+            }
+        }
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            AuditLogResponseDTO last = rows.get(limit - 1);
+            nextCursor = encodeCursor(last.getTimestamp(), last.getId());
+        }
+        return new AuditLogPageDTO(rows, nextCursor);
+    }
+
+    private static String encodeCursor(LocalDateTime timestamp, Long id) {
+        String key = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(key[0]);
+            Long.parseLong(key[1]);
+            return key;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Curseur de pagination invalide.");
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Écriture asynchrone du journal d'audit.
+ * <p>
+ * Les événements sont déposés dans une file bornée en mémoire (un simple offer sur le thread appelant)
+ * puis vidés par un thread dédié en insertions JDBC par lots, dans une transaction par lot.
+ * Lorsque la file est pleine, la politique {@link AuditOverflowPolicy} s'applique.
+ * Un lot dont l'insertion échoue est écrit dans le fichier de débordement (politique SPILL) ou compté comme perdu.
+ * <p>
+ * Les actions répétitives (READ par défaut) sont regroupées par le thread d'écriture : la première occurrence d'une
+ * clé (auteur et rôles, action, ressource, ID de ressource, détails) est insérée aussitôt, comme tout autre événement ;
+ * les occurrences suivantes pendant la fenêtre {@code coalesceWindowMs} mettent à jour sur place le nombre
+ * d'occurrences et la dernière occurrence (lastSeen) de cette ligne, par lots, au plus toutes les {@code flushIntervalMs}.
+ * Un arrêt brutal ne perd que les occurrences comptées depuis la dernière mise à jour.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (user_id, actor_username, actor_roles, action, resource, resource_id, details, timestamp,"
+                    + " occurrences, last_seen) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_OCCURRENCES_SQL =
+            "UPDATE audit_logs SET occurrences = ?, last_seen = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Path spillFile;
+    private final BlockingQueue<AuditEvent> queue;
+    private final Duration coalesceWindow;
+    private final Set<AuditAction> coalescedActions;
+    private final int coalesceMaxKeys;
+
+    // Regroupements ouverts, par ordre de première occurrence ; accédés uniquement par le thread d'écriture
+    private final LinkedHashMap<CoalesceKey, CoalesceGroup> coalescing = new LinkedHashMap<>();
+
+    // Regroupements évincés (coalesceMaxKeys) dont le nombre d'occurrences reste à écrire
+    private final List<CoalesceGroup> evicted = new ArrayList<>();
+
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter coalesced;
+
+    private volatile boolean running = true;
+    private Thread drainer;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${hgs.siags.audit.queueCapacity:8192}") int queueCapacity,
+                          @Value("${hgs.siags.audit.batchSize:200}") int batchSize,
+                          @Value("${hgs.siags.audit.flushIntervalMs:500}") long flushIntervalMs,
+                          @Value("${hgs.siags.audit.overflowPolicy:SPILL}") AuditOverflowPolicy overflowPolicy,
+                          @Value("${hgs.siags.audit.spillFile:./audit-spill.ndjson}") String spillFile,
+                          @Value("${hgs.siags.audit.coalesceWindowMs:60000}") long coalesceWindowMs,
+                          @Value("${hgs.siags.audit.coalesceActions:READ}") AuditAction[] coalescedActions,
+                          @Value("${hgs.siags.audit.coalesceMaxKeys:10000}") int coalesceMaxKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.spillFile = Paths.get(spillFile);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.coalesceWindow = Duration.ofMillis(coalesceWindowMs);
+        this.coalescedActions = coalesceWindowMs > 0 && coalescedActions.length > 0
+                ? EnumSet.copyOf(Arrays.asList(coalescedActions))
+                : EnumSet.noneOf(AuditAction.class);
+        this.coalesceMaxKeys = coalesceMaxKeys;
+
+        Gauge.builder("siags.audit.queue.size", queue, BlockingQueue::size)
+                .description("Événements d'audit en attente d'écriture")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("siags.audit.events.dropped").register(meterRegistry);
+        this.spilled = Counter.builder("siags.audit.events.spilled").register(meterRegistry);
+        this.written = Counter.builder("siags.audit.events.written").register(meterRegistry);
+        this.failed = Counter.builder("siags.audit.events.failed").register(meterRegistry);
+        this.coalesced = Counter.builder("siags.audit.events.coalesced")
+                .description("Événements fusionnés dans une ligne existante")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        replaySpillFile();
+        drainer = new Thread(this::drainLoop, "audit-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        drainer.interrupt();
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+        // Ce qui reste après l'arrêt du thread est écrit directement, puis tous les regroupements sont clos
+        List<AuditEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        process(remaining, new ArrayList<>(remaining.size()));
+        updateCoalesced(LocalDateTime.MAX);
+    }
+
+    /**
+     * Dépose un événement. Coût nominal : un offer sur une file bornée.
+     */
+    public void enqueue(AuditEvent event) {
+        if (queue.offer(event)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP -> dropped.increment();
+            case SPILL -> spill(List.of(event));
+        }
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> received = new ArrayList<>(batchSize);
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long nextUpdate = System.currentTimeMillis() + flushIntervalMs;
+        while (running) {
+            try {
+                AuditEvent first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    received.add(first);
+                    queue.drainTo(received, batchSize - 1);
+                }
+                process(received, batch);
+                if (System.currentTimeMillis() >= nextUpdate) {
+                    updateCoalesced(LocalDateTime.now());
+                    nextUpdate = System.currentTimeMillis() + flushIntervalMs;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Erreur inattendue du writer d'audit : {}", e.getMessage());
+            } finally {
+                received.clear();
+                batch.clear();
+            }
+        }
+    }
+
+    // Insère les événements reçus, hormis les occurrences fusionnées dans un regroupement déjà ouvert
+    private void process(List<AuditEvent> received, List<AuditEvent> batch) {
+        List<CoalesceGroup> opened = new ArrayList<>();
+        for (AuditEvent event : received) {
+            if (!coalesce(event, opened)) {
+                batch.add(event);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+        // Sans ligne insérée (débordée ou perdue avec son compte), le regroupement ne peut pas être mis à jour
+        for (CoalesceGroup group : opened) {
+            if (group.rowId == null) {
+                coalescing.remove(group.key, group);
+            }
+        }
+    }
+
+    /**
+     * Fusionne l'événement dans le regroupement ouvert pour sa clé, ou en ouvre un.
+     *
+     * @param opened Reçoit le regroupement ouvert par cet événement, dont la première ligne reste à insérer.
+     * @return true si l'événement a été fusionné (rien à insérer).
+     */
+    private boolean coalesce(AuditEvent event, List<CoalesceGroup> opened) {
+        if (!coalescedActions.contains(event.getAction())) {
+            return false;
+        }
+        CoalesceKey key = new CoalesceKey(event);
+        CoalesceGroup group = coalescing.get(key);
+        if (group == null) {
+            group = new CoalesceGroup(key, event);
+            coalescing.put(key, group);
+            opened.add(group);
+            if (coalescing.size() > coalesceMaxKeys) {
+                Iterator<CoalesceGroup> eldest = coalescing.values().iterator();
+                CoalesceGroup closed = eldest.next();
+                eldest.remove();
+                if (closed.dirty) {
+                    evicted.add(closed);
+                }
+            }
+            return false;
+        }
+        AuditEvent first = group.first;
+        first.setOccurrences(first.getOccurrences() + event.getOccurrences());
+        LocalDateTime lastSeen = event.getLastSeen() != null ? event.getLastSeen() : event.getTimestamp();
+        if (first.getLastSeen() == null || lastSeen.isAfter(first.getLastSeen())) {
+            first.setLastSeen(lastSeen);
+        }
+        // Avant l'insertion de la première ligne, le compte part avec elle
+        if (group.rowId != null) {
+            group.dirty = true;
+        }
+        coalesced.increment();
+        return true;
+    }
+
+    // Écrit les comptes modifiés depuis la dernière mise à jour et clôt les regroupements dont la fenêtre est écoulée
+    private void updateCoalesced(LocalDateTime now) {
+        List<CoalesceGroup> updates = new ArrayList<>(evicted);
+        evicted.clear();
+        Iterator<CoalesceGroup> it = coalescing.values().iterator();
+        while (it.hasNext()) {
+            CoalesceGroup group = it.next();
+            if (group.dirty) {
+                updates.add(group);
+                group.dirty = false;
+            }
+            if (!group.first.getTimestamp().plus(coalesceWindow).isAfter(now)) {
+                it.remove();
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_OCCURRENCES_SQL, updates, updates.size(), (ps, group) -> {
+                        ps.setInt(1, group.first.getOccurrences());
+                        ps.setTimestamp(2, Timestamp.valueOf(group.first.getLastSeen()));
+                        ps.setLong(3, group.rowId);
+                    }));
+        } catch (RuntimeException e) {
+            // Les regroupements encore ouverts seront réécrits à la prochaine échéance (valeurs absolues)
+            updates.forEach(group -> group.dirty = true);
+            logger.warn("Échec de la mise à jour de {} regroupement(s) d'audit : {}", updates.size(), e.getMessage());
+        }
+    }
+
+    // Associe la ligne insérée au regroupement qu'elle a ouvert
+    private void recordRowId(AuditEvent event, Long id) {
+        if (!coalescedActions.contains(event.getAction())) {
+            return;
+        }
+        CoalesceGroup group = coalescing.get(new CoalesceKey(event));
+        if (group != null && group.first == event) {
+            group.rowId = id;
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        try {
+            List<Long> ids = insertBatch(batch);
+            written.increment(batch.size());
+            for (int i = 0; i < ids.size(); i++) {
+                recordRowId(batch.get(i), ids.get(i));
+            }
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Échec de l'insertion groupée de {} événement(s) d'audit, nouvel essai ligne par ligne : {}",
+                    batch.size(), e.getMessage());
+        }
+        // Une ligne invalide ne doit pas faire perdre tout le lot
+        List<AuditEvent> rejected = new ArrayList<>();
+        for (AuditEvent event : batch) {
+            try {
+                List<Long> ids = insertBatch(List.of(event));
+                written.increment();
+                if (!ids.isEmpty()) {
+                    recordRowId(event, ids.get(0));
+                }
+            } catch (RuntimeException e) {
+                rejected.add(event);
+            }
+        }
+        if (rejected.isEmpty()) {
+            return;
+        }
+        logger.error("{} événement(s) d'audit non insérés.", rejected.size());
+        if (overflowPolicy == AuditOverflowPolicy.SPILL) {
+            spill(rejected);
+        } else {
+            failed.increment(rejected.size());
+        }
+    }
+
+    // Retourne les ID générés dans l'ordre du lot, ou une liste vide si le pilote ne les fournit pas tous
+    private List<Long> insertBatch(List<AuditEvent> batch) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                AuditEvent event = batch.get(i);
+                                // Référence par ID : l'entité User n'est jamais chargée
+                                setNullableLong(ps, 1, event.getUserId());
+                                ps.setString(2, event.getActorUsername());
+                                ps.setString(3, event.getActorRoles());
+                                ps.setString(4, event.getAction().name());
+                                ps.setString(5, event.getResource().name());
+                                setNullableLong(ps, 6, event.getResourceId());
+                                ps.setString(7, event.getDetails());
+                                ps.setTimestamp(8, Timestamp.valueOf(event.getTimestamp()));
+                                ps.setInt(9, Math.max(1, event.getOccurrences()));
+                                ps.setTimestamp(10, Timestamp.valueOf(
+                                        event.getLastSeen() != null ? event.getLastSeen() : event.getTimestamp()));
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        }, keyHolder));
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != batch.size()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    // Une ligne JSON par événement ; synchronisé car appelé par les threads appelants et par le writer
+    private synchronized void spill(List<AuditEvent> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+            spilled.increment(events.size());
+        } catch (IOException e) {
+            logger.error("Impossible d'écrire {} événement(s) d'audit dans {} : {}", events.size(), spillFile, e.getMessage());
+            failed.increment(events.size());
+        }
+    }
+
+    // Rejoue les événements débordés lors d'une exécution précédente, par lots pris en fin de fichier :
+    // le fichier est tronqué devant chaque lot inséré, de sorte qu'un échec n'en fait rejouer au prochain démarrage
+    // que les lignes restantes (au plus un lot en double si l'arrêt survient entre l'insertion et la troncature).
+    // Chaque ligne garde son timestamp d'origine : l'ordre de rejeu n'a pas d'incidence sur la consultation.
+    private synchronized void replaySpillFile() {
+        if (!Files.exists(spillFile)) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(spillFile);
+            List<Integer> lineStarts = new ArrayList<>();
+            for (int i = 0; i < content.length; i++) {
+                if (i == 0 || content[i - 1] == '\n') {
+                    lineStarts.add(i);
+                }
+            }
+            int replayed = 0;
+            try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.WRITE)) {
+                for (int end = lineStarts.size(); end > 0; ) {
+                    int begin = Math.max(0, end - batchSize);
+                    List<AuditEvent> batch = new ArrayList<>(end - begin);
+                    for (int i = begin; i < end; i++) {
+                        int from = lineStarts.get(i);
+                        int to = i + 1 < lineStarts.size() ? lineStarts.get(i + 1) : content.length;
+                        String line = new String(content, from, to - from, StandardCharsets.UTF_8);
+                        if (!line.isBlank()) {
+                            batch.add(objectMapper.readValue(line, AuditEvent.class));
+                        }
+                    }
+                    if (!batch.isEmpty()) {
+                        insertBatch(batch);
+                        replayed += batch.size();
+                    }
+                    channel.truncate(lineStarts.get(begin));
+                    channel.force(true);
+                    end = begin;
+                }
+            }
+            Files.delete(spillFile);
+            logger.info("{} événement(s) d'audit rejoué(s) depuis {}", replayed, spillFile);
+        } catch (IOException | RuntimeException e) {
+            // Le fichier est conservé : il sera rejoué au prochain démarrage
+            logger.error("Échec du rejeu du fichier d'audit {} : {}", spillFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Clé de regroupement : auteur (ID, ou nom pour un traitement système) et rôles, action, ressource et détails.
+     * Seules des occurrences identiques en tout point hormis l'horodatage sont fusionnées : rien d'autre n'est perdu.
+     */
+    private static final class CoalesceKey {
+        private final Long userId;
+        private final String actorUsername;
+        private final String actorRoles;
+        private final AuditAction action;
+        private final AuditResource resource;
+        private final Long resourceId;
+        private final String details;
+
+        private CoalesceKey(AuditEvent event) {
+            this.userId = event.getUserId();
+            this.actorUsername = event.getUserId() == null ? event.getActorUsername() : null;
+            this.actorRoles = event.getActorRoles();
+            this.action = event.getAction();
+            this.resource = event.getResource();
+            this.resourceId = event.getResourceId();
+            this.details = event.getDetails();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CoalesceKey other)) {
+                return false;
+            }
+            return Objects.equals(userId, other.userId)
+                    && Objects.equals(actorUsername, other.actorUsername)
+                    && Objects.equals(actorRoles, other.actorRoles)
+                    && action == other.action
+                    && resource == other.resource
+                    && Objects.equals(resourceId, other.resourceId)
+                    && Objects.equals(details, other.details);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, actorUsername, actorRoles, action, resource, resourceId, details);
+        }
+    }
+
+    /**
+     * Regroupement ouvert : sa première occurrence porte le nombre d'occurrences et la dernière occurrence,
+     * et rowId l'ID de la ligne insérée pour elle.
+     */
+    private static final class CoalesceGroup {
+        private final CoalesceKey key;
+        private final AuditEvent first;
+        private Long rowId;
+        private boolean dirty; // Compte modifié depuis la dernière écriture
+
+        private CoalesceGroup(CoalesceKey key, AuditEvent first) {
+            this.key = key;
+            this.first = first;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+/**
+ * Comportement du journal d'audit lorsque la file en mémoire est pleine.
+ */
+public enum AuditOverflowPolicy {
+    // Le thread appelant attend qu'une place se libère : aucune perte, mais la requête est ralentie
+    BLOCK,
+    // L'événement est abandonné et compté (métrique siags.audit.events.dropped)
+    DROP,
+    // L'événement est écrit dans un fichier local, rejoué au prochain démarrage
+    SPILL
+}
@@ -0,0 +1,26 @@
+package com.hgs.patient.siags_backend.service.census;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Une admission active dans l'index de recensement : immuable, partagée entre les lectures concurrentes.
+ * Chambre et lit peuvent être null (patient admis mais pas encore installé).
+ */
+@Getter
+@AllArgsConstructor // Utilisé par la requête de reconstruction (expression constructeur JPQL)
+@EqualsAndHashCode
+@ToString
+public final class BedOccupancy {
+    private final Long admissionId;
+    private final Long patientId;
+    private final Long departmentId;
+    private final String departmentName;
+    private final String roomNumber;
+    private final String bedNumber;
+    private final LocalDateTime admittedAt;
+}
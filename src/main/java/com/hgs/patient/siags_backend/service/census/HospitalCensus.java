@@ -0,0 +1,257 @@
+package com.hgs.patient.siags_backend.service.census;
+
+import com.hgs.patient.siags_backend.dto.DepartmentCensusDTO;
+import com.hgs.patient.siags_backend.exception.ServiceOverloadedException;
+import com.hgs.patient.siags_backend.model.Admission;
+import com.hgs.patient.siags_backend.repository.AdmissionRepository;
+import com.hgs.patient.siags_backend.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Recensement en mémoire des patients hospitalisés (admissions ACTIVE), par département, chambre et lit.
+ * <p>
+ * Les lectures se font sans verrou sur un instantané immuable ; chaque écriture (rare) en publie un
+ * nouveau, en ne recopiant que l'index par admission et la liste du département concerné.
+ * AdmissionServiceImp notifie les créations, mises à jour (sortie, transfert, annulation, changement
+ * de lit) et suppressions après validation de la transaction. L'index est construit au démarrage puis
+ * rapproché périodiquement de la base, ce qui corrige les écarts éventuels (écriture directe en base,
+ * notifications concurrentes appliquées dans le désordre).
+ */
+@Component
+public class HospitalCensus {
+
+    private static final Logger logger = LoggerFactory.getLogger(HospitalCensus.class);
+
+    private static final Comparator<BedOccupancy> BY_LOCATION = Comparator
+            .comparing(BedOccupancy::getRoomNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BedOccupancy::getBedNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BedOccupancy::getAdmissionId);
+
+    private final AdmissionRepository admissionRepository;
+    private final boolean enabled;
+    private final Counter drift;
+
+    private final Object lock = new Object();
+    private volatile Snapshot snapshot; // Null tant que l'index n'est pas construit
+    // Admissions modifiées pendant un rapprochement : leur état en mémoire est plus récent que la lecture en base
+    private Map<Long, BedOccupancy> touchedDuringReconcile;
+
+    public HospitalCensus(AdmissionRepository admissionRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${hgs.siags.census.enabled:true}") boolean enabled) {
+        this.admissionRepository = admissionRepository;
+        this.enabled = enabled;
+        this.drift = Counter.builder("siags.census.reconcile.drift")
+                .description("Admissions corrigées dans le recensement lors du rapprochement avec la base")
+                .register(meterRegistry);
+        Gauge.builder("siags.census.admitted", this, census -> {
+                    Snapshot current = census.snapshot;
+                    return current != null ? current.byAdmission.size() : 0;
+                })
+                .description("Patients actuellement hospitalisés")
+                .register(meterRegistry);
+    }
+
+    // --- Notifications (appelées dans la transaction de l'écriture, appliquées après validation) ---
+
+    /**
+     * Prend en compte l'état d'une admission créée ou modifiée : présente dans l'index si ACTIVE, retirée sinon.
+     */
+    public void admissionSaved(Admission admission) {
+        Long id = admission.getId();
+        BedOccupancy occupancy = admission.getStatus() == Admission.AdmissionStatus.ACTIVE ? toOccupancy(admission) : null;
+        AfterCommit.run(() -> apply(id, occupancy));
+    }
+
+    public void admissionDeleted(Long admissionId) {
+        AfterCommit.run(() -> apply(admissionId, null));
+    }
+
+    private static BedOccupancy toOccupancy(Admission admission) {
+        // getId() sur un proxy Hibernate ne déclenche pas de chargement ; getName() le charge dans la transaction
+        Long departmentId = admission.getAssignedDepartment() != null ? admission.getAssignedDepartment().getId() : null;
+        String departmentName = admission.getAssignedDepartment() != null ? admission.getAssignedDepartment().getName() : null;
+        return new BedOccupancy(admission.getId(), admission.getPatient().getId(), departmentId, departmentName,
+                admission.getRoomNumber(), admission.getBedNumber(), admission.getAdmissionDate());
+    }
+
+    private void apply(Long admissionId, BedOccupancy occupancy) {
+        synchronized (lock) {
+            if (touchedDuringReconcile != null) {
+                touchedDuringReconcile.put(admissionId, occupancy);
+            }
+            Snapshot current = snapshot;
+            if (current == null) {
+                return; // Pas encore construit : la construction lira l'état validé
+            }
+            BedOccupancy previous = current.byAdmission.get(admissionId);
+            if (Objects.equals(previous, occupancy)) {
+                return;
+            }
+            Map<Long, BedOccupancy> byAdmission = new HashMap<>(current.byAdmission);
+            Map<Long, List<BedOccupancy>> byDepartment = new HashMap<>(current.byDepartment);
+            if (previous != null) {
+                byAdmission.remove(admissionId);
+                List<BedOccupancy> list = new ArrayList<>(byDepartment.get(previous.getDepartmentId()));
+                list.remove(previous);
+                if (list.isEmpty()) {
+                    byDepartment.remove(previous.getDepartmentId());
+                } else {
+                    byDepartment.put(previous.getDepartmentId(), List.copyOf(list));
+                }
+            }
+            if (occupancy != null) {
+                byAdmission.put(admissionId, occupancy);
+                List<BedOccupancy> list = new ArrayList<>(byDepartment.getOrDefault(occupancy.getDepartmentId(), List.of()));
+                list.add(occupancy);
+                list.sort(BY_LOCATION);
+                byDepartment.put(occupancy.getDepartmentId(), List.copyOf(list));
+            }
+            snapshot = new Snapshot(byAdmission, byDepartment);
+        }
+    }
+
+    // --- Construction et rapprochement ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${hgs.siags.census.reconcileIntervalMs:300000}",
+            initialDelayString = "${hgs.siags.census.reconcileIntervalMs:300000}")
+    public synchronized void reconcile() { // Un seul rapprochement à la fois ; les lectures et notifications ne sont pas bloquées
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            touchedDuringReconcile = new HashMap<>();
+        }
+        List<BedOccupancy> fromDatabase;
+        try {
+            fromDatabase = admissionRepository.findOccupanciesByStatus(Admission.AdmissionStatus.ACTIVE);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                touchedDuringReconcile = null;
+            }
+            logger.error("Échec du rapprochement du recensement : {}", e.getMessage());
+            return;
+        }
+
+        synchronized (lock) {
+            Map<Long, BedOccupancy> byAdmission = new HashMap<>();
+            fromDatabase.forEach(occupancy -> byAdmission.put(occupancy.getAdmissionId(), occupancy));
+            touchedDuringReconcile.forEach((id, occupancy) -> {
+                if (occupancy != null) {
+                    byAdmission.put(id, occupancy);
+                } else {
+                    byAdmission.remove(id);
+                }
+            });
+            touchedDuringReconcile = null;
+
+            Snapshot current = snapshot;
+            if (current != null) {
+                long corrected = countDifferences(current.byAdmission, byAdmission);
+                if (corrected > 0) {
+                    drift.increment(corrected);
+                    logger.warn("Recensement : {} admission(s) corrigée(s) lors du rapprochement avec la base.", corrected);
+                }
+            }
+            // Regroupement manuel : groupingBy refuse la clé null (admissions sans département)
+            Map<Long, List<BedOccupancy>> byDepartment = new HashMap<>();
+            byAdmission.values().stream().sorted(BY_LOCATION).forEach(occupancy ->
+                    byDepartment.computeIfAbsent(occupancy.getDepartmentId(), id -> new ArrayList<>()).add(occupancy));
+            byDepartment.replaceAll((id, list) -> List.copyOf(list));
+            snapshot = new Snapshot(byAdmission, byDepartment);
+        }
+    }
+
+    private static long countDifferences(Map<Long, BedOccupancy> memory, Map<Long, BedOccupancy> database) {
+        long differences = memory.entrySet().stream()
+                .filter(entry -> !Objects.equals(entry.getValue(), database.get(entry.getKey())))
+                .count();
+        return differences + database.keySet().stream().filter(id -> !memory.containsKey(id)).count();
+    }
+
+    // --- Lectures ---
+
+    /**
+     * Résumé par département (sans le détail des admissions), trié par nom.
+     */
+    public List<DepartmentCensusDTO> summary() {
+        return current().byDepartment.values().stream()
+                .map(list -> toDto(list, false))
+                .sorted(Comparator.comparing(DepartmentCensusDTO::getDepartmentName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Admissions actives d'un département, triées par chambre puis lit. Vide si aucun patient n'y est admis.
+     */
+    public DepartmentCensusDTO department(Long departmentId) {
+        List<BedOccupancy> list = current().byDepartment.get(departmentId);
+        if (list == null) {
+            return new DepartmentCensusDTO(departmentId, null, 0, 0, List.of());
+        }
+        return toDto(list, true);
+    }
+
+    public List<BedOccupancy> room(Long departmentId, String roomNumber) {
+        return current().byDepartment.getOrDefault(departmentId, List.of()).stream()
+                .filter(occupancy -> roomNumber.equals(occupancy.getRoomNumber()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return L'occupant du lit, ou vide si le lit est libre.
+     */
+    public Optional<BedOccupancy> bed(Long departmentId, String roomNumber, String bedNumber) {
+        return current().byDepartment.getOrDefault(departmentId, List.of()).stream()
+                .filter(occupancy -> roomNumber.equals(occupancy.getRoomNumber()) && bedNumber.equals(occupancy.getBedNumber()))
+                .findFirst();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new ServiceOverloadedException("Recensement en cours de construction.", 5);
+        }
+        return current;
+    }
+
+    private static DepartmentCensusDTO toDto(List<BedOccupancy> list, boolean withAdmissions) {
+        BedOccupancy first = list.get(0);
+        int occupiedBeds = (int) list.stream().filter(occupancy -> occupancy.getBedNumber() != null).count();
+        return new DepartmentCensusDTO(first.getDepartmentId(), first.getDepartmentName(), list.size(), occupiedBeds,
+                withAdmissions ? list : null);
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, BedOccupancy> byAdmission;
+        private final Map<Long, List<BedOccupancy>> byDepartment; // Listes immuables, triées par chambre et lit
+
+        private Snapshot(Map<Long, BedOccupancy> byAdmission, Map<Long, List<BedOccupancy>> byDepartment) {
+            this.byAdmission = byAdmission;
+            this.byDepartment = byDepartment;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hgs.patient.siags_backend.service.export;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+
+/**
+ * Formats d'export des rapports.
+ */
+public enum ReportExportFormat {
+    // En-tête puis une ligne par entrée, encodé en UTF-8 avec BOM pour les tableurs
+    CSV("text/csv;charset=UTF-8", "csv"),
+    // Classeur d'une feuille, première ligne = en-têtes
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ReportExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Lit le paramètre de requête {@code format}, sans tenir compte de la casse.
+     */
+    public static ReportExportFormat fromParameter(String value) {
+        for (ReportExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Format d'export inconnu : " + value + " (csv ou xlsx).");
+    }
+}
@@ -0,0 +1,170 @@
+package com.hgs.patient.siags_backend.service.export;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import com.hgs.patient.siags_backend.service.AuditService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Exports CSV et XLSX des rapports et des listes d'admissions et de consultations.
+ * <p>
+ * Les rapports, déjà agrégés (et mis en cache), sont calculés avant l'envoi des en-têtes de réponse,
+ * de sorte qu'une erreur de paramètre reste une réponse 400. Les listes sont lues par un curseur JDBC
+ * en avant seulement (paquets de {@code fetchSize} lignes côté pilote MariaDB) et écrites une à une dans
+ * la réponse, comme l'export du journal d'audit : la mémoire utilisée ne dépend pas du nombre de lignes.
+ */
+@Service
+public class ReportExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Intervalles [start, end) sur les colonnes de date indexées, dans l'ordre chronologique
+    private static final String ADMISSIONS_SQL =
+            "SELECT a.id, a.admission_date, a.discharge_date, a.status, p.id, p.patient_number, p.last_name, p.first_name,"
+                    + " d.name, a.room_number, a.bed_number, u.username, a.reason_for_admission, a.diagnosis"
+                    + " FROM admissions a JOIN patients p ON p.id = a.patient_id"
+                    + " LEFT JOIN departments d ON d.id = a.department_id LEFT JOIN users u ON u.id = a.medecin_id"
+                    + " WHERE a.admission_date >= ? AND a.admission_date < ? ORDER BY a.admission_date, a.id";
+    private static final String[] ADMISSION_COLUMNS =
+            {"id", "admissionDate", "dischargeDate", "status", "patientId", "patientNumber", "lastName", "firstName",
+                    "department", "roomNumber", "bedNumber", "medecinUsername", "reasonForAdmission", "diagnosis"};
+
+    private static final String CONSULTATIONS_SQL =
+            "SELECT c.id, c.consultation_date, p.id, p.patient_number, p.last_name, p.first_name, u.username,"
+                    + " c.reason_for_consultation, c.diagnosis"
+                    + " FROM consultations c JOIN patients p ON p.id = c.patient_id LEFT JOIN users u ON u.id = c.doctor_id"
+                    + " WHERE c.consultation_date >= ? AND c.consultation_date < ? ORDER BY c.consultation_date, c.id";
+    private static final String[] CONSULTATION_COLUMNS =
+            {"id", "consultationDate", "patientId", "patientNumber", "lastName", "firstName", "doctorUsername",
+                    "reasonForConsultation", "diagnosis"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditService auditService;
+    private final int fetchSize;
+
+    @Autowired
+    public ReportExportService(JdbcTemplate jdbcTemplate,
+                               AuditService auditService,
+                               @Value("${hgs.siags.reports.export.fetchSize:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditService = auditService;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Export d'un rapport déjà calculé : une ligne d'en-têtes puis une ligne par élément.
+     */
+    public <T> StreamingResponseBody table(ReportExportFormat format, String sheetName, String[] columns,
+                                           List<T> rows, Function<T, Object[]> toRow) {
+        return outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+            TableWriter table = TableWriter.open(format, out, sheetName);
+            table.row((Object[]) columns);
+            for (T row : rows) {
+                table.row(toRow.apply(row));
+            }
+            table.finish();
+            out.flush();
+        };
+    }
+
+    /**
+     * Admissions dont la date d'admission est dans [start, end).
+     */
+    public StreamingResponseBody admissions(ReportExportFormat format, LocalDate start, LocalDate end) {
+        checkRange(start, end);
+        auditService.logAction(AuditAction.READ, AuditResource.ADMISSION, null,
+                "Export des admissions du " + start + " au " + end + " (" + format + ")");
+        return listing(format, "Admissions", ADMISSIONS_SQL, ADMISSION_COLUMNS, start, end, (table, rs) -> table.row(
+                rs.getLong(1), timestamp(rs, 2), timestamp(rs, 3), rs.getString(4), rs.getLong(5), rs.getString(6),
+                rs.getString(7), rs.getString(8), rs.getString(9), rs.getString(10), rs.getString(11), rs.getString(12),
+                rs.getString(13), rs.getString(14)));
+    }
+
+    /**
+     * Consultations dont la date est dans [start, end).
+     */
+    public StreamingResponseBody consultations(ReportExportFormat format, LocalDate start, LocalDate end) {
+        checkRange(start, end);
+        auditService.logAction(AuditAction.READ, AuditResource.CONSULTATION, null,
+                "Export des consultations du " + start + " au " + end + " (" + format + ")");
+        return listing(format, "Consultations", CONSULTATIONS_SQL, CONSULTATION_COLUMNS, start, end, (table, rs) -> table.row(
+                rs.getLong(1), timestamp(rs, 2), rs.getLong(3), rs.getString(4), rs.getString(5), rs.getString(6),
+                rs.getString(7), rs.getString(8), rs.getString(9)));
+    }
+
+    private static void checkRange(LocalDate start, LocalDate end) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+    }
+
+    private StreamingResponseBody listing(ReportExportFormat format, String sheetName, String sql, String[] columns,
+                                          LocalDate start, LocalDate end, RowWriter rowWriter) {
+        return outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+            long begin = System.nanoTime();
+            TableWriter table = TableWriter.open(format, out, sheetName);
+            table.row((Object[]) columns);
+
+            long[] rows = {0};
+            RowCallbackHandler handler = rs -> {
+                try {
+                    rowWriter.write(table, rs);
+                } catch (IOException e) {
+                    // Client déconnecté ou erreur d'écriture : on interrompt la lecture du curseur
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            };
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(fetchSize);
+                    ps.setTimestamp(1, Timestamp.valueOf(start.atStartOfDay()));
+                    ps.setTimestamp(2, Timestamp.valueOf(end.atStartOfDay()));
+                    return ps;
+                }, handler);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            table.finish();
+            out.flush();
+            logger.info("Export {} ({}) du {} au {} : {} ligne(s) en {} ms.",
+                    sheetName, format, start, end, rows[0], (System.nanoTime() - begin) / 1_000_000);
+        };
+    }
+
+    private static String timestamp(ResultSet rs, int column) throws SQLException {
+        LocalDateTime timestamp = rs.getObject(column, LocalDateTime.class);
+        return timestamp != null ? timestamp.toString() : null;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(TableWriter table, ResultSet rs) throws SQLException, IOException;
+    }
+}
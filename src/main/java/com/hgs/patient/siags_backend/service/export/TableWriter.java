@@ -0,0 +1,54 @@
+package com.hgs.patient.siags_backend.service.export;
+
+import com.hgs.patient.siags_backend.util.CsvWriter;
+import com.hgs.patient.siags_backend.util.XlsxWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture ligne à ligne d'un tableau dans le format d'export demandé.
+ */
+interface TableWriter {
+
+    void row(Object... values) throws IOException;
+
+    /**
+     * Termine le document et vide les tampons, sans fermer le flux de sortie.
+     */
+    void finish() throws IOException;
+
+    static TableWriter open(ReportExportFormat format, OutputStream out, String sheetName) throws IOException {
+        if (format == ReportExportFormat.XLSX) {
+            XlsxWriter xlsx = new XlsxWriter(out, sheetName);
+            return new TableWriter() {
+                @Override
+                public void row(Object... values) throws IOException {
+                    xlsx.row(values);
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    xlsx.finish();
+                }
+            };
+        }
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write('\uFEFF'); // BOM : accents correctement affichés par les tableurs
+        CsvWriter csv = new CsvWriter(writer);
+        return new TableWriter() {
+            @Override
+            public void row(Object... values) throws IOException {
+                csv.row(values);
+            }
+
+            @Override
+            public void finish() throws IOException {
+                csv.flush();
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.hgs.patient.siags_backend.service.imp;
 
+import com.hgs.patient.siags_backend.config.ReportCacheConfig;
 import com.hgs.patient.siags_backend.dto.AdmissionRequestDTO;
 import com.hgs.patient.siags_backend.dto.AdmissionResponseDTO;
 import com.hgs.patient.siags_backend.dto.DepartmentSummaryDTO;
@@ -12,8 +13,12 @@ import com.hgs.patient.siags_backend.repository.AdmissionRepository;
 import com.hgs.patient.siags_backend.repository.DepartmentRepository;
 import com.hgs.patient.siags_backend.repository.PatientRepository;
 import com.hgs.patient.siags_backend.service.AdmissionService;
+import com.hgs.patient.siags_backend.service.ReportRollupService;
+import com.hgs.patient.siags_backend.service.UniquePatientSketchService;
+import com.hgs.patient.siags_backend.service.census.HospitalCensus;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +28,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,21 +39,30 @@ public class AdmissionServiceImp implements AdmissionService {
     private final PatientRepository patientRepository;
     private final DepartmentRepository departmentRepository;
     private final ModelMapper modelMapper;
+    private final ReportRollupService reportRollupService;
+    private final HospitalCensus hospitalCensus;
+    private final UniquePatientSketchService uniquePatientSketchService;
 
     @Autowired
     public AdmissionServiceImp(AdmissionRepository admissionRepository,
                                PatientRepository patientRepository,
                                DepartmentRepository departmentRepository,
-                               ModelMapper modelMapper
-
+                               ModelMapper modelMapper,
+                               ReportRollupService reportRollupService,
+                               HospitalCensus hospitalCensus,
+                               UniquePatientSketchService uniquePatientSketchService
     ) {
         this.admissionRepository = admissionRepository;
         this.patientRepository = patientRepository;
         this.departmentRepository = departmentRepository;
         this.modelMapper = modelMapper;
+        this.reportRollupService = reportRollupService;
+        this.hospitalCensus = hospitalCensus;
+        this.uniquePatientSketchService = uniquePatientSketchService;
     }
 
     @Override
+    @CacheEvict(cacheNames = ReportCacheConfig.ADMISSION_REPORTS, allEntries = true) // Après validation (cache transactionnel)
     public AdmissionResponseDTO createAdmission(AdmissionRequestDTO admissionRequestDTO) {
         // Vérifier l'existence du patient et du département
         Patient patient = patientRepository.findById(admissionRequestDTO.getPatientId())
@@ -71,6 +86,9 @@ public class AdmissionServiceImp implements AdmissionService {
         }
 
         Admission savedAdmission = admissionRepository.save(admission);
+        reportRollupService.admissionAdded(savedAdmission);
+        hospitalCensus.admissionSaved(savedAdmission);
+        uniquePatientSketchService.admissionRecorded(savedAdmission);
 
         return modelMapper.map(savedAdmission, AdmissionResponseDTO.class);
     }
@@ -99,9 +117,11 @@ public class AdmissionServiceImp implements AdmissionService {
     }
 
     @Override
+    @CacheEvict(cacheNames = ReportCacheConfig.ADMISSION_REPORTS, allEntries = true)
     public AdmissionResponseDTO updateAdmission(Long id, AdmissionRequestDTO admissionRequestDTO) {
         Admission existingAdmission = admissionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Admission non trouvée avec l'ID: " + id));
+        LocalDateTime oldAdmissionDate = existingAdmission.getAdmissionDate();
 
         // Mettre à jour les champs de l'admission existante
         if (admissionRequestDTO.getReasonForAdmission() != null) {
@@ -132,17 +152,24 @@ public class AdmissionServiceImp implements AdmissionService {
         }
 
         Admission updatedAdmission = admissionRepository.save(existingAdmission);
-
+        if (!Objects.equals(oldAdmissionDate, updatedAdmission.getAdmissionDate())) {
+            reportRollupService.admissionMoved(oldAdmissionDate, updatedAdmission.getAssignedDepartment(), updatedAdmission);
+        }
+        // Sortie, transfert ou annulation (statut) et changement de chambre ou de lit
+        hospitalCensus.admissionSaved(updatedAdmission);
 
         return modelMapper.map(updatedAdmission, AdmissionResponseDTO.class);
     }
 
     @Override
+    @CacheEvict(cacheNames = ReportCacheConfig.ADMISSION_REPORTS, allEntries = true)
     public void deleteAdmission(Long id) {
-        if (!admissionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Admission non trouvée avec l'ID: " + id);
-        }
-        admissionRepository.deleteById(id);
+        // Chargée plutôt que supprimée par ID : sa date et son département servent à ajuster les agrégats
+        Admission admission = admissionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Admission non trouvée avec l'ID: " + id));
+        admissionRepository.delete(admission);
+        reportRollupService.admissionRemoved(admission);
+        hospitalCensus.admissionDeleted(admission.getId());
     }
 
     @Override
@@ -1,17 +1,21 @@
 package com.hgs.patient.siags_backend.service.imp;
 
+import com.hgs.patient.siags_backend.config.ReportCacheConfig;
 import com.hgs.patient.siags_backend.dto.PatientRequestDTO;
 import com.hgs.patient.siags_backend.exception.ResourceNotFoundException;
 import com.hgs.patient.siags_backend.model.Patient;
 import com.hgs.patient.siags_backend.repository.PatientRepository;
 import com.hgs.patient.siags_backend.service.MedicalRecordService;
 import com.hgs.patient.siags_backend.service.PatientService;
+import com.hgs.patient.siags_backend.service.ReportRollupService;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -20,19 +24,24 @@ public class PatientServiceImp implements PatientService {
     private final PatientRepository patientRepository;
     private final MedicalRecordService medicalRecordService;
     private final ModelMapper modelMapper;
+    private final ReportRollupService reportRollupService;
 
     @Autowired
-    public PatientServiceImp(PatientRepository patientRepository, MedicalRecordService medicalRecordService, ModelMapper modelMapper) {
+    public PatientServiceImp(PatientRepository patientRepository, MedicalRecordService medicalRecordService, ModelMapper modelMapper,
+                             ReportRollupService reportRollupService) {
         this.patientRepository = patientRepository;
         this.medicalRecordService = medicalRecordService;
         this.modelMapper = modelMapper;
+        this.reportRollupService = reportRollupService;
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.PATIENT_REPORTS, allEntries = true) // Après validation (cache transactionnel)
     public Patient createPatient(PatientRequestDTO patientDTO) {
         Patient patient = modelMapper.map(patientDTO, Patient.class);
         Patient savedPatient = patientRepository.save(patient);
+        reportRollupService.patientAdded(savedPatient);
         medicalRecordService.createMedicalRecordForPatient(savedPatient.getId());
 
         return savedPatient;
@@ -52,19 +61,30 @@ public class PatientServiceImp implements PatientService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.PATIENT_REPORTS, allEntries = true)
     public Patient updatePatient(Long id, PatientRequestDTO patientDTO) {
         Patient existingPatient = patientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient non trouvé avec l'ID: " + id));
 
+        String oldGender = existingPatient.getGender();
         modelMapper.map(patientDTO, existingPatient);
 
-        return patientRepository.save(existingPatient);
+        Patient savedPatient = patientRepository.save(existingPatient);
+        if (!Objects.equals(oldGender, savedPatient.getGender())) {
+            reportRollupService.patientGenderChanged(oldGender, savedPatient);
+        }
+        return savedPatient;
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = ReportCacheConfig.PATIENT_REPORTS, allEntries = true)
     public void deletePatient(Long id) {
-        patientRepository.deleteById(id);
+        // Comme deleteById : sans effet si le patient n'existe pas
+        patientRepository.findById(id).ifPresent(patient -> {
+            patientRepository.delete(patient);
+            reportRollupService.patientRemoved(patient);
+        });
     }
 
     @Override
@@ -1,82 +1,317 @@
 package com.hgs.patient.siags_backend.service.imp;
 
+import com.hgs.patient.siags_backend.config.ReportCacheConfig;
 import com.hgs.patient.siags_backend.dto.*;
-import com.hgs.patient.siags_backend.repository.AdmissionRepository;
-import com.hgs.patient.siags_backend.repository.ConsultationRepository;
-import com.hgs.patient.siags_backend.repository.PatientRepository;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.model.Department;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.model.ReportMetric;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import com.hgs.patient.siags_backend.model.User;
+import com.hgs.patient.siags_backend.repository.*;
+import com.hgs.patient.siags_backend.repository.AdmissionRepository.LengthOfStayView;
+import com.hgs.patient.siags_backend.repository.ReportDailyRollupRepository.RollupTotalView;
+import com.hgs.patient.siags_backend.service.DiagnosisTopKService;
 import com.hgs.patient.siags_backend.service.ReportService;
+import com.hgs.patient.siags_backend.service.UniquePatientSketchService;
+import com.hgs.patient.siags_backend.util.HyperLogLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Rapports de gestion. Les répartitions (par département, médecin, diagnostic et genre) sont lues
+ * dans les agrégats journaliers maintenus par ReportRollupService, et non plus par GROUP BY sur les tables de base ;
+ * les diagnostics les plus fréquents passent par les résumés mensuels de DiagnosisTopKService.
+ * Les histogrammes comptent par jour sur un intervalle [début, fin) de la colonne de date indexée,
+ * puis regroupent et complètent les intervalles vides en mémoire.
+ * Les durées de séjour sont agrégées en base en table de fréquences (département, durée) : mémoire
+ * bornée par le nombre de durées distinctes, et statistiques exactes.
+ * Les résultats sont mis en cache par rapport et paramètres (voir ReportCacheConfig).
+ */
 @Service
 @Transactional(readOnly = true)
+@CacheConfig(keyGenerator = ReportCacheConfig.REPORT_KEY_GENERATOR)
 public class ReportServiceImp implements ReportService {
 
+    // Borne le nombre d'intervalles d'un histogramme (ex : environ 3 ans par jour)
+    static final int MAX_BUCKETS = 1100;
+
+    // Bornes inférieures (jours) des intervalles de l'histogramme des durées de séjour ; le dernier est ouvert
+    private static final int[] LENGTH_OF_STAY_BOUNDS = {0, 1, 2, 3, 4, 8, 15, 31};
+
     private final PatientRepository patientRepository;
     private final AdmissionRepository admissionRepository;
     private final ConsultationRepository consultationRepository;
+    private final ReportDailyRollupRepository rollupRepository;
+    private final DepartmentRepository departmentRepository;
+    private final UserRepository userRepository;
+    private final UniquePatientSketchService uniquePatientSketchService;
+    private final DiagnosisTopKService diagnosisTopKService;
 
     @Autowired
     public ReportServiceImp(PatientRepository patientRepository,
                             AdmissionRepository admissionRepository,
-                            ConsultationRepository consultationRepository) {
+                            ConsultationRepository consultationRepository,
+                            ReportDailyRollupRepository rollupRepository,
+                            DepartmentRepository departmentRepository,
+                            UserRepository userRepository,
+                            UniquePatientSketchService uniquePatientSketchService,
+                            DiagnosisTopKService diagnosisTopKService) {
         this.patientRepository = patientRepository;
         this.admissionRepository = admissionRepository;
         this.consultationRepository = consultationRepository;
+        this.rollupRepository = rollupRepository;
+        this.departmentRepository = departmentRepository;
+        this.userRepository = userRepository;
+        this.uniquePatientSketchService = uniquePatientSketchService;
+        this.diagnosisTopKService = diagnosisTopKService;
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.PATIENT_REPORTS)
     public Long getTotalPatientsCount() {
         return patientRepository.count();
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.PATIENT_REPORTS)
     public List<PatientGenderDistributionDTO> getPatientGenderDistribution() {
-        return patientRepository.countPatientsByGender();
+        return rollupRepository.sumByDimension(ReportMetric.PATIENTS_BY_GENDER).stream()
+                .map(row -> new PatientGenderDistributionDTO(row.getDimLabel(), row.getTotal()))
+                .collect(Collectors.toList());
+    }
+
+    // Pas de cache : les esquisses sont fusionnées en base en dehors des écritures métier (pas d'éviction)
+    @Override
+    public List<UniquePatientsDTO> getUniquePatients(LocalDate start, LocalDate end, ReportSketchMetric dimension) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        Map<String, HyperLogLog> sketches = uniquePatientSketchService.merge(dimension, start, end);
+        if (dimension == ReportSketchMetric.UNIQUE_PATIENTS) {
+            HyperLogLog all = sketches.getOrDefault("", new HyperLogLog());
+            return List.of(new UniquePatientsDTO(null, null, all.estimate(), HyperLogLog.RELATIVE_STANDARD_ERROR));
+        }
+
+        List<Long> ids = sketches.keySet().stream().map(Long::valueOf).collect(Collectors.toList());
+        Map<Long, String> labels = dimension == ReportSketchMetric.UNIQUE_PATIENTS_BY_DEPARTMENT
+                ? departmentRepository.findAllById(ids).stream().collect(Collectors.toMap(Department::getId, Department::getName))
+                : userRepository.findAllById(ids).stream().collect(Collectors.toMap(User::getId,
+                        user -> user.getNomComplet() != null ? user.getNomComplet() : user.getUsername()));
+        return sketches.entrySet().stream()
+                .map(entry -> {
+                    Long id = Long.valueOf(entry.getKey());
+                    return new UniquePatientsDTO(id, labels.get(id), entry.getValue().estimate(), HyperLogLog.RELATIVE_STANDARD_ERROR);
+                })
+                .sorted(Comparator.comparing(UniquePatientsDTO::getEstimatedPatients).reversed())
+                .collect(Collectors.toList());
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
     public Long getTotalAdmissionsCount() {
         return admissionRepository.count();
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
     public Long getAdmissionsCountBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
         return admissionRepository.countAdmissionsBetweenDates(startDate, endDate);
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
     public List<AdmissionCountByDepartmentDTO> getAdmissionCountByDepartment() {
-        return admissionRepository.countAdmissionsByDepartment();
+        List<RollupTotalView> rows = rollupRepository.sumByDimension(ReportMetric.ADMISSIONS_BY_DEPARTMENT);
+        Map<Long, Department> departments = departmentRepository.findAllById(dimensionIds(rows)).stream()
+                .collect(Collectors.toMap(Department::getId, Function.identity()));
+        return rows.stream()
+                .filter(row -> departments.containsKey(Long.valueOf(row.getDimKey())))
+                .map(row -> new AdmissionCountByDepartmentDTO(
+                        departments.get(Long.valueOf(row.getDimKey())).getName(), row.getTotal()))
+                .collect(Collectors.toList());
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
     public List<MonthlyAdmissionCountDTO> getMonthlyAdmissionCountForYear(int year) {
-        return admissionRepository.countAdmissionsByMonth(year);
+        LocalDate start = LocalDate.of(year, 1, 1);
+        return histogram(start, start.plusYears(1), ReportGranularity.MONTH, admissionRepository::countAdmissionsPerDay)
+                .stream()
+                .map(bucket -> new MonthlyAdmissionCountDTO(bucket.getPeriodStart().getMonthValue(), bucket.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
+    public List<PeriodCountDTO> getAdmissionHistogram(LocalDate start, LocalDate end, ReportGranularity granularity) {
+        return histogram(start, end, granularity, admissionRepository::countAdmissionsPerDay);
+    }
+
+    @Override
+    @Cacheable(ReportCacheConfig.ADMISSION_REPORTS)
+    public LengthOfStayReportDTO getLengthOfStay(LocalDate start, LocalDate end, Long departmentId) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        List<LengthOfStayView> rows = admissionRepository.countLengthsOfStay(start.atStartOfDay(), end.atStartOfDay(), departmentId);
+
+        NavigableMap<Integer, Long> overall = new TreeMap<>();
+        Map<Long, NavigableMap<Integer, Long>> byDepartment = new HashMap<>(); // Clé null : sans département
+        for (LengthOfStayView row : rows) {
+            overall.merge(row.getDays(), row.getTotal(), Long::sum);
+            byDepartment.computeIfAbsent(row.getDepartmentId(), id -> new TreeMap<>())
+                    .merge(row.getDays(), row.getTotal(), Long::sum);
+        }
+        Map<Long, String> names = departmentRepository.findAllById(
+                        byDepartment.keySet().stream().filter(Objects::nonNull).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Department::getId, Department::getName));
+
+        List<LengthOfStayDTO> departments = byDepartment.entrySet().stream()
+                .map(entry -> lengthOfStay(entry.getKey(), names.get(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparing(LengthOfStayDTO::getDepartmentName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+        return new LengthOfStayReportDTO(start, end, lengthOfStay(departmentId, names.get(departmentId), overall), departments);
+    }
+
+    /**
+     * Statistiques exactes à partir d'une table de fréquences (durée en jours -> nombre de séjours).
+     */
+    private static LengthOfStayDTO lengthOfStay(Long departmentId, String departmentName, NavigableMap<Integer, Long> frequencies) {
+        long stays = 0;
+        long totalDays = 0;
+        for (Map.Entry<Integer, Long> entry : frequencies.entrySet()) {
+            stays += entry.getValue();
+            totalDays += entry.getKey() * entry.getValue();
+        }
+
+        List<LengthOfStayBucketDTO> histogram = new ArrayList<>();
+        for (int i = 0; i < LENGTH_OF_STAY_BOUNDS.length; i++) {
+            int min = LENGTH_OF_STAY_BOUNDS[i];
+            Integer max = i + 1 < LENGTH_OF_STAY_BOUNDS.length ? LENGTH_OF_STAY_BOUNDS[i + 1] : null;
+            long count = (max != null ? frequencies.subMap(min, true, max, false) : frequencies.tailMap(min, true))
+                    .values().stream().mapToLong(Long::longValue).sum();
+            histogram.add(new LengthOfStayBucketDTO(min, max, count));
+        }
+
+        if (stays == 0) {
+            return new LengthOfStayDTO(departmentId, departmentName, 0L, null, null, null, histogram);
+        }
+        return new LengthOfStayDTO(departmentId, departmentName, stays, (double) totalDays / stays,
+                percentile(frequencies, stays, 0.5), percentile(frequencies, stays, 0.9), histogram);
+    }
+
+    // Percentile au rang le plus proche : plus petite durée dont l'effectif cumulé atteint ceil(p * n)
+    private static Long percentile(NavigableMap<Integer, Long> frequencies, long stays, double p) {
+        long rank = (long) Math.ceil(p * stays);
+        long cumulative = 0;
+        for (Map.Entry<Integer, Long> entry : frequencies.entrySet()) {
+            cumulative += entry.getValue();
+            if (cumulative >= rank) {
+                return entry.getKey().longValue();
+            }
+        }
+        return frequencies.lastKey().longValue();
     }
 
     // --- Rapports sur les consultations ---
     @Override
+    @Cacheable(ReportCacheConfig.CONSULTATION_REPORTS)
     public Long getTotalConsultationsCount() {
         return consultationRepository.count();
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.CONSULTATION_REPORTS)
     public Long getConsultationsCountBetweenDates(LocalDateTime startDate, LocalDateTime endDate) {
         return consultationRepository.countConsultationsBetweenDates(startDate, endDate);
     }
 
     @Override
+    @Cacheable(ReportCacheConfig.CONSULTATION_REPORTS)
     public List<ConsultationCountByDoctorDTO> getConsultationCountByDoctor() {
-        return consultationRepository.countConsultationsByDoctor();
+        List<RollupTotalView> rows = rollupRepository.sumByDimension(ReportMetric.CONSULTATIONS_BY_DOCTOR);
+        Map<Long, User> doctors = userRepository.findAllById(dimensionIds(rows)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return rows.stream()
+                .filter(row -> doctors.containsKey(Long.valueOf(row.getDimKey())))
+                .map(row -> {
+                    User doctor = doctors.get(Long.valueOf(row.getDimKey()));
+                    return new ConsultationCountByDoctorDTO(doctor.getId(), doctor.getUsername(), doctor.getNomComplet(), row.getTotal());
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Cacheable(ReportCacheConfig.CONSULTATION_REPORTS)
+    public List<DiagnosisFrequencyDTO> getDiagnosisFrequency(LocalDate start, LocalDate end, int limit) {
+        if (limit < 1 || limit > MAX_DIAGNOSIS_LIMIT) {
+            throw new BadRequestException("Le nombre de diagnostics doit être compris entre 1 et " + MAX_DIAGNOSIS_LIMIT + ".");
+        }
+        if (start != null && end != null && !start.isBefore(end)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        return diagnosisTopKService.top(start, end, limit);
     }
 
     @Override
-    public List<DiagnosisFrequencyDTO> getDiagnosisFrequency() {
-        return consultationRepository.countDiagnosisFrequency();
+    @Cacheable(ReportCacheConfig.CONSULTATION_REPORTS)
+    public List<PeriodCountDTO> getConsultationHistogram(LocalDate start, LocalDate end, ReportGranularity granularity) {
+        return histogram(start, end, granularity, consultationRepository::countConsultationsPerDay);
+    }
+
+    /**
+     * Histogramme sur [start, end), étendu aux bornes des intervalles de la granularité
+     * (ex : du lundi au lundi pour WEEK) ; chaque intervalle est présent, avec 0 s'il est vide.
+     *
+     * @param countPerDay Comptage journalier sur [début, fin).
+     */
+    private static List<PeriodCountDTO> histogram(LocalDate start, LocalDate end, ReportGranularity granularity,
+                                                  BiFunction<LocalDateTime, LocalDateTime, List<DailyCountView>> countPerDay) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            throw new BadRequestException("La date de début doit précéder la date de fin.");
+        }
+        LocalDate first = granularity.truncate(start);
+        LocalDate last = granularity.truncate(end);
+        LocalDate alignedEnd = last.isBefore(end) ? granularity.next(last) : last;
+
+        List<PeriodCountDTO> buckets = new ArrayList<>();
+        Map<LocalDate, PeriodCountDTO> byStart = new HashMap<>();
+        for (LocalDate bucket = first; bucket.isBefore(alignedEnd); bucket = granularity.next(bucket)) {
+            if (buckets.size() == MAX_BUCKETS) {
+                throw new BadRequestException("Intervalle trop long pour cette granularité (" + MAX_BUCKETS + " intervalles au maximum).");
+            }
+            PeriodCountDTO dto = new PeriodCountDTO(bucket, granularity.next(bucket), 0L);
+            buckets.add(dto);
+            byStart.put(bucket, dto);
+        }
+
+        for (DailyCountView day : countPerDay.apply(first.atStartOfDay(), alignedEnd.atStartOfDay())) {
+            PeriodCountDTO bucket = byStart.get(granularity.truncate(day.getDay()));
+            bucket.setCount(bucket.getCount() + day.getTotal());
+        }
+        return buckets;
+    }
+
+    // Les clés des dimensions département et médecin sont des ID
+    private static List<Long> dimensionIds(List<RollupTotalView> rows) {
+        return rows.stream().map(row -> Long.valueOf(row.getDimKey())).collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -1,13 +1,23 @@
 package com.hgs.patient.siags_backend.service.imp;
 
 import com.hgs.patient.siags_backend.dto.RoleResponseDTO;
+import com.hgs.patient.siags_backend.exception.ResourceNotFoundException;
+import com.hgs.patient.siags_backend.model.Permission;
 import com.hgs.patient.siags_backend.model.Role;
+import com.hgs.patient.siags_backend.model.User;
+import com.hgs.patient.siags_backend.repository.PermissionRepository;
 import com.hgs.patient.siags_backend.repository.RoleRepository;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.security.jwt.TokenVersionRegistry;
+import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
 import com.hgs.patient.siags_backend.service.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,6 +26,18 @@ public class RoleServiceImp implements RoleService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
     @Override
     public List<RoleResponseDTO> getAllRoles() {
         return roleRepository.findAll().stream()
@@ -23,6 +45,34 @@ public class RoleServiceImp implements RoleService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional
+    public RoleResponseDTO updateRolePermissions(Long roleId, Set<String> permissionNames) {
+        Role role = roleRepository.findById(roleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Rôle non trouvé avec l'ID: " + roleId));
+
+        Set<Permission> permissions = new HashSet<>();
+        for (String name : permissionNames) {
+            permissions.add(permissionRepository.findByName(name)
+                    .orElseThrow(() -> new ResourceNotFoundException("Permission non trouvée : " + name)));
+        }
+
+        if (!permissions.equals(role.getPermissions())) {
+            role.setPermissions(permissions);
+            roleRepository.save(role);
+
+            // Seuls les porteurs de ce rôle sont concernés : nouvelle version de jeton et éviction du cache
+            List<User> holders = userRepository.findDistinctByRoles_Id(roleId);
+            for (User user : holders) {
+                user.setTokenVersion(user.getTokenVersion() + 1);
+                tokenVersionRegistry.updateAfterCommit(user.getId(), user.getTokenVersion());
+            }
+            userRepository.saveAll(holders);
+            userDetailsService.evictUsers(holders.stream().map(User::getUsername).collect(Collectors.toList()));
+        }
+        return mapToRoleResponseDTO(role);
+    }
+
     private RoleResponseDTO mapToRoleResponseDTO(Role role) {
         RoleResponseDTO dto = new RoleResponseDTO();
         dto.setId(role.getId());
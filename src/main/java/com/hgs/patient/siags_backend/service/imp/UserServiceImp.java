@@ -9,6 +9,10 @@ import com.hgs.patient.siags_backend.model.Role;
 import com.hgs.patient.siags_backend.model.User;
 import com.hgs.patient.siags_backend.repository.RoleRepository;
 import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.security.jwt.TokenRevocationRegistry;
+import com.hgs.patient.siags_backend.security.jwt.TokenVersionRegistry;
+import com.hgs.patient.siags_backend.security.services.UserDetailsServiceImpl;
+import com.hgs.patient.siags_backend.service.RefreshTokenService;
 import com.hgs.patient.siags_backend.service.UserService;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,13 +36,23 @@ public class UserServiceImp implements UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final ModelMapper modelMapper;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     @Autowired
-    public UserServiceImp(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, ModelMapper modelMapper) {
+    public UserServiceImp(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, ModelMapper modelMapper,
+                          TokenVersionRegistry tokenVersionRegistry, UserDetailsServiceImpl userDetailsService,
+                          RefreshTokenService refreshTokenService, TokenRevocationRegistry tokenRevocationRegistry) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.modelMapper = modelMapper;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.userDetailsService = userDetailsService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationRegistry = tokenRevocationRegistry;
     }
 
     @Override
@@ -141,8 +155,13 @@ public class UserServiceImp implements UserService {
             existingUser.setEmail(userUpdateRequest.getEmail());
         }
 
+        // Un changement de mot de passe ou de rôles invalide les jetons déjà émis
+        boolean invalidateTokens = false;
+
         if (userUpdateRequest.getPassword() != null && !userUpdateRequest.getPassword().isEmpty()) {
             existingUser.setPassword(passwordEncoder.encode(userUpdateRequest.getPassword()));
+            invalidateTokens = true;
+            refreshTokenService.revokeAllForUser(id); // Les sessions ouvertes avec l'ancien mot de passe ne sont plus rafraîchies
         }
 
         if (userUpdateRequest.getNomComplet() != null && !userUpdateRequest.getNomComplet().isEmpty()) {
@@ -163,19 +182,48 @@ public class UserServiceImp implements UserService {
                     }
                 });
             }
-            existingUser.setRoles(newRoles);
+            if (!newRoles.equals(existingUser.getRoles())) {
+                existingUser.setRoles(newRoles);
+                invalidateTokens = true;
+            }
+        }
+
+        if (invalidateTokens) {
+            existingUser.setTokenVersion(existingUser.getTokenVersion() + 1);
         }
 
         User updatedUser = userRepository.save(existingUser);
+        if (invalidateTokens) {
+            tokenVersionRegistry.updateAfterCommit(updatedUser.getId(), updatedUser.getTokenVersion());
+        }
+        userDetailsService.evictUser(updatedUser.getUsername());
         return convertUserToUserResponseDTO(updatedUser);
     }
 
     @Override
+    @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Utilisateur non trouvé avec l'ID: " + id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé avec l'ID: " + id));
+        userRepository.delete(user);
+        tokenVersionRegistry.revokeAfterCommit(id);
+        // La ligne supprimée ne porte plus de version : les autres instances l'apprennent par le registre des révocations
+        tokenRevocationRegistry.revokeUser(id);
+        refreshTokenService.revokeAllForUser(id);
+        userDetailsService.evictUser(user.getUsername());
+    }
+
+    @Override
+    @Transactional
+    public void revokeTokens(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Utilisateur non trouvé avec l'ID: " + id));
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        userRepository.save(user);
+        // Effectif ici dès le commit ; les autres instances relisent users.token_version (TokenVersionRegistry.syncFromStore)
+        tokenVersionRegistry.updateAfterCommit(user.getId(), user.getTokenVersion());
+        refreshTokenService.revokeAllForUser(id);
+        userDetailsService.evictUser(user.getUsername());
     }
 
     private UserResponseDTO convertUserToUserResponseDTO(User user) {
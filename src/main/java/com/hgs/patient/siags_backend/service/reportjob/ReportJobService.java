@@ -0,0 +1,323 @@
+package com.hgs.patient.siags_backend.service.reportjob;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hgs.patient.siags_backend.dto.ReportJobDTO;
+import com.hgs.patient.siags_backend.dto.ReportJobRequest;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.exception.ResourceNotFoundException;
+import com.hgs.patient.siags_backend.exception.ServiceOverloadedException;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.model.ReportJob;
+import com.hgs.patient.siags_backend.model.ReportJobStatus;
+import com.hgs.patient.siags_backend.model.ReportJobType;
+import com.hgs.patient.siags_backend.model.ReportSketchMetric;
+import com.hgs.patient.siags_backend.repository.ReportJobRepository;
+import com.hgs.patient.siags_backend.repository.ReportJobRepository.ReportJobView;
+import com.hgs.patient.siags_backend.service.ReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rapports longs calculés en arrière-plan : soumission, suivi de l'état, lecture du résultat.
+ * <p>
+ * Les tâches s'exécutent sur le pool borné {@code reportJobExecutor}. Une demande identique (même type,
+ * mêmes paramètres normalisés) à une tâche en file ou en cours ne crée pas de nouvelle tâche : elle reçoit
+ * la tâche existante, quelle que soit l'instance qui l'exécute (contrainte d'unicité sur active_dedup_key).
+ * Le résultat est stocké en JSON compressé (gzip) dans la table report_jobs, puis supprimé avec la tâche après
+ * {@code resultTtlMinutes}. Chaque instance signale périodiquement qu'elle exécute toujours ses tâches ; celles
+ * dont l'instance ne donne plus signe de vie (arrêt, plantage) sont marquées en échec par les autres.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final List<ReportJobStatus> ACTIVE = List.of(ReportJobStatus.PENDING, ReportJobStatus.RUNNING);
+    private static final int DEFAULT_DIAGNOSIS_LIMIT = 20;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final ReportJobRepository jobRepository;
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final Duration resultTtl;
+    private final Duration staleAfter;
+    // Identifie les tâches de ce processus ; un redémarrage en change, les tâches de l'ancien deviennent orphelines
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public ReportJobService(ReportJobRepository jobRepository,
+                            ReportService reportService,
+                            ObjectMapper objectMapper,
+                            @Qualifier("reportJobExecutor") ExecutorService executor,
+                            @Value("${hgs.siags.reports.jobs.resultTtlMinutes:60}") long resultTtlMinutes,
+                            @Value("${hgs.siags.reports.jobs.heartbeatIntervalMs:30000}") long heartbeatIntervalMs) {
+        this.jobRepository = jobRepository;
+        this.reportService = reportService;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.resultTtl = Duration.ofMinutes(resultTtlMinutes);
+        // Plusieurs battements manqués avant d'abandonner une tâche : tolère une pause ou une base lente
+        this.staleAfter = Duration.ofMillis(heartbeatIntervalMs * 4);
+    }
+
+    /**
+     * Soumet un rapport, ou rejoint la tâche identique déjà en file ou en cours.
+     *
+     * @param authorities Permissions de l'utilisateur : celle du type de rapport est requise.
+     */
+    public ReportJobDTO submit(ReportJobRequest request, String username, Collection<String> authorities) {
+        ReportJobType type = ReportJobType.fromParameter(request.getType());
+        checkPermission(type, authorities);
+        Parameters parameters = Parameters.of(type, request);
+        String dedupKey = type.name() + "?" + parameters.canonical;
+
+        Long jobId = null;
+        for (int attempt = 1; jobId == null; attempt++) {
+            Optional<ReportJob> existing = jobRepository.findByActiveDedupKey(dedupKey);
+            if (existing.isPresent()) {
+                return get(existing.get().getId(), authorities);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            ReportJob job = new ReportJob();
+            job.setType(type);
+            job.setParameters(parameters.canonical);
+            job.setDedupKey(dedupKey);
+            job.setActiveDedupKey(dedupKey);
+            job.setStatus(ReportJobStatus.PENDING);
+            job.setRequestedBy(username);
+            job.setCreatedAt(now);
+            job.setOwner(instanceId);
+            job.setHeartbeatAt(now);
+            try {
+                jobId = jobRepository.save(job).getId();
+            } catch (DataIntegrityViolationException e) {
+                // Tâche identique créée entre-temps (autre requête, autre instance) : on la rejoint au tour suivant
+                if (attempt >= 3) {
+                    throw e;
+                }
+                logger.debug("Tâche de rapport {} déjà soumise, demande rattachée.", dedupKey);
+            }
+        }
+
+        Long submittedId = jobId;
+        try {
+            executor.execute(() -> run(submittedId, parameters));
+        } catch (RejectedExecutionException e) {
+            // D'autres demandes ont pu rejoindre la tâche entre-temps : elles la verront en échec plutôt que disparue
+            LocalDateTime now = LocalDateTime.now();
+            jobRepository.markFinished(submittedId, ACTIVE, ReportJobStatus.FAILED, now, now.plus(resultTtl), null, null,
+                    "Trop de rapports en attente : soumettez-le à nouveau plus tard.");
+            throw new ServiceOverloadedException("Trop de rapports en attente, réessayez plus tard.", 30);
+        }
+        return get(submittedId, authorities);
+    }
+
+    /**
+     * État d'une tâche ; une tâche d'un type que l'utilisateur ne peut pas lire est traitée comme inexistante.
+     */
+    public ReportJobDTO get(Long id, Collection<String> authorities) {
+        ReportJobView job = findReadable(id, authorities);
+        return new ReportJobDTO(job.getId(), job.getType(), job.getParameters(), job.getStatus(), job.getRequestedBy(),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(), job.getExpiresAt(), job.getErrorMessage(),
+                job.getResultSize());
+    }
+
+    /**
+     * Résultat d'une tâche terminée avec succès, en JSON compressé (gzip).
+     */
+    public byte[] getCompressedResult(Long id, Collection<String> authorities) {
+        ReportJobView job = findReadable(id, authorities);
+        if (job.getStatus() != ReportJobStatus.SUCCEEDED) {
+            throw new BadRequestException("Le rapport n'est pas disponible (tâche " + job.getStatus() + ").");
+        }
+        byte[] result = jobRepository.findResultById(id);
+        if (result == null) {
+            throw new ResourceNotFoundException("Résultat de la tâche de rapport " + id + " expiré.");
+        }
+        return result;
+    }
+
+    private ReportJobView findReadable(Long id, Collection<String> authorities) {
+        return jobRepository.findViewById(id)
+                .filter(job -> authorities.contains(job.getType().getPermission()))
+                .filter(job -> job.getExpiresAt() == null || job.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Tâche de rapport non trouvée avec l'ID : " + id));
+    }
+
+    private static void checkPermission(ReportJobType type, Collection<String> authorities) {
+        if (!authorities.contains(type.getPermission())) {
+            throw new AccessDeniedException("Permission " + type.getPermission() + " requise pour le rapport " + type + ".");
+        }
+    }
+
+    // --- Exécution ---
+
+    private void run(Long jobId, Parameters parameters) {
+        if (jobRepository.markStarted(jobId, ACTIVE, ReportJobStatus.RUNNING, LocalDateTime.now()) == 0) {
+            logger.warn("Tâche de rapport {} déjà terminée (abandonnée ou supprimée) : exécution annulée.", jobId);
+            return;
+        }
+        byte[] result = null;
+        Long resultSize = null;
+        String error = null;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(execute(parameters));
+            resultSize = (long) json.length;
+            result = gzip(json);
+        } catch (BadRequestException e) {
+            error = e.getMessage(); // Paramètres refusés par le rapport (ex : intervalle trop long)
+        } catch (Exception e) {
+            logger.error("Échec de la tâche de rapport {} ({}).", jobId, parameters.type, e);
+            error = "Erreur lors du calcul du rapport : " + e.getMessage();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (jobRepository.markFinished(jobId, ACTIVE, error == null ? ReportJobStatus.SUCCEEDED : ReportJobStatus.FAILED,
+                now, now.plus(resultTtl), result, resultSize, truncate(error)) == 0) {
+            logger.warn("Tâche de rapport {} marquée en échec pendant son exécution : résultat ignoré.", jobId);
+        }
+    }
+
+    private Object execute(Parameters p) {
+        return switch (p.type) {
+            case ADMISSION_HISTOGRAM -> reportService.getAdmissionHistogram(p.start, p.end, p.granularity);
+            case CONSULTATION_HISTOGRAM -> reportService.getConsultationHistogram(p.start, p.end, p.granularity);
+            case LENGTH_OF_STAY -> reportService.getLengthOfStay(p.start, p.end, p.departmentId);
+            case DIAGNOSIS_FREQUENCY -> reportService.getDiagnosisFrequency(p.start, p.end, p.limit);
+            case UNIQUE_PATIENTS -> reportService.getUniquePatients(p.start, p.end, p.dimension);
+        };
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    // --- Expiration et reprise ---
+
+    @Scheduled(fixedDelayString = "${hgs.siags.reports.jobs.purgeIntervalMs:600000}",
+            initialDelayString = "${hgs.siags.reports.jobs.purgeIntervalMs:600000}")
+    public void purgeExpired() {
+        int deleted = jobRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("{} tâche(s) de rapport expirée(s) supprimée(s).", deleted);
+        }
+    }
+
+    /**
+     * Signale que les tâches de cette instance sont toujours exécutées, puis marque en échec les tâches
+     * (de n'importe quelle instance) restées sans signe de vie au-delà de {@code staleAfter}.
+     */
+    @Scheduled(fixedDelayString = "${hgs.siags.reports.jobs.heartbeatIntervalMs:30000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        jobRepository.heartbeat(instanceId, ACTIVE, now);
+        int failed = jobRepository.failStale(ACTIVE, now.minus(staleAfter), ReportJobStatus.FAILED, now,
+                now.plus(resultTtl), "Tâche interrompue par un arrêt du serveur : soumettez-la à nouveau.");
+        if (failed > 0) {
+            logger.warn("{} tâche(s) de rapport abandonnée(s) par une instance arrêtée marquée(s) en échec.", failed);
+        }
+    }
+
+    /**
+     * Paramètres utiles au type de rapport, validés et complétés par leurs valeurs par défaut.
+     * Leur forme canonique sert de clé de déduplication.
+     */
+    private static final class Parameters {
+        private final ReportJobType type;
+        private final LocalDate start;
+        private final LocalDate end;
+        private final ReportGranularity granularity;
+        private final Long departmentId;
+        private final int limit;
+        private final ReportSketchMetric dimension;
+        private final String canonical;
+
+        private Parameters(ReportJobType type, LocalDate start, LocalDate end, ReportGranularity granularity,
+                           Long departmentId, int limit, ReportSketchMetric dimension, String canonical) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.granularity = granularity;
+            this.departmentId = departmentId;
+            this.limit = limit;
+            this.dimension = dimension;
+            this.canonical = canonical;
+        }
+
+        static Parameters of(ReportJobType type, ReportJobRequest request) {
+            LocalDate start = request.getStart();
+            LocalDate end = request.getEnd();
+            if (type != ReportJobType.DIAGNOSIS_FREQUENCY && (start == null || end == null)) {
+                throw new BadRequestException("Les dates de début et de fin sont requises pour le rapport " + type + ".");
+            }
+            if (start != null && end != null && !start.isBefore(end)) {
+                throw new BadRequestException("La date de début doit précéder la date de fin.");
+            }
+
+            StringJoiner canonical = new StringJoiner("&");
+            canonical.add("start=" + (start != null ? start : ""));
+            canonical.add("end=" + (end != null ? end : ""));
+            ReportGranularity granularity = null;
+            Long departmentId = null;
+            int limit = 0;
+            ReportSketchMetric dimension = null;
+            switch (type) {
+                case ADMISSION_HISTOGRAM, CONSULTATION_HISTOGRAM -> {
+                    granularity = ReportGranularity.fromParameter(request.getGranularity() != null ? request.getGranularity() : "month");
+                    canonical.add("granularity=" + granularity.name().toLowerCase(Locale.ROOT));
+                }
+                case LENGTH_OF_STAY -> {
+                    departmentId = request.getDepartmentId();
+                    canonical.add("departmentId=" + (departmentId != null ? departmentId : ""));
+                }
+                case DIAGNOSIS_FREQUENCY -> {
+                    limit = request.getLimit() != null ? request.getLimit() : DEFAULT_DIAGNOSIS_LIMIT;
+                    if (limit < 1 || limit > ReportService.MAX_DIAGNOSIS_LIMIT) {
+                        throw new BadRequestException("Le nombre de diagnostics doit être compris entre 1 et "
+                                + ReportService.MAX_DIAGNOSIS_LIMIT + ".");
+                    }
+                    canonical.add("limit=" + limit);
+                }
+                case UNIQUE_PATIENTS -> {
+                    dimension = ReportSketchMetric.fromParameter(request.getDimension() != null ? request.getDimension() : "all");
+                    canonical.add("dimension=" + dimension.name());
+                }
+            }
+            return new Parameters(type, start, end, granularity, departmentId, limit, dimension, canonical.toString());
+        }
+    }
+}
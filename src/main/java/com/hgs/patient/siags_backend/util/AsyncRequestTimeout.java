@@ -0,0 +1,23 @@
+package com.hgs.patient.siags_backend.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+/**
+ * Ajuste le délai asynchrone de la seule requête en cours (ex : export en flux),
+ * sans toucher à spring.mvc.async.request-timeout qui borne toutes les autres réponses asynchrones.
+ * À appeler depuis la méthode du contrôleur, avant le démarrage du traitement asynchrone.
+ */
+public final class AsyncRequestTimeout {
+
+    private AsyncRequestTimeout() {
+    }
+
+    public static void set(HttpServletRequest request, long timeoutMs) {
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.hgs.patient.siags_backend.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Écriture CSV (RFC 4180) ligne par ligne, sans tampon de lignes : chaque champ est écrit directement
+ * dans le {@link Writer} sous-jacent. Les champs contenant un séparateur, un guillemet ou un saut de ligne
+ * sont entourés de guillemets ; les valeurs commençant par =, +, -, @, une tabulation ou un retour chariot
+ * sont préfixées d'une apostrophe pour ne pas être interprétées comme des formules par un tableur.
+ */
+public final class CsvWriter {
+
+    private static final char SEPARATOR = ',';
+
+    private final Writer out;
+    private boolean firstField = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public CsvWriter field(Object value) throws IOException {
+        if (!firstField) {
+            out.write(SEPARATOR);
+        }
+        firstField = false;
+        if (value != null) {
+            writeEscaped(value.toString());
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write("\r\n");
+        firstField = true;
+    }
+
+    public void row(Object... values) throws IOException {
+        for (Object value : values) {
+            field(value);
+        }
+        endRow();
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        boolean formula = !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        if (formula) {
+            out.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,45 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Verrou nommé MariaDB (GET_LOCK), partagé par toutes les instances de l'application.
+ * Il est tenu par une connexion réservée le temps de l'action, et libéré par la base si cette connexion est perdue.
+ */
+public final class DatabaseLock {
+
+    private DatabaseLock() {
+    }
+
+    /**
+     * Exécute l'action si le verrou est libre, sans attendre.
+     *
+     * @return false si une autre instance détient déjà le verrou (l'action n'est pas exécutée).
+     */
+    public static boolean runIfAvailable(JdbcTemplate jdbcTemplate, String name, Runnable action) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                ps.setString(1, name);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                action.run();
+                return true;
+            } finally {
+                try (PreparedStatement ps = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    ps.setString(1, name);
+                    ps.executeQuery().close();
+                }
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+}
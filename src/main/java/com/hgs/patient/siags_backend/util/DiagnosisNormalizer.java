@@ -0,0 +1,55 @@
+package com.hgs.patient.siags_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Clé de regroupement des diagnostics saisis en texte libre : « Paludisme  grave », « paludisme grave »
+ * et « PALUDISME GRAVE » comptent pour le même diagnostic dans les rapports.
+ */
+public final class DiagnosisNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private DiagnosisNormalizer() {
+    }
+
+    /**
+     * Minuscules, sans accents, espaces consécutifs réduits à un seul et retirés aux extrémités.
+     *
+     * @return Le texte normalisé, ou null si le diagnostic est absent ou blanc.
+     */
+    public static String normalize(String diagnosis) {
+        if (diagnosis == null) {
+            return null;
+        }
+        String withoutAccents = COMBINING_MARKS.matcher(Normalizer.normalize(diagnosis, Normalizer.Form.NFD)).replaceAll("");
+        String normalized = WHITESPACE.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Empreinte SHA-256 (hexadécimal minuscule, 64 caractères) du diagnostic normalisé : clé de taille fixe,
+     * indexable, quelle que soit la longueur du texte.
+     *
+     * @return La clé, ou null si le diagnostic est absent ou blanc.
+     */
+    public static String key(String diagnosis) {
+        String normalized = normalize(diagnosis);
+        if (normalized == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
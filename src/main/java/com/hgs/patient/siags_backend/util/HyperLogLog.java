@@ -0,0 +1,142 @@
+package com.hgs.patient.siags_backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Esquisse HyperLogLog : estimation du nombre d'éléments distincts en mémoire constante,
+ * fusionnable (l'union de deux esquisses est l'esquisse de l'union).
+ * <p>
+ * Précision p = 12, soit 4096 registres d'un octet. Erreur relative type : 1,04 / sqrt(4096) ≈ 1,6 %
+ * ({@link #RELATIVE_STANDARD_ERROR}) ; environ 99,7 % des estimations sont à moins de 3 fois cette erreur
+ * de la valeur exacte. Les petites cardinalités utilisent le comptage linéaire (quasi exact).
+ * Le hachage 64 bits rend inutile la correction des grandes cardinalités.
+ * <p>
+ * Non thread-safe : les ajouts concurrents doivent être synchronisés par l'appelant.
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        long remaining = hash << PRECISION;
+        int rank = remaining == 0 ? MAX_RANK : Long.numberOfLeadingZeros(remaining) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Ajoute à cette esquisse les éléments de l'autre (maximum registre par registre).
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros); // Comptage linéaire
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forme sérialisée : un octet de précision puis les registres compressés (deflate) ;
+     * une esquisse peu remplie n'occupe que quelques dizaines d'octets.
+     */
+    public byte[] toBytes() {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(registers);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            out.write(PRECISION);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new HyperLogLog();
+        }
+        if (bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("Précision d'esquisse non prise en charge : " + bytes[0]);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            byte[] registers = new byte[REGISTERS];
+            int read = 0;
+            while (read < REGISTERS && !inflater.finished()) {
+                int n = inflater.inflate(registers, read, REGISTERS - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != REGISTERS) {
+                throw new IllegalArgumentException("Esquisse tronquée : " + read + " registre(s) sur " + REGISTERS);
+            }
+            return new HyperLogLog(registers);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Esquisse illisible", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Finaliseur de SplitMix64 : répartit uniformément des identifiants séquentiels sur 64 bits
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,120 @@
+package com.hgs.patient.siags_backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résumé « Space-Saving » des éléments les plus fréquents d'un flux pondéré, en mémoire bornée
+ * ({@code capacity} compteurs).
+ * <p>
+ * Chaque compteur surestime au plus de {@link Entry#getError()} : la fréquence réelle est comprise entre
+ * {@code count - error} et {@code count}. Tant que le nombre d'éléments distincts ne dépasse pas la
+ * capacité, le résumé est exact. Deux résumés se fusionnent en conservant cette garantie : un élément
+ * absent d'un résumé plein y est compté pour le plus petit compteur de ce résumé.
+ * <p>
+ * Non thread-safe.
+ */
+public final class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Entry<K>> entries;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive : " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(K key, long weight) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            entry.count += weight;
+            return;
+        }
+        if (entries.size() < capacity) {
+            entries.put(key, new Entry<>(key, weight, 0));
+            return;
+        }
+        // Le nouvel élément remplace le plus petit compteur, dont il hérite la valeur comme erreur maximale
+        Entry<K> min = Collections.min(entries.values(), Comparator.comparingLong(Entry::getCount));
+        entries.remove(min.key);
+        entries.put(key, new Entry<>(key, min.count + weight, min.count));
+    }
+
+    public void merge(SpaceSaving<K> other) {
+        long floor = floor();
+        long otherFloor = other.floor();
+        List<Entry<K>> merged = new ArrayList<>(entries.size() + other.entries.size());
+        for (Entry<K> entry : entries.values()) {
+            Entry<K> match = other.entries.get(entry.key);
+            merged.add(match != null
+                    ? new Entry<>(entry.key, entry.count + match.count, entry.error + match.error)
+                    : new Entry<>(entry.key, entry.count + otherFloor, entry.error + otherFloor));
+        }
+        for (Entry<K> entry : other.entries.values()) {
+            if (!entries.containsKey(entry.key)) {
+                merged.add(new Entry<>(entry.key, entry.count + floor, entry.error + floor));
+            }
+        }
+        merged.sort(Comparator.comparingLong(Entry<K>::getCount).reversed());
+        entries.clear();
+        for (Entry<K> entry : merged.subList(0, Math.min(capacity, merged.size()))) {
+            entries.put(entry.key, entry);
+        }
+    }
+
+    /**
+     * Majorant de la fréquence de tout élément absent du résumé : 0 tant qu'il n'est pas plein.
+     */
+    public long floor() {
+        if (entries.size() < capacity) {
+            return 0;
+        }
+        return entries.values().stream().mapToLong(Entry::getCount).min().orElse(0);
+    }
+
+    /**
+     * Les {@code limit} éléments de plus forte fréquence estimée, par ordre décroissant.
+     */
+    public List<Entry<K>> top(int limit) {
+        return entries.values().stream()
+                .sorted(Comparator.comparingLong(Entry<K>::getCount).reversed())
+                .limit(limit)
+                .map(entry -> new Entry<>(entry.key, entry.count, entry.error))
+                .toList();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static final class Entry<K> {
+        private final K key;
+        private long count;
+        private long error;
+
+        private Entry(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
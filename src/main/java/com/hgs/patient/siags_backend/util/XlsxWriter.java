@@ -0,0 +1,172 @@
+package com.hgs.patient.siags_backend.util;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Écriture d'un classeur XLSX (Office Open XML) d'une seule feuille, ligne par ligne : la feuille est
+ * écrite directement dans l'archive ZIP du flux de sortie, sans garder de lignes en mémoire.
+ * <p>
+ * Les nombres sont écrits comme valeurs numériques, tout le reste comme texte (chaînes en ligne, sans
+ * table de chaînes partagées ni styles) : les dates restent au format ISO 8601, comme dans les exports CSV.
+ * Une feuille est limitée à {@link #MAX_ROWS} lignes.
+ */
+public final class XlsxWriter {
+
+    public static final int MAX_ROWS = 1_048_576;
+
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+            <Default Extension="xml" ContentType="application/xml"/>\
+            <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+            <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+            </Types>""";
+    private static final String ROOT_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+            </Relationships>""";
+    private static final String WORKBOOK = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+            xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">\
+            <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets></workbook>""";
+    private static final String WORKBOOK_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>\
+            </Relationships>""";
+    private static final String SHEET_START = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <worksheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main"><sheetData>""";
+    private static final String SHEET_END = "</sheetData></worksheet>";
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private boolean rowOpen;
+    private int rows;
+
+    /**
+     * @param out       Flux de sortie ; il n'est pas fermé par {@link #finish()}.
+     * @param sheetName Nom de la feuille (31 caractères au plus, sans : \ / ? * [ ]).
+     */
+    public XlsxWriter(OutputStream out, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        writeEntry("xl/workbook.xml", String.format(WORKBOOK, escape(sheetName)));
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        // Écrit dans l'entrée ZIP courante ; la fermeture de l'archive reste à la charge de finish()
+        this.sheet = new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                zip.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+            }
+        }, StandardCharsets.UTF_8), 8192);
+        sheet.write(SHEET_START);
+    }
+
+    public XlsxWriter field(Object value) throws IOException {
+        if (!rowOpen) {
+            if (rows == MAX_ROWS) {
+                throw new IOException("Une feuille XLSX ne peut pas dépasser " + MAX_ROWS + " lignes.");
+            }
+            sheet.write("<row>");
+            rowOpen = true;
+        }
+        if (value == null) {
+            sheet.write("<c/>");
+        } else if (isNumber(value)) {
+            sheet.write("<c><v>");
+            sheet.write(value.toString());
+            sheet.write("</v></c>");
+        } else {
+            sheet.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            sheet.write(escape(value.toString()));
+            sheet.write("</t></is></c>");
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        if (!rowOpen) {
+            field(null);
+        }
+        sheet.write("</row>");
+        rowOpen = false;
+        rows++;
+    }
+
+    public void row(Object... values) throws IOException {
+        for (Object value : values) {
+            field(value);
+        }
+        endRow();
+    }
+
+    /**
+     * Termine la feuille et l'archive. Le flux de sortie n'est pas fermé.
+     */
+    public void finish() throws IOException {
+        sheet.write(SHEET_END);
+        sheet.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static boolean isNumber(Object value) {
+        if (value instanceof Double d) {
+            return !d.isNaN() && !d.isInfinite();
+        }
+        if (value instanceof Float f) {
+            return !f.isNaN() && !f.isInfinite();
+        }
+        return value instanceof Number;
+    }
+
+    // Échappement XML ; les caractères de contrôle interdits en XML 1.0 sont omis
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+}
@@ -0,0 +1,49 @@
+package com.hgs.patient.siags_backend.model;
+
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie l'alignement des intervalles d'histogramme.
+ */
+class ReportGranularityTest {
+
+    @Test
+    void truncateReturnsTheFirstDayOfTheBucket() {
+        LocalDate sunday = LocalDate.of(2024, 3, 10);
+        assertEquals(sunday, ReportGranularity.DAY.truncate(sunday));
+        assertEquals(LocalDate.of(2024, 3, 4), ReportGranularity.WEEK.truncate(sunday));
+        assertEquals(LocalDate.of(2024, 3, 1), ReportGranularity.MONTH.truncate(sunday));
+        assertEquals(LocalDate.of(2024, 1, 1), ReportGranularity.YEAR.truncate(sunday));
+    }
+
+    @Test
+    void mondayIsItsOwnWeekStart() {
+        LocalDate monday = LocalDate.of(2024, 3, 4);
+        assertEquals(monday, ReportGranularity.WEEK.truncate(monday));
+    }
+
+    @Test
+    void weeksCrossYearBoundaries() {
+        // Le 1er janvier 2025 est un mercredi : sa semaine commence le lundi 30 décembre 2024
+        assertEquals(LocalDate.of(2024, 12, 30), ReportGranularity.WEEK.truncate(LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void nextStartsTheFollowingBucket() {
+        assertEquals(LocalDate.of(2024, 3, 1), ReportGranularity.DAY.next(LocalDate.of(2024, 2, 29)));
+        assertEquals(LocalDate.of(2024, 3, 11), ReportGranularity.WEEK.next(LocalDate.of(2024, 3, 4)));
+        assertEquals(LocalDate.of(2024, 3, 1), ReportGranularity.MONTH.next(LocalDate.of(2024, 2, 1)));
+        assertEquals(LocalDate.of(2025, 1, 1), ReportGranularity.YEAR.next(LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    void parameterIsCaseInsensitive() {
+        assertEquals(ReportGranularity.WEEK, ReportGranularity.fromParameter("Week"));
+        assertThrows(BadRequestException.class, () -> ReportGranularity.fromParameter("quarter"));
+    }
+}
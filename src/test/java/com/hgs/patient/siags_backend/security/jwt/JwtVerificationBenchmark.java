@@ -0,0 +1,87 @@
+package com.hgs.patient.siags_backend.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le débit de vérification des tokens JWT (tokens vérifiés par seconde et par cœur) :
+ * l'ancien chemin (décodage de la clé et construction d'un parseur à chaque appel, deux analyses par requête)
+ * et le nouveau {@link JwtVerifier} (clé et parseur mis en cache, une seule analyse).
+ * <p>
+ * Exécution : {@code mvn test-compile} puis lancer {@link #main(String[])} avec le classpath de test.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private String jwtSecret;
+    private String token;
+    private JwtVerifier jwtVerifier;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[64];
+        new SecureRandom().nextBytes(secret);
+        jwtSecret = Encoders.BASE64.encode(secret);
+        jwtVerifier = new JwtVerifier(jwtSecret);
+
+        token = Jwts.builder()
+                .setSubject("medecin.kasongo")
+                .claim(JwtUtils.CLAIM_USER_ID, 42L)
+                .claim(JwtUtils.CLAIM_ROLES, List.of("ROLE_MEDECIN"))
+                .claim(JwtUtils.CLAIM_PERMISSIONS, List.of("PATIENT_READ", "CONSULTATION_READ", "CONSULTATION_WRITE"))
+                .claim(JwtUtils.CLAIM_TOKEN_VERSION, 0)
+                .claim(JwtUtils.CLAIM_EPOCH, 1)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(jwtVerifier.getSigningKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // Reproduit l'ancien JwtUtils : validateJwtToken puis getUserNameFromJwtToken, chacun avec sa clé et son parseur
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parserBuilder().setSigningKey(legacyKey()).build().parse(token);
+        return Jwts.parserBuilder()
+                .setSigningKey(legacyKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String cachedVerifier() {
+        return jwtVerifier.verify(token).getSubject();
+    }
+
+    private Key legacyKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,237 @@
+package com.hgs.patient.siags_backend.security.services;
+
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.repository.UserRepository.LockedAccountView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie la fenêtre glissante des échecs, le verrouillage et sa levée, avec une horloge contrôlée.
+ * Les écritures en base étant différées, elles sont vérifiées avec un délai.
+ */
+class LoginAttemptTrackerTest {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long WINDOW_MINUTES = 15;
+    private static final long LOCK_MINUTES = 30;
+    private static final long WRITE_TIMEOUT_MS = 2000;
+
+    private UserRepository userRepository;
+    private MutableClock clock;
+    private LoginAttemptTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findLockedAccounts()).thenReturn(List.of());
+        when(userRepository.existsByUsername(anyString())).thenReturn(true);
+        clock = new MutableClock(Instant.parse("2024-05-02T08:00:00Z"));
+        tracker = new LoginAttemptTracker(userRepository, clock, MAX_ATTEMPTS, WINDOW_MINUTES, LOCK_MINUTES, 16, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        tracker.shutdown();
+    }
+
+    @Test
+    void accountIsLockedAtTheMaximumNumberOfFailures() {
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            assertFalse(tracker.recordFailure("alice"));
+            clock.advance(Duration.ofSeconds(10));
+        }
+        assertFalse(tracker.isLocked("alice"));
+        assertEquals(MAX_ATTEMPTS - 1, tracker.getFailedAttempts("alice"));
+
+        assertTrue(tracker.recordFailure("alice"));
+        assertTrue(tracker.isLocked("alice"));
+        verify(userRepository, timeout(WRITE_TIMEOUT_MS)).lockAccount(eq("alice"), eq(MAX_ATTEMPTS),
+                eq(LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault())));
+        // Les autres comptes ne sont pas concernés
+        assertFalse(tracker.isLocked("bob"));
+    }
+
+    @Test
+    void failuresOutsideTheWindowAreForgotten() {
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            tracker.recordFailure("alice");
+        }
+        clock.advance(Duration.ofMinutes(WINDOW_MINUTES).plusSeconds(1));
+
+        assertFalse(tracker.recordFailure("alice"));
+        assertEquals(1, tracker.getFailedAttempts("alice"));
+        assertFalse(tracker.isLocked("alice"));
+    }
+
+    @Test
+    void windowSlidesWithEachFailure() {
+        // 3 échecs à t0, puis 2 à t0 + 10 min : 5 échecs dans la fenêtre, verrouillage
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("alice");
+        }
+        clock.advance(Duration.ofMinutes(10));
+        tracker.recordFailure("alice");
+        assertTrue(tracker.recordFailure("alice"));
+
+        // 3 échecs à t1, puis 2 à t1 + 16 min : les 3 premiers sont sortis de la fenêtre
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("bob");
+        }
+        clock.advance(Duration.ofMinutes(16));
+        tracker.recordFailure("bob");
+        assertFalse(tracker.recordFailure("bob"));
+        assertEquals(2, tracker.getFailedAttempts("bob"));
+    }
+
+    @Test
+    void successClearsTheFailures() {
+        for (int i = 1; i < MAX_ATTEMPTS; i++) {
+            tracker.recordFailure("alice");
+        }
+        tracker.recordSuccess("alice");
+        assertEquals(0, tracker.getFailedAttempts("alice"));
+        assertFalse(tracker.recordFailure("alice"));
+    }
+
+    @Test
+    void failuresWhileLockedDoNotExtendTheLock() {
+        lock("alice");
+        assertFalse(tracker.recordFailure("alice"));
+        verify(userRepository, after(200).never()).lockAccount(eq("alice"), eq(MAX_ATTEMPTS + 1), any());
+    }
+
+    @Test
+    void lockIsLiftedAtTheEndOfTheLockDuration() {
+        lock("alice");
+        clock.advance(Duration.ofMinutes(LOCK_MINUTES).minusSeconds(1));
+        assertTrue(tracker.isLocked("alice"));
+
+        clock.advance(Duration.ofSeconds(2));
+        assertFalse(tracker.isLocked("alice"));
+        verify(userRepository, timeout(WRITE_TIMEOUT_MS)).unlockAccount("alice");
+        // Le compteur repart de zéro après la levée
+        assertFalse(tracker.recordFailure("alice"));
+        assertEquals(1, tracker.getFailedAttempts("alice"));
+    }
+
+    @Test
+    void locksAreReloadedAtStartup() {
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault());
+        when(userRepository.findLockedAccounts()).thenReturn(List.of(
+                lockedAccount("active", now.minusMinutes(5)),
+                lockedAccount("expired", now.minusMinutes(LOCK_MINUTES + 1)),
+                lockedAccount("undated", null)));
+
+        tracker.loadLockedAccounts();
+
+        assertTrue(tracker.isLocked("active"));
+        assertFalse(tracker.isLocked("expired"));
+        assertFalse(tracker.isLocked("undated"));
+        verify(userRepository, timeout(WRITE_TIMEOUT_MS)).unlockAccount("expired");
+        verify(userRepository, timeout(WRITE_TIMEOUT_MS)).unlockAccount("undated");
+        verify(userRepository, after(200).never()).unlockAccount("active");
+    }
+
+    @Test
+    void unknownUsernamesAreNeverTracked() {
+        when(userRepository.existsByUsername("fantome")).thenReturn(false);
+        for (int i = 0; i <= MAX_ATTEMPTS; i++) {
+            assertFalse(tracker.recordFailure("fantome"));
+        }
+        assertFalse(tracker.isLocked("fantome"));
+        assertEquals(0, tracker.getFailedAttempts("fantome"));
+        verify(userRepository, after(200).never()).lockAccount(eq("fantome"), anyInt(), any());
+    }
+
+    @Test
+    void lockEvictedUnderSaturationIsKeptInTheDatabase() throws InterruptedException {
+        tracker.shutdown();
+        tracker = new LoginAttemptTracker(userRepository, clock, MAX_ATTEMPTS, WINDOW_MINUTES, LOCK_MINUTES, 16, 1);
+        LocalDateTime now = LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault());
+        for (String username : List.of("alice", "bob")) {
+            when(userRepository.findLockedAccount(username)).thenReturn(Optional.of(lockedAccount(username, now)));
+        }
+
+        // Un seul verrouillage tient dans le cache : l'autre est évincé mais ne doit pas être levé en base
+        lock("alice");
+        lock("bob");
+        verify(userRepository, after(300).never()).unlockAccount(anyString());
+
+        assertTrue(tracker.isLocked("alice"));
+        assertTrue(tracker.isLocked("bob"));
+        verify(userRepository, atLeastOnce()).findLockedAccount(anyString());
+    }
+
+    private void lock(String username) {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            tracker.recordFailure(username);
+        }
+        assertTrue(tracker.isLocked(username));
+        verify(userRepository, timeout(WRITE_TIMEOUT_MS)).lockAccount(eq(username), anyInt(), any());
+        verify(userRepository, never()).unlockAccount(anyString());
+    }
+
+    private static LockedAccountView lockedAccount(String username, LocalDateTime lockTime) {
+        return new LockedAccountView() {
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public LocalDateTime getLockTime() {
+                return lockTime;
+            }
+        };
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
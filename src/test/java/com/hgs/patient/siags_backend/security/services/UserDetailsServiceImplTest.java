@@ -0,0 +1,146 @@
+package com.hgs.patient.siags_backend.security.services;
+
+import com.hgs.patient.siags_backend.model.User;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie le cache des principaux : un principal n'est lu en base qu'une fois, et son invalidation
+ * n'a lieu qu'après la validation de la transaction qui a modifié l'utilisateur.
+ */
+class UserDetailsServiceImplTest {
+
+    private UserRepository userRepository;
+    private LoginAttemptTracker loginAttemptTracker;
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        loginAttemptTracker = mock(LoginAttemptTracker.class);
+        meterRegistry = new SimpleMeterRegistry();
+        for (String username : List.of("alice", "bob")) {
+            User user = new User();
+            user.setId((long) username.length());
+            user.setUsername(username);
+            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        }
+        userDetailsService = new UserDetailsServiceImpl(userRepository, loginAttemptTracker, meterRegistry, true, 100, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void principalIsLoadedOnce() {
+        userDetailsService.loadUserByUsername("alice");
+        userDetailsService.loadUserByUsername("alice");
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void evictionOutsideATransactionIsImmediate() {
+        userDetailsService.loadUserByUsername("alice");
+        userDetailsService.evictUser("alice");
+        userDetailsService.loadUserByUsername("alice");
+        verify(userRepository, times(2)).findByUsername("alice");
+        assertEquals(1, meterRegistry.counter("siags.principal.cache.invalidations").count());
+    }
+
+    @Test
+    void evictionWaitsForTheCommit() {
+        userDetailsService.loadUserByUsername("alice");
+
+        TransactionSynchronizationManager.initSynchronization();
+        userDetailsService.evictUser("alice");
+        // Avant la validation, une requête concurrente lit encore l'ancien principal
+        userDetailsService.loadUserByUsername("alice");
+        verify(userRepository, times(1)).findByUsername("alice");
+
+        commit();
+        userDetailsService.loadUserByUsername("alice");
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void rolledBackChangesDoNotEvict() {
+        userDetailsService.loadUserByUsername("alice");
+
+        TransactionSynchronizationManager.initSynchronization();
+        userDetailsService.evictUser("alice");
+        rollback();
+
+        userDetailsService.loadUserByUsername("alice");
+        verify(userRepository, times(1)).findByUsername("alice");
+        assertEquals(0, meterRegistry.counter("siags.principal.cache.invalidations").count());
+    }
+
+    @Test
+    void roleChangeEvictsOnlyItsHolders() {
+        userDetailsService.loadUserByUsername("alice");
+        userDetailsService.loadUserByUsername("bob");
+
+        userDetailsService.evictUsers(List.of("alice"));
+        userDetailsService.loadUserByUsername("alice");
+        userDetailsService.loadUserByUsername("bob");
+
+        verify(userRepository, times(2)).findByUsername("alice");
+        verify(userRepository, times(1)).findByUsername("bob");
+    }
+
+    @Test
+    void lockedAccountIsRejectedEvenWhenCached() {
+        userDetailsService.loadUserByUsername("alice");
+        when(loginAttemptTracker.isLocked("alice")).thenReturn(true);
+        assertThrows(LockedException.class, () -> userDetailsService.loadUserByUsername("alice"));
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("inconnu"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("inconnu"));
+        verify(userRepository, times(2)).findByUsername("inconnu");
+    }
+
+    @Test
+    void disabledCacheAlwaysReadsTheDatabase() {
+        UserDetailsServiceImpl uncached = new UserDetailsServiceImpl(userRepository, loginAttemptTracker,
+                new SimpleMeterRegistry(), false, 100, 300);
+        uncached.loadUserByUsername("alice");
+        uncached.loadUserByUsername("alice");
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void rollback() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
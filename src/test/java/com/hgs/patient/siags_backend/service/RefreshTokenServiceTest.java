@@ -0,0 +1,182 @@
+package com.hgs.patient.siags_backend.service;
+
+import com.hgs.patient.siags_backend.dto.JwtResponse;
+import com.hgs.patient.siags_backend.exception.TokenRefreshException;
+import com.hgs.patient.siags_backend.model.RefreshToken;
+import com.hgs.patient.siags_backend.model.User;
+import com.hgs.patient.siags_backend.repository.RefreshTokenRepository;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.security.jwt.JwtUtils;
+import com.hgs.patient.siags_backend.security.services.LoginAttemptTracker;
+import com.hgs.patient.siags_backend.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie la rotation des jetons de rafraîchissement et la révocation de la famille en cas de réutilisation.
+ * Le repository est simulé par une table en mémoire qui reproduit les mises à jour conditionnelles.
+ */
+class RefreshTokenServiceTest {
+
+    private static final long USER_ID = 7L;
+    private static final long REFRESH_EXPIRATION_MS = 3_600_000;
+
+    private final List<RefreshToken> table = new ArrayList<>();
+    private boolean consumedConcurrently;
+    private LoginAttemptTracker loginAttemptTracker;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        RefreshTokenRepository refreshTokenRepository = inMemoryRepository();
+        UserRepository userRepository = mock(UserRepository.class);
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUsername("alice");
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+
+        JwtUtils jwtUtils = mock(JwtUtils.class);
+        when(jwtUtils.generateJwtToken(any(UserDetailsImpl.class))).thenReturn("jeton-d-acces");
+        loginAttemptTracker = mock(LoginAttemptTracker.class);
+
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, jwtUtils, loginAttemptTracker);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpirationMs", REFRESH_EXPIRATION_MS);
+    }
+
+    @Test
+    void refreshRotatesTheTokenWithinTheSameFamily() {
+        String first = refreshTokenService.createRefreshToken(USER_ID);
+        JwtResponse response = refreshTokenService.refresh(first);
+
+        String second = response.getRefreshToken();
+        assertNotNull(second);
+        assertNotEquals(first, second);
+        assertEquals("jeton-d-acces", response.getToken());
+        assertEquals(2, table.size());
+        assertTrue(table.get(0).isUsed());
+        assertFalse(table.get(1).isUsed());
+        assertEquals(table.get(0).getFamilyId(), table.get(1).getFamilyId());
+
+        // Le nouveau jeton est à son tour utilisable une fois
+        assertNotNull(refreshTokenService.refresh(second).getRefreshToken());
+    }
+
+    @Test
+    void onlyTheHashOfTheTokenIsStored() {
+        String raw = refreshTokenService.createRefreshToken(USER_ID);
+        assertEquals(32, table.get(0).getTokenHash().length);
+        assertFalse(Arrays.equals(raw.getBytes(), table.get(0).getTokenHash()));
+    }
+
+    @Test
+    void reuseRevokesTheWholeFamily() {
+        String first = refreshTokenService.createRefreshToken(USER_ID);
+        String second = refreshTokenService.refresh(first).getRefreshToken();
+        String otherSession = refreshTokenService.createRefreshToken(USER_ID);
+
+        // Jeton volé rejoué après sa rotation : la famille entière est révoquée
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(first));
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(second));
+        // Les autres connexions de l'utilisateur ne sont pas touchées
+        assertNotNull(refreshTokenService.refresh(otherSession).getRefreshToken());
+    }
+
+    @Test
+    void concurrentUseIsTreatedAsReuse() {
+        String token = refreshTokenService.createRefreshToken(USER_ID);
+        // Une requête concurrente consomme le jeton entre la lecture et la mise à jour conditionnelle
+        consumedConcurrently = true;
+
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(token));
+        assertTrue(table.stream().allMatch(RefreshToken::isRevoked));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = refreshTokenService.createRefreshToken(USER_ID);
+        table.get(0).setExpiresAt(Instant.now().minusSeconds(1));
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(token));
+        assertEquals(1, table.size());
+        // Refusé sans être consommé : ni marqué utilisé, ni famille révoquée
+        assertFalse(table.get(0).isUsed());
+        assertFalse(table.get(0).isRevoked());
+    }
+
+    @Test
+    void unknownAndRevokedTokensAreRejected() {
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh("inconnu"));
+
+        String token = refreshTokenService.createRefreshToken(USER_ID);
+        refreshTokenService.revokeToken(token);
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(token));
+    }
+
+    @Test
+    void lockedAccountCannotRefresh() {
+        String token = refreshTokenService.createRefreshToken(USER_ID);
+        when(loginAttemptTracker.isLocked("alice")).thenReturn(true);
+        assertThrows(TokenRefreshException.class, () -> refreshTokenService.refresh(token));
+    }
+
+    // --- Repository en mémoire ---
+
+    private RefreshTokenRepository inMemoryRepository() {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setId((long) table.size() + 1);
+            table.add(token);
+            return token;
+        });
+        when(repository.findByTokenHash(any())).thenAnswer(invocation -> {
+            Optional<RefreshToken> stored = table.stream()
+                    .filter(token -> Arrays.equals(token.getTokenHash(), invocation.getArgument(0)))
+                    .findFirst();
+            Optional<RefreshToken> read = stored.map(RefreshTokenServiceTest::copy);
+            if (consumedConcurrently) {
+                stored.ifPresent(token -> token.setUsed(true));
+            }
+            return read;
+        });
+        when(repository.markUsed(anyLong())).thenAnswer(invocation -> {
+            RefreshToken token = byId(invocation.getArgument(0));
+            if (token.isUsed()) {
+                return 0;
+            }
+            token.setUsed(true);
+            return 1;
+        });
+        when(repository.revokeFamily(anyLong())).thenAnswer(invocation -> {
+            Long familyId = invocation.getArgument(0);
+            table.stream().filter(token -> token.getFamilyId().equals(familyId)).forEach(token -> token.setRevoked(true));
+            return 1;
+        });
+        return repository;
+    }
+
+    private RefreshToken byId(Long id) {
+        return table.stream().filter(token -> token.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    // Lecture détachée, comme une entité chargée dans une autre transaction
+    private static RefreshToken copy(RefreshToken token) {
+        RefreshToken copy = new RefreshToken(token.getTokenHash(), token.getUserId(), token.getFamilyId(), token.getExpiresAt());
+        copy.setId(token.getId());
+        copy.setUsed(token.isUsed());
+        copy.setRevoked(token.isRevoked());
+        return copy;
+    }
+}
@@ -0,0 +1,111 @@
+package com.hgs.patient.siags_backend.service.audit;
+
+import com.hgs.patient.siags_backend.dto.AuditLogFilter;
+import com.hgs.patient.siags_backend.dto.AuditLogPageDTO;
+import com.hgs.patient.siags_backend.dto.AuditLogResponseDTO;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.model.AuditAction;
+import com.hgs.patient.siags_backend.model.AuditResource;
+import com.hgs.patient.siags_backend.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie la pagination par curseur du journal d'audit : le curseur d'une page reprend exactement
+ * après sa dernière ligne, et un curseur altéré est refusé (400) sans atteindre la base.
+ */
+class AuditLogQueryServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 2, 14, 30, 15, 123_000_000);
+
+    private AuditLogRepository auditLogRepository;
+    private AuditLogQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(AuditLogRepository.class);
+        queryService = new AuditLogQueryService(auditLogRepository, mock(AuditArchiveStore.class));
+    }
+
+    @Test
+    void nextCursorResumesAfterTheLastRowOfThePage() {
+        // 3 lignes demandées, 4 renvoyées : il existe une page suivante
+        when(auditLogRepository.search(any(), isNull(), isNull(), eq(4))).thenReturn(rows(4));
+        AuditLogPageDTO first = queryService.search(new AuditLogFilter(), null, 3);
+        assertEquals(3, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+
+        AuditLogResponseDTO last = first.getItems().get(2);
+        when(auditLogRepository.search(any(), eq(last.getTimestamp()), eq(last.getId()), eq(4))).thenReturn(rows(1));
+        AuditLogPageDTO second = queryService.search(new AuditLogFilter(), first.getNextCursor(), 3);
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+        verify(auditLogRepository).search(any(), eq(last.getTimestamp()), eq(last.getId()), eq(4));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        when(auditLogRepository.search(any(), isNull(), isNull(), anyInt())).thenReturn(rows(3));
+        String cursor = queryService.search(new AuditLogFilter(), null, 2).getNextCursor();
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void pageSizeIsBounded() {
+        when(auditLogRepository.search(any(), any(), any(), anyInt())).thenReturn(List.of());
+        queryService.search(new AuditLogFilter(), null, 10_000);
+        verify(auditLogRepository).search(any(), isNull(), isNull(), eq(AuditLogQueryService.MAX_PAGE_SIZE + 1));
+        queryService.search(new AuditLogFilter(), null, 0);
+        verify(auditLogRepository).search(any(), isNull(), isNull(), eq(2));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String cursor : new String[]{
+                "pas un curseur !",
+                encode("2024-05-02T14:30:15"),
+                encode("2024-05-02T14:30:15|12|3"),
+                encode("hier|12"),
+                encode("2024-05-02T14:30:15|douze"),
+                encode("|12")}) {
+            assertThrows(BadRequestException.class, () -> queryService.search(new AuditLogFilter(), cursor, 10), cursor);
+        }
+    }
+
+    @Test
+    void reversedDateRangeIsRejected() {
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setFrom(T0);
+        filter.setTo(T0.minusDays(1));
+        assertThrows(BadRequestException.class, () -> queryService.search(filter, null, 10));
+    }
+
+    // Lignes par ordre décroissant de (timestamp, id), comme les renvoie le repository
+    private static List<AuditLogResponseDTO> rows(int count) {
+        List<AuditLogResponseDTO> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new AuditLogResponseDTO(100L - i, "admin", "ROLE_ADMIN", AuditAction.READ, AuditResource.PATIENT,
+                    7L, null, T0.minusSeconds(i), 1, T0.minusSeconds(i)));
+        }
+        return rows;
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,230 @@
+package com.hgs.patient.siags_backend.service.imp;
+
+import com.hgs.patient.siags_backend.dto.LengthOfStayBucketDTO;
+import com.hgs.patient.siags_backend.dto.LengthOfStayDTO;
+import com.hgs.patient.siags_backend.dto.LengthOfStayReportDTO;
+import com.hgs.patient.siags_backend.dto.PeriodCountDTO;
+import com.hgs.patient.siags_backend.exception.BadRequestException;
+import com.hgs.patient.siags_backend.model.Department;
+import com.hgs.patient.siags_backend.model.ReportGranularity;
+import com.hgs.patient.siags_backend.repository.AdmissionRepository;
+import com.hgs.patient.siags_backend.repository.AdmissionRepository.LengthOfStayView;
+import com.hgs.patient.siags_backend.repository.ConsultationRepository;
+import com.hgs.patient.siags_backend.repository.DailyCountView;
+import com.hgs.patient.siags_backend.repository.DepartmentRepository;
+import com.hgs.patient.siags_backend.repository.PatientRepository;
+import com.hgs.patient.siags_backend.repository.ReportDailyRollupRepository;
+import com.hgs.patient.siags_backend.repository.UserRepository;
+import com.hgs.patient.siags_backend.service.DiagnosisTopKService;
+import com.hgs.patient.siags_backend.service.UniquePatientSketchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vérifie les calculs en mémoire des rapports, à partir de comptages fournis par des repositories simulés.
+ */
+class ReportServiceImpTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 7, 1);
+
+    private AdmissionRepository admissionRepository;
+    private DepartmentRepository departmentRepository;
+    private ReportServiceImp reportService;
+
+    @BeforeEach
+    void setUp() {
+        admissionRepository = mock(AdmissionRepository.class);
+        departmentRepository = mock(DepartmentRepository.class);
+        reportService = new ReportServiceImp(mock(PatientRepository.class), admissionRepository,
+                mock(ConsultationRepository.class), mock(ReportDailyRollupRepository.class),
+                departmentRepository, mock(UserRepository.class),
+                mock(UniquePatientSketchService.class), mock(DiagnosisTopKService.class));
+    }
+
+    // --- Histogrammes ---
+
+    @Test
+    void weeksStartOnMondayAndBoundsAreExtendedToWholeWeeks() {
+        // Du mercredi 3 au mercredi 17 janvier 2024 : semaines des lundis 1er, 8 et 15
+        when(admissionRepository.countAdmissionsPerDay(any(), any())).thenReturn(List.of());
+        List<PeriodCountDTO> buckets = reportService.getAdmissionHistogram(
+                LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 17), ReportGranularity.WEEK);
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 15)),
+                buckets.stream().map(PeriodCountDTO::getPeriodStart).toList());
+        assertEquals(LocalDate.of(2024, 1, 22), buckets.get(2).getPeriodEnd());
+        // Les comptages sont demandés sur l'intervalle aligné
+        verify(admissionRepository).countAdmissionsPerDay(
+                LocalDate.of(2024, 1, 1).atStartOfDay(), LocalDate.of(2024, 1, 22).atStartOfDay());
+    }
+
+    @Test
+    void alignedEndDoesNotAddAnEmptyBucket() {
+        when(admissionRepository.countAdmissionsPerDay(any(), any())).thenReturn(List.of());
+        List<PeriodCountDTO> buckets = reportService.getAdmissionHistogram(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 4, 1), ReportGranularity.MONTH);
+        assertEquals(3, buckets.size());
+        assertEquals(LocalDate.of(2024, 4, 1), buckets.get(2).getPeriodEnd());
+    }
+
+    @Test
+    void emptyBucketsAreFilledWithZero() {
+        when(admissionRepository.countAdmissionsPerDay(any(), any())).thenReturn(List.of(
+                day(LocalDate.of(2024, 1, 5), 3),
+                day(LocalDate.of(2024, 1, 31), 2),
+                day(LocalDate.of(2024, 4, 10), 7)));
+        List<PeriodCountDTO> buckets = reportService.getAdmissionHistogram(
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 5, 1), ReportGranularity.MONTH);
+
+        assertEquals(List.of(5L, 0L, 0L, 7L), buckets.stream().map(PeriodCountDTO::getCount).toList());
+    }
+
+    @Test
+    void daysAreGroupedIntoTheirYear() {
+        when(admissionRepository.countAdmissionsPerDay(any(), any())).thenReturn(List.of(
+                day(LocalDate.of(2023, 12, 31), 1),
+                day(LocalDate.of(2024, 1, 1), 4),
+                day(LocalDate.of(2024, 12, 31), 6)));
+        List<PeriodCountDTO> buckets = reportService.getAdmissionHistogram(
+                LocalDate.of(2023, 6, 1), LocalDate.of(2024, 6, 1), ReportGranularity.YEAR);
+
+        assertEquals(List.of(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1)),
+                buckets.stream().map(PeriodCountDTO::getPeriodStart).toList());
+        assertEquals(List.of(1L, 10L), buckets.stream().map(PeriodCountDTO::getCount).toList());
+    }
+
+    @Test
+    void tooManyBucketsAreRejected() {
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        assertThrows(BadRequestException.class, () -> reportService.getAdmissionHistogram(
+                start, start.plusDays(ReportServiceImp.MAX_BUCKETS + 1), ReportGranularity.DAY));
+    }
+
+    @Test
+    void startMustPrecedeEnd() {
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        assertThrows(BadRequestException.class, () -> reportService.getAdmissionHistogram(day, day, ReportGranularity.DAY));
+    }
+
+    // --- Durées de séjour ---
+
+    @Test
+    void medianAndP90UseTheNearestRank() {
+        // 10 séjours : 0, 1, 1, 2, 2, 2, 5, 5, 5, 20 jours
+        stays(stay(null, 0, 1), stay(null, 1, 2), stay(null, 2, 3), stay(null, 5, 3), stay(null, 20, 1));
+        LengthOfStayDTO overall = reportService.getLengthOfStay(START, END, null).getOverall();
+
+        assertEquals(10L, overall.getStays());
+        assertEquals(4.3, overall.getMeanDays(), 1e-9);
+        assertEquals(2L, overall.getMedianDays()); // Rang ceil(0,5 * 10) = 5
+        assertEquals(5L, overall.getP90Days());    // Rang ceil(0,9 * 10) = 9
+    }
+
+    @Test
+    void percentilesRoundTheRankUp() {
+        // 3 séjours : 1, 4, 9 jours ; médiane au rang 2, p90 au rang ceil(2,7) = 3
+        stays(stay(null, 1, 1), stay(null, 4, 1), stay(null, 9, 1));
+        LengthOfStayDTO overall = reportService.getLengthOfStay(START, END, null).getOverall();
+        assertEquals(4L, overall.getMedianDays());
+        assertEquals(9L, overall.getP90Days());
+    }
+
+    @Test
+    void singleStayIsItsOwnMedianAndP90() {
+        stays(stay(null, 7, 1));
+        LengthOfStayDTO overall = reportService.getLengthOfStay(START, END, null).getOverall();
+        assertEquals(7L, overall.getMedianDays());
+        assertEquals(7L, overall.getP90Days());
+    }
+
+    @Test
+    void noStayGivesNoStatisticsButAFullHistogram() {
+        stays();
+        LengthOfStayDTO overall = reportService.getLengthOfStay(START, END, null).getOverall();
+        assertEquals(0L, overall.getStays());
+        assertNull(overall.getMeanDays());
+        assertNull(overall.getMedianDays());
+        assertNull(overall.getP90Days());
+        assertEquals(8, overall.getHistogram().size());
+        assertTrue(overall.getHistogram().stream().allMatch(bucket -> bucket.getCount() == 0));
+    }
+
+    @Test
+    void histogramBucketsFollowTheBounds() {
+        stays(stay(null, 0, 1), stay(null, 3, 2), stay(null, 7, 4), stay(null, 8, 1), stay(null, 31, 5), stay(null, 90, 1));
+        List<LengthOfStayBucketDTO> histogram = reportService.getLengthOfStay(START, END, null).getOverall().getHistogram();
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 8, 15, 31), histogram.stream().map(LengthOfStayBucketDTO::getMinDays).toList());
+        assertNull(histogram.get(7).getMaxDays()); // Dernier intervalle ouvert
+        assertEquals(List.of(1L, 0L, 0L, 2L, 4L, 1L, 0L, 6L), histogram.stream().map(LengthOfStayBucketDTO::getCount).toList());
+    }
+
+    @Test
+    void departmentsAreReportedSeparately() {
+        stays(stay(1L, 2, 2), stay(1L, 10, 1), stay(null, 4, 1));
+        Department cardiology = new Department();
+        cardiology.setId(1L);
+        cardiology.setName("Cardiologie");
+        when(departmentRepository.findAllById(any())).thenReturn(List.of(cardiology));
+
+        LengthOfStayReportDTO report = reportService.getLengthOfStay(START, END, null);
+        assertEquals(4L, report.getOverall().getStays());
+        assertEquals(2, report.getDepartments().size());
+
+        LengthOfStayDTO first = report.getDepartments().get(0);
+        assertEquals("Cardiologie", first.getDepartmentName());
+        assertEquals(3L, first.getStays());
+        assertEquals(2L, first.getMedianDays());
+        assertEquals(10L, first.getP90Days());
+        // Séjours sans département en dernier
+        assertNull(report.getDepartments().get(1).getDepartmentName());
+        assertEquals(4L, report.getDepartments().get(1).getMedianDays());
+    }
+
+    private void stays(LengthOfStayView... rows) {
+        when(admissionRepository.countLengthsOfStay(START.atStartOfDay(), END.atStartOfDay(), null)).thenReturn(List.of(rows));
+    }
+
+    private static LengthOfStayView stay(Long departmentId, int days, long total) {
+        return new LengthOfStayView() {
+            @Override
+            public Long getDepartmentId() {
+                return departmentId;
+            }
+
+            @Override
+            public Integer getDays() {
+                return days;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private static DailyCountView day(LocalDate day, long total) {
+        return new DailyCountView() {
+            @Override
+            public LocalDate getDay() {
+                return day;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
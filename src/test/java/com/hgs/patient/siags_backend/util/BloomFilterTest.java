@@ -0,0 +1,71 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie les deux garanties dont dépend TokenRevocationRegistry : aucun faux négatif (un jeton révoqué
+ * n'est jamais déclaré absent) et un taux de faux positifs proche de celui demandé.
+ * Les valeurs sont déterministes : le test est reproductible.
+ */
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 50_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    void everyInsertedValueIsFound() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(jti(i));
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertTrue(filter.mightContain(jti(i)), "Faux négatif pour " + jti(i));
+        }
+    }
+
+    @Test
+    void overfilledFilterStillHasNoFalseNegatives() {
+        // Plus d'éléments que prévu : le taux de faux positifs se dégrade, jamais l'absence de faux négatifs
+        BloomFilter filter = new BloomFilter(1_000, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 20_000; i++) {
+            filter.put(jti(i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filter.mightContain(jti(i)));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(jti(i));
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = INSERTIONS; i < INSERTIONS + probes; i++) {
+            if (filter.mightContain(jti(i))) {
+                falsePositives++;
+            }
+        }
+        // Marge de 2x sur le taux visé : le dimensionnement est arrondi au mot de 64 bits
+        assertTrue(falsePositives < probes * FALSE_POSITIVE_RATE * 2, falsePositives + " faux positifs");
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(filter.mightContain(jti(i)));
+        }
+    }
+
+    // Identifiants de jeton de la forme réelle (UUID), dérivés de l'indice
+    private static String jti(int i) {
+        return new UUID(0x5eed_0000_0000_0000L + i, i * 0x9e3779b97f4a7c15L).toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie l'échappement RFC 4180 et la neutralisation des formules de l'export CSV du journal d'audit.
+ */
+class CsvWriterTest {
+
+    @Test
+    void plainFieldsAreWrittenAsIs() throws IOException {
+        assertEquals("id,admin,2024-03-01,\r\n", csv("id", "admin", LocalDate.of(2024, 3, 1), null));
+    }
+
+    @Test
+    void fieldsWithSeparatorQuoteOrNewlineAreQuoted() throws IOException {
+        assertEquals("\"a,b\"\r\n", csv("a,b"));
+        assertEquals("\"dit \"\"bonjour\"\"\"\r\n", csv("dit \"bonjour\""));
+        assertEquals("\"ligne 1\nligne 2\"\r\n", csv("ligne 1\nligne 2"));
+        assertEquals("\"fin\r\"\r\n", csv("fin\r"));
+    }
+
+    @Test
+    void formulasAreNeutralised() throws IOException {
+        assertEquals("\"'=SUM(A1:A9)\"\r\n", csv("=SUM(A1:A9)"));
+        assertEquals("\"'+33 6 00 00 00 00\"\r\n", csv("+33 6 00 00 00 00"));
+        assertEquals("\"'-1\"\r\n", csv("-1"));
+        assertEquals("\"'@cmd\"\r\n", csv("@cmd"));
+        // Tabulation ou retour chariot en tête : certains tableurs les ignorent puis évaluent la suite
+        assertEquals("\"'\t=1+1\"\r\n", csv("\t=1+1"));
+        assertEquals("\"'\r=1+1\"\r\n", csv("\r=1+1"));
+        // Formule contenant aussi des guillemets : apostrophe et doublement des guillemets
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\"\r\n", csv("=HYPERLINK(\"http://x\")"));
+    }
+
+    @Test
+    void formulaCharactersInsideAFieldAreKept() throws IOException {
+        assertEquals("a=b,x-y\r\n", csv("a=b", "x-y"));
+    }
+
+    @Test
+    void emptyAndNullFieldsKeepTheirColumn() throws IOException {
+        assertEquals(",,\r\n", csv("", null, ""));
+    }
+
+    @Test
+    void rowsAreSeparatedByCrlf() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.row("a", "b");
+        writer.field("c").field("d").endRow();
+        assertEquals("a,b\r\nc,d\r\n", out.toString());
+    }
+
+    private static String csv(Object... values) throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out).row(values);
+        return out.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie le regroupement des diagnostics saisis en texte libre.
+ */
+class DiagnosisNormalizerTest {
+
+    @Test
+    void caseAccentsAndSpacesAreIgnored() {
+        assertEquals("paludisme grave", DiagnosisNormalizer.normalize("  Paludisme   GRAVE "));
+        assertEquals("fievre typhoide", DiagnosisNormalizer.normalize("Fièvre\ttyphoïde"));
+        assertEquals("fievre typhoide", DiagnosisNormalizer.normalize("FIÈVRE TYPHOÏDE\n"));
+    }
+
+    @Test
+    void composedAndDecomposedAccentsGiveTheSameKey() {
+        String composed = "d\u00e9shydratation";
+        String decomposed = "de\u0301shydratation";
+        assertEquals(DiagnosisNormalizer.key(composed), DiagnosisNormalizer.key(decomposed));
+    }
+
+    @Test
+    void blankDiagnosesHaveNoKey() {
+        assertNull(DiagnosisNormalizer.normalize(null));
+        assertNull(DiagnosisNormalizer.normalize(" \t\n"));
+        assertNull(DiagnosisNormalizer.key(""));
+    }
+
+    @Test
+    void keyIsAFixedLengthHexDigestOfTheNormalizedText() {
+        String key = DiagnosisNormalizer.key("Paludisme grave");
+        assertEquals(64, key.length());
+        assertTrue(key.matches("[0-9a-f]{64}"));
+        assertEquals(key, DiagnosisNormalizer.key("PALUDISME  GRAVE"));
+        assertNotEquals(key, DiagnosisNormalizer.key("Paludisme simple"));
+    }
+}
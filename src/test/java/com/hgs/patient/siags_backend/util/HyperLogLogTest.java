@@ -0,0 +1,74 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie la borne d'erreur documentée de HyperLogLog face aux comptages exacts.
+ * Les identifiants sont déterministes : les estimations (et donc le test) sont reproductibles.
+ */
+class HyperLogLogTest {
+
+    // 3 erreurs types : ≈ 4,9 % pour p = 12
+    private static final double MAX_RELATIVE_ERROR = 3 * HyperLogLog.RELATIVE_STANDARD_ERROR;
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int exact : new int[]{1, 10, 100, 1_000, 5_000, 10_000, 20_000, 50_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long id = 1; id <= exact; id++) {
+                sketch.add(id);
+            }
+            assertWithinBound(exact, sketch.estimate());
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheEstimate() {
+        HyperLogLog once = new HyperLogLog();
+        HyperLogLog repeated = new HyperLogLog();
+        for (long id = 1; id <= 5_000; id++) {
+            once.add(id);
+            for (int i = 0; i < 3; i++) {
+                repeated.add(id);
+            }
+        }
+        assertEquals(once.estimate(), repeated.estimate());
+    }
+
+    @Test
+    void mergedDailySketchesEstimateTheUnion() {
+        // 30 jours de 800 patients, avec recouvrement entre jours consécutifs : 30 * 600 + 200 patients distincts
+        HyperLogLog period = new HyperLogLog();
+        for (int day = 0; day < 30; day++) {
+            HyperLogLog daily = new HyperLogLog();
+            for (long id = day * 600L; id < day * 600L + 800; id++) {
+                daily.add(id);
+            }
+            period.merge(daily);
+        }
+        assertWithinBound(30 * 600 + 200, period.estimate());
+    }
+
+    @Test
+    void serializationRoundTripKeepsTheRegisters() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 0; id < 12_345; id++) {
+            sketch.add(id * 31);
+        }
+        byte[] bytes = sketch.toBytes();
+        assertTrue(bytes.length < HyperLogLog.REGISTERS, "les registres doivent être compressés");
+        assertEquals(sketch.estimate(), HyperLogLog.fromBytes(bytes).estimate());
+
+        assertTrue(HyperLogLog.fromBytes(null).isEmpty());
+        assertEquals(0, new HyperLogLog().estimate());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{8, 1, 2}));
+    }
+
+    private static void assertWithinBound(long exact, long estimate) {
+        double error = Math.abs(estimate - exact) / (double) exact;
+        assertTrue(error <= MAX_RELATIVE_ERROR,
+                () -> "cardinalité " + exact + " : estimation " + estimate + " (erreur " + error + ")");
+    }
+}
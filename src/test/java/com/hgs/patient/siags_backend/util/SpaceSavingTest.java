@@ -0,0 +1,125 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie la garantie documentée de SpaceSaving, avant et après fusion de résumés journaliers :
+ * la fréquence réelle de chaque élément retenu est dans [count - error, count], et celle de tout élément
+ * absent ne dépasse pas {@link SpaceSaving#floor()}. Les flux sont pseudo-aléatoires à graine fixe.
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 50;
+
+    @Test
+    void summaryIsExactBelowCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(CAPACITY);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            String key = "d" + (i % 20);
+            summary.offer(key, 2);
+            exact.merge(key, 2L, Long::sum);
+        }
+        assertEquals(0, summary.floor());
+        for (SpaceSaving.Entry<String> entry : summary.top(CAPACITY)) {
+            assertEquals(exact.get(entry.getKey()), entry.getCount());
+            assertEquals(0, entry.getError());
+        }
+    }
+
+    @Test
+    void countsStayWithinTheirErrorBound() {
+        SpaceSaving<String> summary = new SpaceSaving<>(CAPACITY);
+        Map<String, Long> exact = new HashMap<>();
+        feed(summary, exact, new Random(12), 20_000);
+        assertEquals(CAPACITY, summary.size());
+        assertWithinBounds(summary, exact);
+    }
+
+    @Test
+    void mergedDailySummariesKeepTheErrorBound() {
+        SpaceSaving<String> period = new SpaceSaving<>(CAPACITY);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(23);
+        for (int day = 0; day < 30; day++) {
+            SpaceSaving<String> daily = new SpaceSaving<>(CAPACITY);
+            feed(daily, exact, random, 2_000);
+            period.merge(daily);
+        }
+        assertWithinBounds(period, exact);
+    }
+
+    @Test
+    void mergeOfSmallSummariesIsExact() {
+        SpaceSaving<String> a = new SpaceSaving<>(CAPACITY);
+        SpaceSaving<String> b = new SpaceSaving<>(CAPACITY);
+        a.offer("paludisme", 5);
+        a.offer("typhoïde", 1);
+        b.offer("paludisme", 3);
+        b.offer("rougeole", 2);
+        a.merge(b);
+
+        List<SpaceSaving.Entry<String>> top = a.top(3);
+        assertEquals("paludisme", top.get(0).getKey());
+        assertEquals(8, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals("rougeole", top.get(1).getKey());
+        assertEquals(2, top.get(1).getCount());
+        assertEquals(3, a.size());
+    }
+
+    @Test
+    void heavyHittersSurviveMerges() {
+        SpaceSaving<String> period = new SpaceSaving<>(CAPACITY);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(34);
+        for (int day = 0; day < 30; day++) {
+            SpaceSaving<String> daily = new SpaceSaving<>(CAPACITY);
+            feed(daily, exact, random, 2_000);
+            period.merge(daily);
+        }
+        List<String> retained = period.top(CAPACITY).stream().map(SpaceSaving.Entry::getKey).toList();
+        // d0 à d4 représentent ensemble la moitié du flux
+        for (int rank = 0; rank < 5; rank++) {
+            assertTrue(retained.contains("d" + rank), "d" + rank + " absent du résumé fusionné");
+        }
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving<String>(0));
+    }
+
+    // Flux asymétrique : la moitié des occurrences sur 5 diagnostics, le reste réparti sur 2 000
+    private static void feed(SpaceSaving<String> summary, Map<String, Long> exact, Random random, int events) {
+        for (int i = 0; i < events; i++) {
+            String key = random.nextBoolean() ? "d" + random.nextInt(5) : "d" + (5 + random.nextInt(2_000));
+            long weight = 1 + random.nextInt(3);
+            summary.offer(key, weight);
+            exact.merge(key, weight, Long::sum);
+        }
+    }
+
+    private static void assertWithinBounds(SpaceSaving<String> summary, Map<String, Long> exact) {
+        List<SpaceSaving.Entry<String>> top = summary.top(CAPACITY);
+        for (SpaceSaving.Entry<String> entry : top) {
+            long real = exact.getOrDefault(entry.getKey(), 0L);
+            assertTrue(real <= entry.getCount(), entry.getKey() + " sous-estimé");
+            assertTrue(real >= entry.getCount() - entry.getError(), entry.getKey() + " hors de la borne d'erreur");
+        }
+        List<String> retained = top.stream().map(SpaceSaving.Entry::getKey).toList();
+        long floor = summary.floor();
+        exact.forEach((key, real) -> {
+            if (!retained.contains(key)) {
+                assertTrue(real <= floor, key + " absent mais plus fréquent que le plancher");
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.hgs.patient.siags_backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Vérifie que les valeurs écrites par XlsxWriter produisent un XML bien formé et sont relues à l'identique :
+ * caractères spéciaux échappés, caractères de contrôle interdits omis, nombres écrits comme valeurs numériques.
+ */
+class XlsxWriterTest {
+
+    private static final String SHEET = "xl/worksheets/sheet1.xml";
+
+    @Test
+    void specialCharactersAreEscaped() throws Exception {
+        String value = "<script>alert(\"x\") & 'y'</script>";
+        Element cell = onlyCell(value);
+        assertEquals("inlineStr", cell.getAttribute("t"));
+        assertEquals(value, cell.getTextContent());
+    }
+
+    @Test
+    void forbiddenControlCharactersAreDropped() throws Exception {
+        assertEquals("ab\tc\nd", onlyCell("a\u0000b\tc\nd\u001F").getTextContent());
+    }
+
+    @Test
+    void leadingAndTrailingSpacesArePreserved() throws Exception {
+        Element cell = onlyCell("  motif  ");
+        assertEquals("  motif  ", cell.getTextContent());
+    }
+
+    @Test
+    void numbersAreNumericCellsAndNonFiniteNumbersAreText() throws Exception {
+        Element number = onlyCell(42.5);
+        assertEquals("", number.getAttribute("t"));
+        assertEquals("42.5", number.getTextContent());
+
+        Element nan = onlyCell(Double.NaN);
+        assertEquals("inlineStr", nan.getAttribute("t"));
+        assertEquals("NaN", nan.getTextContent());
+    }
+
+    @Test
+    void sheetNameIsEscapedInTheWorkbook() throws Exception {
+        Map<String, byte[]> entries = write("R&D <2024>", writer -> writer.row("x"));
+        Element sheet = (Element) parse(entries.get("xl/workbook.xml")).getElementsByTagName("sheet").item(0);
+        assertEquals("R&D <2024>", sheet.getAttribute("name"));
+    }
+
+    @Test
+    void rowsKeepTheirCells() throws Exception {
+        Map<String, byte[]> entries = write("Audit", writer -> {
+            writer.row("a", null, 3);
+            writer.endRow(); // Ligne vide
+        });
+        NodeList rows = parse(entries.get(SHEET)).getElementsByTagName("row");
+        assertEquals(2, rows.getLength());
+        assertEquals(3, ((Element) rows.item(0)).getElementsByTagName("c").getLength());
+        assertEquals(1, ((Element) rows.item(1)).getElementsByTagName("c").getLength());
+    }
+
+    private static Element onlyCell(Object value) throws Exception {
+        Map<String, byte[]> entries = write("Feuille", writer -> writer.row(value));
+        NodeList cells = parse(entries.get(SHEET)).getElementsByTagName("c");
+        assertEquals(1, cells.getLength());
+        return (Element) cells.item(0);
+    }
+
+    private static Map<String, byte[]> write(String sheetName, Rows rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XlsxWriter writer = new XlsxWriter(out, sheetName);
+        rows.write(writer);
+        writer.finish();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    // Échoue si le XML n'est pas bien formé
+    private static Document parse(byte[] xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private interface Rows {
+        void write(XlsxWriter writer) throws Exception;
+    }
+}